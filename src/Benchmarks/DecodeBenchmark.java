@@ -0,0 +1,213 @@
+package Benchmarks;
+
+import intrinio.realtime.equities.MarketCenter;
+import intrinio.realtime.equities.MarketCenterMapper;
+import intrinio.realtime.equities.SubProvider;
+import intrinio.realtime.equities.TradeConditions;
+import intrinio.realtime.equities.TradeView;
+import intrinio.realtime.options.Exchange;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Times the message decode path: parsing equities and options messages into records, reading them through a reused view, and the
+ * table lookups for sub-providers, market centers, options exchanges and trade condition flags. Each case decodes a rotating set
+ * of messages, so no input is constant, and folds every result into a sink the JIT cannot discard.
+ * <p>
+ * Each case runs five one-second warm-up iterations, whose results are discarded, then five one-second measured iterations.
+ * It reports the mean time per operation with its standard deviation, and the bytes allocated per operation where the JVM can count them.
+ * <p>
+ * Run with {@code java -cp target/classes Benchmarks.DecodeBenchmark [case ...]}, e.g. {@code EquitiesTradeParse}. Every case runs by default.
+ */
+public class DecodeBenchmark {
+	private static final int WARMUP_ITERATIONS = 5;
+	private static final int MEASURED_ITERATIONS = 5;
+	private static final long ITERATION_NANOS = 1_000_000_000L;
+	private static final int BATCH = 10_000;
+	private static final String[] SYMBOLS = {"AAPL", "MSFT", "SPY", "NVDA"};
+	private static final String[] CONDITIONS = {"", "@", "@FI", "@ TI"};
+	private static final String[] CONTRACTS = {"AAPL_201016C100.00", "MSFT_201016P200.00", "SPY_201016C350.00", "NVDA_201016P500.00"}; //As sent on the wire
+	private static final byte[] EXCHANGE_CODES = {'A', 'B', 'C', 'Q'};
+	private static final char[] MARKET_CENTER_CODES = {'A', 'N', 'P', 'Q'};
+
+	private static final byte[][] equitiesTrades = new byte[SYMBOLS.length][];
+	private static final byte[][] equitiesQuotes = new byte[SYMBOLS.length][];
+	private static final byte[][] optionsTrades = new byte[CONTRACTS.length][];
+	private static volatile long sink;
+
+	/**
+	 * Decodes {@code count} messages and returns a value derived from all of them.
+	 */
+	private interface Case {
+		long run(int count);
+	}
+
+	public static void main(String[] args) {
+		for (int i = 0; i < SYMBOLS.length; i++) {
+			equitiesTrades[i] = equitiesTrade(SYMBOLS[i], (byte) (i + 1), MARKET_CENTER_CODES[i], CONDITIONS[i]);
+			equitiesQuotes[i] = equitiesQuote(SYMBOLS[i], (byte) (i + 1), MARKET_CENTER_CODES[i], CONDITIONS[i]);
+			optionsTrades[i] = optionsTrade(CONTRACTS[i], EXCHANGE_CODES[i]);
+		}
+		TradeView view = new TradeView();
+		System.out.printf("%-26s %12s %10s %10s%n", "Case", "ns/op", "+/-", "B/op");
+		run(args, "EquitiesTradeParse", count -> {
+			long result = 0L;
+			for (int i = 0; i < count; i++)
+				result += intrinio.realtime.equities.Trade.parse(equitiesTrades[i & 3]).size();
+			return result;
+		});
+		run(args, "EquitiesQuoteParse", count -> {
+			long result = 0L;
+			for (int i = 0; i < count; i++)
+				result += intrinio.realtime.equities.Quote.parse(equitiesQuotes[i & 3]).size();
+			return result;
+		});
+		run(args, "EquitiesTradeView", count -> {
+			long result = 0L;
+			for (int i = 0; i < count; i++) {
+				view.wrap(equitiesTrades[i & 3], 0);
+				result += view.getSize() + view.getConditionFlags() + view.getSubProvider().ordinal();
+			}
+			return result;
+		});
+		run(args, "EquitiesTradeRegularWay", count -> {
+			long result = 0L;
+			for (int i = 0; i < count; i++) {
+				view.wrap(equitiesTrades[i & 3], 0);
+				if ((view.getConditionFlags() & TradeConditions.NON_REGULAR_SETTLEMENT) == 0L)
+					result++;
+			}
+			return result;
+		});
+		run(args, "TradeConditionsOfString", count -> {
+			long result = 0L;
+			for (int i = 0; i < count; i++)
+				result += TradeConditions.of(CONDITIONS[i & 3]);
+			return result;
+		});
+		run(args, "SubProviderValueOfCode", count -> {
+			long result = 0L;
+			for (int i = 0; i < count; i++)
+				result += SubProvider.valueOfCode((byte) (i & 7)).ordinal();
+			return result;
+		});
+		run(args, "MarketCenterMap", count -> {
+			long result = 0L;
+			for (int i = 0; i < count; i++) {
+				MarketCenter marketCenter = MarketCenterMapper.map(MARKET_CENTER_CODES[i & 3], SubProvider.valueOfCode((byte) ((i >>> 2) & 3)));
+				result += marketCenter == null ? 0 : marketCenter.ordinal();
+			}
+			return result;
+		});
+		run(args, "OptionsTradeParse", count -> {
+			long result = 0L;
+			for (int i = 0; i < count; i++)
+				result += intrinio.realtime.options.Trade.parse(optionsTrades[i & 3]).size();
+			return result;
+		});
+		run(args, "OptionsExchangeValueOfCode", count -> {
+			long result = 0L;
+			for (int i = 0; i < count; i++)
+				result += Exchange.valueOfCode(EXCHANGE_CODES[i & 3]).ordinal();
+			return result;
+		});
+	}
+
+	private static void run(String[] selected, String name, Case benchmark) {
+		if (selected.length > 0 && !contains(selected, name))
+			return;
+		for (int i = 0; i < WARMUP_ITERATIONS; i++)
+			iterate(benchmark);
+		boolean countsAllocations = getAllocatedBytes() >= 0L;
+		double[] nanosPerOp = new double[MEASURED_ITERATIONS];
+		long allocated = 0L;
+		long operations = 0L;
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			long allocatedBefore = getAllocatedBytes();
+			long startNanos = System.nanoTime();
+			long count = iterate(benchmark);
+			nanosPerOp[i] = (double) (System.nanoTime() - startNanos) / count;
+			allocated += getAllocatedBytes() - allocatedBefore;
+			operations += count;
+		}
+		double mean = 0.0D;
+		for (double value : nanosPerOp)
+			mean += value / MEASURED_ITERATIONS;
+		double variance = 0.0D;
+		for (double value : nanosPerOp)
+			variance += (value - mean) * (value - mean) / (MEASURED_ITERATIONS - 1);
+		System.out.printf("%-26s %12.2f %10.2f %10s%n", name, mean, Math.sqrt(variance), !countsAllocations ? "n/a" : String.format("%.1f", (double) allocated / operations));
+	}
+
+	/**
+	 * Runs batches for one iteration's worth of time. Returns the number of operations.
+	 */
+	private static long iterate(Case benchmark) {
+		long endNanos = System.nanoTime() + ITERATION_NANOS;
+		long count = 0L;
+		long result = 0L;
+		do {
+			result += benchmark.run(BATCH);
+			count += BATCH;
+		} while (System.nanoTime() < endNanos);
+		sink += result;
+		return count;
+	}
+
+	/**
+	 * Bytes allocated so far by this thread, or -1 if the JVM does not report it.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean allocations && allocations.isThreadAllocatedMemoryEnabled())
+			return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1L;
+	}
+
+	private static boolean contains(String[] names, String name) {
+		for (String candidate : names) {
+			if (candidate.equals(name))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * type, length, symbol length, symbol, sub-provider, market center (2), price (4), size (4), timestamp (8), total volume (4), condition length, conditions
+	 */
+	private static byte[] equitiesTrade(String symbol, byte subProvider, char marketCenter, String conditions) {
+		ByteBuffer buffer = ByteBuffer.allocate(27 + symbol.length() + conditions.length()).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put((byte) 0).put((byte) buffer.capacity()).put((byte) symbol.length()).put(symbol.getBytes(StandardCharsets.US_ASCII));
+		buffer.put(subProvider).putChar(marketCenter).putFloat(187.25f).putInt(100).putLong(System.currentTimeMillis() * 1_000_000L).putInt(1_000_000);
+		buffer.put((byte) conditions.length()).put(conditions.getBytes(StandardCharsets.US_ASCII));
+		return buffer.array();
+	}
+
+	/**
+	 * type, length, symbol length, symbol, sub-provider, market center (2), price (4), size (4), timestamp (8), condition length, conditions
+	 */
+	private static byte[] equitiesQuote(String symbol, byte subProvider, char marketCenter, String conditions) {
+		ByteBuffer buffer = ByteBuffer.allocate(23 + symbol.length() + conditions.length()).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put((byte) 1).put((byte) buffer.capacity()).put((byte) symbol.length()).put(symbol.getBytes(StandardCharsets.US_ASCII));
+		buffer.put(subProvider).putChar(marketCenter).putFloat(187.25f).putInt(100).putLong(System.currentTimeMillis() * 1_000_000L);
+		buffer.put((byte) conditions.length()).put(conditions.getBytes(StandardCharsets.US_ASCII));
+		return buffer.array();
+	}
+
+	/**
+	 * The 72 byte options trade message, laid out as documented in {@link intrinio.realtime.options.Trade#parse(byte[])}.
+	 */
+	private static byte[] optionsTrade(String contract, byte exchange) {
+		ByteBuffer buffer = ByteBuffer.allocate(72).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put((byte) contract.length()).put(contract.getBytes(StandardCharsets.US_ASCII));
+		buffer.position(22);
+		buffer.put((byte) 0).put((byte) 5).put((byte) 5); //Trade, prices in hundred-thousandths
+		buffer.putInt(1_250_000).putInt(10).putLong(System.currentTimeMillis() * 1_000_000L).putLong(5_000L);
+		buffer.putInt(1_260_000).putInt(1_240_000).putInt(18_725_000).putInt(0).put(exchange);
+		return buffer.array();
+	}
+}
@@ -0,0 +1,223 @@
+package Benchmarks;
+
+import intrinio.realtime.common.BufferPool;
+import intrinio.realtime.common.Frame;
+import intrinio.realtime.common.FrameAssembler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compares the websocket frame reassembly the clients used before {@link FrameAssembler} with the assembler itself, with and
+ * without a {@link BufferPool}. The old path copied each fragment into a new array, queued it as a tuple on a {@link LinkedBlockingDeque},
+ * and on the last fragment took a lock, moved the parts into a {@link LinkedList} and copied them into one more new array.
+ * Frames range from a few quotes to a firehose frame of 255 messages split across several fragments.
+ * <p>
+ * Each case runs five one-second warm-up iterations, whose results are discarded, then five one-second measured iterations.
+ * It reports the mean time per frame with its standard deviation, and the bytes allocated per frame where the JVM can count them.
+ * <p>
+ * Run with {@code java -cp target/classes Benchmarks.FrameAssemblerBenchmark [method ...]}, where a method is {@code Deque},
+ * {@code Assembler} or {@code PooledAssembler}. Every method runs by default.
+ */
+public class FrameAssemblerBenchmark {
+	private static final int WARMUP_ITERATIONS = 5;
+	private static final int MEASURED_ITERATIONS = 5;
+	private static final long ITERATION_NANOS = 1_000_000_000L;
+	private static final int BATCH = 1_000;
+	//Frame size in bytes and the number of fragments it arrives in: a few options quotes, a full frame of 255 options trades, and the same split as a busy socket delivers it.
+	private static final int[][] SHAPES = {{520, 1}, {18_361, 1}, {18_361, 4}, {18_361, 16}};
+
+	private static volatile long sink;
+
+	/**
+	 * Reassembles {@code count} frames and returns a value derived from all of them.
+	 */
+	private interface Case {
+		long run(int count);
+	}
+
+	/**
+	 * The old path's queue entry: a fragment and whether it completes the frame.
+	 */
+	private static final class Tuple<X, Y> {
+		private final X x;
+		private final Y y;
+
+		private Tuple(X x, Y y) {
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	public static void main(String[] args) {
+		System.out.printf("%-32s %12s %10s %10s%n", "Case", "ns/frame", "+/-", "B/frame");
+		for (int[] shape : SHAPES) {
+			ByteBuffer[] fragments = fragments(shape[0], shape[1]);
+			String suffix = String.format(" %d B x %d", shape[0], shape[1]);
+			run(args, "Deque", suffix, dequeCase(fragments));
+			run(args, "Assembler", suffix, assemblerCase(fragments, null));
+			run(args, "PooledAssembler", suffix, assemblerCase(fragments, new BufferPool()));
+		}
+	}
+
+	private static Case dequeCase(ByteBuffer[] fragments) {
+		LinkedBlockingDeque<Tuple<byte[], Boolean>> dataBucket = new LinkedBlockingDeque<Tuple<byte[], Boolean>>();
+		Lock dataBucketLock = new ReentrantLock();
+		return count -> {
+			long result = 0L;
+			for (int i = 0; i < count; i++) {
+				for (int f = 0; f < fragments.length; f++) {
+					ByteBuffer data = fragments[f].clear();
+					byte[] bytes = new byte[data.remaining()];
+					data.get(bytes);
+					boolean isComplete = f == fragments.length - 1;
+					dataBucket.add(new Tuple<byte[], Boolean>(bytes, isComplete));
+					if (isComplete)
+						result += assembleCompleteDataMessage(dataBucket, dataBucketLock).length;
+				}
+			}
+			return result;
+		};
+	}
+
+	/**
+	 * The old reassembly, as the clients ran it on the last fragment of each frame.
+	 */
+	private static byte[] assembleCompleteDataMessage(LinkedBlockingDeque<Tuple<byte[], Boolean>> dataBucket, Lock dataBucketLock) {
+		Queue<byte[]> parts = new LinkedList<>();
+		int length = 0;
+		boolean done = false;
+		dataBucketLock.lock();
+		try {
+			while (!done) {
+				try {
+					Tuple<byte[], Boolean> datum = dataBucket.poll(1, TimeUnit.SECONDS);
+					if (datum != null) {
+						parts.add(datum.x);
+						done = datum.y;
+						length += datum.x.length;
+					}
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		} finally {
+			dataBucketLock.unlock();
+		}
+		byte[] bytes = new byte[length];
+		int index = 0;
+		while (!parts.isEmpty()) {
+			byte[] part = parts.remove();
+			System.arraycopy(part, 0, bytes, index, part.length);
+			index += part.length;
+		}
+		return bytes;
+	}
+
+	/**
+	 * The assembler, releasing each frame back to the pool, if there is one, as a processing thread would once it has parsed it.
+	 */
+	private static Case assemblerCase(ByteBuffer[] fragments, BufferPool pool) {
+		FrameAssembler assembler = pool == null ? new FrameAssembler() : new FrameAssembler(pool);
+		return count -> {
+			long result = 0L;
+			for (int i = 0; i < count; i++) {
+				for (int f = 0; f < fragments.length; f++) {
+					Frame frame = assembler.append(fragments[f].clear(), f == fragments.length - 1);
+					if (frame != null) {
+						result += frame.getLength() + frame.getBytes()[0];
+						if (pool != null)
+							pool.release(frame.getBytes());
+					}
+				}
+			}
+			return result;
+		};
+	}
+
+	private static void run(String[] selected, String method, String suffix, Case benchmark) {
+		if (selected.length > 0 && !contains(selected, method))
+			return;
+		for (int i = 0; i < WARMUP_ITERATIONS; i++)
+			iterate(benchmark);
+		boolean countsAllocations = getAllocatedBytes() >= 0L;
+		double[] nanosPerFrame = new double[MEASURED_ITERATIONS];
+		long allocated = 0L;
+		long frames = 0L;
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			long allocatedBefore = getAllocatedBytes();
+			long startNanos = System.nanoTime();
+			long count = iterate(benchmark);
+			nanosPerFrame[i] = (double) (System.nanoTime() - startNanos) / count;
+			allocated += getAllocatedBytes() - allocatedBefore;
+			frames += count;
+		}
+		double mean = 0.0D;
+		for (double value : nanosPerFrame)
+			mean += value / MEASURED_ITERATIONS;
+		double variance = 0.0D;
+		for (double value : nanosPerFrame)
+			variance += (value - mean) * (value - mean) / (MEASURED_ITERATIONS - 1);
+		System.out.printf("%-32s %12.1f %10.1f %10s%n", method + suffix, mean, Math.sqrt(variance), !countsAllocations ? "n/a" : String.format("%.1f", (double) allocated / frames));
+	}
+
+	/**
+	 * Runs batches for one iteration's worth of time. Returns the number of frames.
+	 */
+	private static long iterate(Case benchmark) {
+		long endNanos = System.nanoTime() + ITERATION_NANOS;
+		long count = 0L;
+		long result = 0L;
+		do {
+			result += benchmark.run(BATCH);
+			count += BATCH;
+		} while (System.nanoTime() < endNanos);
+		sink += result;
+		return count;
+	}
+
+	/**
+	 * Bytes allocated so far by this thread, or -1 if the JVM does not report it.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean allocations && allocations.isThreadAllocatedMemoryEnabled())
+			return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1L;
+	}
+
+	private static boolean contains(String[] names, String name) {
+		for (String candidate : names) {
+			if (candidate.equals(name))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * A frame of {@code frameBytes} split into {@code count} fragments of near-equal size, as heap buffers like the websocket's.
+	 * The first byte is the message count, as in a real frame.
+	 */
+	private static ByteBuffer[] fragments(int frameBytes, int count) {
+		ByteBuffer[] fragments = new ByteBuffer[count];
+		int offset = 0;
+		for (int i = 0; i < count; i++) {
+			int size = frameBytes / count + (i < frameBytes % count ? 1 : 0);
+			byte[] bytes = new byte[size];
+			for (int j = 0; j < size; j++)
+				bytes[j] = (byte) (offset + j);
+			if (i == 0)
+				bytes[0] = (byte) 255;
+			fragments[i] = ByteBuffer.wrap(bytes);
+			offset += size;
+		}
+		return fragments;
+	}
+}
@@ -0,0 +1,165 @@
+package Benchmarks;
+
+import intrinio.realtime.common.Frame;
+import intrinio.realtime.common.RingBuffer;
+import intrinio.realtime.common.WaitStrategy;
+
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the processing queue the clients used before the ring buffer, a {@link LinkedBlockingDeque} polled with a one second
+ * timeout, with a {@link RingBuffer} under each {@link WaitStrategy}. One producer thread stands in for the websocket thread and
+ * hands 64 byte frames, stamped with their publish time, to consumer threads standing in for the processing threads.
+ * <ul>
+ *     <li>Saturated: the producer publishes as fast as it can. Reports throughput.</li>
+ *     <li>Paced: the producer publishes one frame every 2 us. Reports the publish-to-poll latency.</li>
+ * </ul>
+ * Each case runs two warm-up rounds, whose results are discarded, and three measured rounds.
+ * <p>
+ * Run with {@code java -cp target/classes Benchmarks.RingBufferBenchmark [consumers] [frames]}. Defaults are 4 consumers and 2,000,000 frames.
+ * BUSY_SPIN keeps every consumer on a core, so give it fewer consumers than the machine has cores.
+ */
+public class RingBufferBenchmark {
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int MEASURED_ROUNDS = 3;
+	private static final int FRAME_SIZE = 64;
+	private static final int RING_CAPACITY = 1 << 16;
+	private static final long PACE_NANOS = 2_000L;
+
+	private interface Queue {
+		void put(byte[] frame);
+
+		/**
+		 * The next frame, or null if none arrived before the timeout.
+		 */
+		byte[] poll(Frame into) throws InterruptedException;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int consumers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int frames = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+		System.out.printf("%d consumers, %d frames saturated, %d frames paced at %d ns%n", consumers, frames, frames / 10, PACE_NANOS);
+		System.out.printf("%-10s %-9s %14s %10s %10s %10s%n", "Queue", "Mode", "Frames/s", "P50 (us)", "P99 (us)", "P99.9 (us)");
+		run("Deque", null, consumers, frames);
+		for (WaitStrategy waitStrategy : WaitStrategy.values())
+			run(waitStrategy.name(), waitStrategy, consumers, frames);
+	}
+
+	private static void run(String name, WaitStrategy waitStrategy, int consumers, int frames) throws Exception {
+		for (boolean paced : new boolean[] {false, true}) {
+			int count = paced ? frames / 10 : frames;
+			for (int round = 0; round < WARMUP_ROUNDS; round++)
+				runRound(createQueue(waitStrategy), consumers, count, paced, new long[count]);
+			long[] latencies = new long[count * MEASURED_ROUNDS];
+			double throughput = 0.0D;
+			for (int round = 0; round < MEASURED_ROUNDS; round++) {
+				long[] roundLatencies = new long[count];
+				throughput += runRound(createQueue(waitStrategy), consumers, count, paced, roundLatencies) / MEASURED_ROUNDS;
+				System.arraycopy(roundLatencies, 0, latencies, round * count, count);
+			}
+			Arrays.sort(latencies);
+			System.out.printf("%-10s %-9s %14.0f %10.1f %10.1f %10.1f%n",
+					name,
+					paced ? "Paced" : "Saturated",
+					throughput,
+					percentile(latencies, 50.0D) / 1000.0D,
+					percentile(latencies, 99.0D) / 1000.0D,
+					percentile(latencies, 99.9D) / 1000.0D);
+		}
+	}
+
+	/**
+	 * Publishes {@code count} frames and waits for the consumers to take them all. Fills {@code latencies} with each frame's
+	 * publish-to-poll time and returns the frames per second from the first publish to the last poll.
+	 */
+	private static double runRound(Queue queue, int consumers, int count, boolean paced, long[] latencies) throws InterruptedException {
+		AtomicInteger consumed = new AtomicInteger(0);
+		AtomicLong finishedNanos = new AtomicLong(0L);
+		Thread[] threads = new Thread[consumers];
+		for (int i = 0; i < consumers; i++) {
+			threads[i] = new Thread(() -> {
+				Frame frame = new Frame();
+				try {
+					while (consumed.get() < count) {
+						byte[] bytes = queue.poll(frame);
+						if (bytes == null)
+							continue;
+						long now = System.nanoTime();
+						int index = consumed.getAndIncrement();
+						latencies[index] = now - getLong(bytes);
+						if (index == count - 1)
+							finishedNanos.set(now);
+					}
+				} catch (InterruptedException e) {}
+			});
+			threads[i].start();
+		}
+		long startNanos = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			if (paced) {
+				long due = startNanos + i * PACE_NANOS;
+				while (System.nanoTime() < due)
+					Thread.onSpinWait();
+			}
+			byte[] bytes = new byte[FRAME_SIZE];
+			putLong(bytes, System.nanoTime());
+			queue.put(bytes);
+		}
+		while (finishedNanos.get() == 0L)
+			Thread.sleep(1);
+		for (Thread thread : threads)
+			thread.interrupt();
+		for (Thread thread : threads)
+			thread.join();
+		return count / ((finishedNanos.get() - startNanos) / 1_000_000_000.0D);
+	}
+
+	/**
+	 * The deque and its one second poll, as the clients used it, or a ring buffer with the given wait strategy.
+	 */
+	private static Queue createQueue(WaitStrategy waitStrategy) {
+		if (waitStrategy == null) {
+			LinkedBlockingDeque<byte[]> deque = new LinkedBlockingDeque<byte[]>();
+			return new Queue() {
+				public void put(byte[] frame) {
+					deque.add(frame);
+				}
+
+				public byte[] poll(Frame into) throws InterruptedException {
+					return deque.poll(1, TimeUnit.SECONDS);
+				}
+			};
+		}
+		RingBuffer ring = new RingBuffer(RING_CAPACITY, waitStrategy);
+		return new Queue() {
+			public void put(byte[] frame) {
+				ring.put(frame, frame.length);
+			}
+
+			public byte[] poll(Frame into) throws InterruptedException {
+				return ring.poll(into, 1, TimeUnit.SECONDS) ? into.getBytes() : null;
+			}
+		};
+	}
+
+	private static long percentile(long[] sorted, double percentile) {
+		int index = (int) Math.ceil(percentile / 100.0D * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+
+	private static void putLong(byte[] bytes, long value) {
+		for (int i = 0; i < Long.BYTES; i++)
+			bytes[i] = (byte) (value >>> (8 * i));
+	}
+
+	private static long getLong(byte[] bytes) {
+		long value = 0L;
+		for (int i = 0; i < Long.BYTES; i++)
+			value |= (bytes[i] & 0xFFL) << (8 * i);
+		return value;
+	}
+}
@@ -0,0 +1,64 @@
+package intrinio.realtime.common;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable {@link CharSequence} over ASCII bytes in a frame. Wrapping and reading characters allocate nothing;
+ * {@link #toString()} and {@link #subSequence(int, int)} copy. The contents change when the view is re-wrapped,
+ * so call {@link #toString()} to keep a value.
+ */
+public final class AsciiView implements CharSequence {
+	private byte[] bytes = new byte[0];
+	private int offset;
+	private int length;
+
+	public AsciiView wrap(byte[] bytes, int offset, int length) {
+		this.bytes = bytes;
+		this.offset = offset;
+		this.length = length;
+		return this;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException(index);
+		return (char) (bytes[offset + index] & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return toString().substring(start, end);
+	}
+
+	/**
+	 * Compares the characters with {@code other} without copying either.
+	 */
+	public boolean contentEquals(CharSequence other) {
+		if (other.length() != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if ((bytes[offset + i] & 0xFF) != other.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Copies the bytes into {@code destination} at {@code position} and returns the number copied.
+	 */
+	public int getBytes(byte[] destination, int position) {
+		System.arraycopy(bytes, offset, destination, position, length);
+		return length;
+	}
+
+	@Override
+	public String toString() {
+		return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+	}
+}
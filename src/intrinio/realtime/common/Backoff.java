@@ -0,0 +1,33 @@
+package intrinio.realtime.common;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry delays with decorrelated jitter: each delay is drawn uniformly between the base and three times the previous delay, up to the cap.
+ * Delays grow about as fast as plain exponential backoff, but clients that failed together spread out instead of retrying in lockstep.
+ * Not thread safe; use one per retry loop.
+ */
+public final class Backoff {
+	private final long baseMillis;
+	private final long capMillis;
+	private long previous;
+
+	public Backoff(long baseMillis, long capMillis) {
+		this.baseMillis = Math.max(1L, baseMillis);
+		this.capMillis = Math.max(this.baseMillis, capMillis);
+		this.previous = this.baseMillis;
+	}
+
+	/**
+	 * The next delay, in milliseconds.
+	 */
+	public long next() {
+		long upper = Math.min(capMillis, previous * 3L);
+		previous = upper > baseMillis ? ThreadLocalRandom.current().nextLong(baseMillis, upper + 1L) : baseMillis;
+		return previous;
+	}
+
+	public void reset() {
+		previous = baseMillis;
+	}
+}
@@ -0,0 +1,89 @@
+package intrinio.realtime.common;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size-classed pool of heap byte arrays for the websocket ingest path.
+ * Size classes are powers of two from 1 KB to 4 MB. Requests above the largest class are allocated and never pooled.
+ * Each class retains at most {@code maxBuffersPerClass} arrays and at most {@code maxBytesPerClass} bytes.
+ */
+public final class BufferPool {
+	private static final int MIN_CLASS_SHIFT = 10;
+	private static final int MAX_CLASS_SHIFT = 22;
+	private static final int DEFAULT_MAX_BUFFERS_PER_CLASS = 1024;
+	private static final long DEFAULT_MAX_BYTES_PER_CLASS = 32L * 1024L * 1024L;
+
+	private final ArrayList<ArrayBlockingQueue<byte[]>> classes;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder outstanding = new LongAdder();
+
+	public BufferPool() {
+		this(DEFAULT_MAX_BUFFERS_PER_CLASS, DEFAULT_MAX_BYTES_PER_CLASS);
+	}
+
+	public BufferPool(int maxBuffersPerClass, long maxBytesPerClass) {
+		classes = new ArrayList<ArrayBlockingQueue<byte[]>>(MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1);
+		for (int i = 0; i <= MAX_CLASS_SHIFT - MIN_CLASS_SHIFT; i++) {
+			long classSize = 1L << (i + MIN_CLASS_SHIFT);
+			int capacity = (int) Math.max(2L, Math.min(maxBuffersPerClass, maxBytesPerClass / classSize));
+			classes.add(new ArrayBlockingQueue<byte[]>(capacity));
+		}
+	}
+
+	/**
+	 * Borrows an array of at least {@code minimumSize} bytes. The contents are not cleared.
+	 */
+	public byte[] borrow(int minimumSize) {
+		outstanding.increment();
+		int index = classIndex(minimumSize);
+		if (index < 0) {
+			misses.increment();
+			return new byte[minimumSize];
+		}
+		byte[] buffer = classes.get(index).poll();
+		if (buffer != null) {
+			hits.increment();
+			return buffer;
+		}
+		misses.increment();
+		return new byte[1 << (index + MIN_CLASS_SHIFT)];
+	}
+
+	/**
+	 * Returns a borrowed array to the pool. Arrays that are not an exact class size, or that do not fit, are left to the garbage collector.
+	 */
+	public void release(byte[] buffer) {
+		if (buffer == null)
+			return;
+		outstanding.decrement();
+		int index = classIndex(buffer.length);
+		if (index >= 0 && buffer.length == (1 << (index + MIN_CLASS_SHIFT)))
+			classes.get(index).offer(buffer);
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getOutstanding() {
+		return outstanding.sum();
+	}
+
+	public String getStats() {
+		return String.format("Buffer Pool (Hits = %d, Misses = %d, Outstanding = %d)", getHits(), getMisses(), getOutstanding());
+	}
+
+	private static int classIndex(int size) {
+		if (size <= (1 << MIN_CLASS_SHIFT))
+			return 0;
+		int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+		return shift > MAX_CLASS_SHIFT ? -1 : shift - MIN_CLASS_SHIFT;
+	}
+}
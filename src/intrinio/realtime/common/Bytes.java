@@ -0,0 +1,74 @@
+package intrinio.realtime.common;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Helpers for working on raw wire bytes without decoding them. All multi-byte values on the wire are little-endian.
+ */
+public final class Bytes {
+	private static final VarHandle CHAR_LE = MethodHandles.byteArrayViewVarHandle(char[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle FLOAT_LE = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private Bytes() {}
+
+	/**
+	 * FNV-1a over the range, finished with the murmur3 mixer so the low bits are usable for power-of-two tables and small moduli.
+	 */
+	public static int hash(byte[] bytes, int offset, int length) {
+		int hash = 0x811C9DC5;
+		for (int i = offset; i < offset + length; i++) {
+			hash ^= bytes[i];
+			hash *= 0x01000193;
+		}
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		hash ^= hash >>> 16;
+		return hash;
+	}
+
+	/**
+	 * A 64-bit hash of the range, taken eight bytes at a time and finished with the murmur3 64-bit mixer.
+	 * Wide enough to treat equal hashes as equal bytes within large windows.
+	 */
+	public static long hash64(byte[] bytes, int offset, int length) {
+		long hash = 0xCBF29CE484222325L ^ length;
+		int end = offset + length;
+		int i = offset;
+		for (; i + 8 <= end; i += 8)
+			hash = Long.rotateLeft(hash ^ ((long) LONG_LE.get(bytes, i) * 0x9E3779B97F4A7C15L), 27) * 0xC2B2AE3D27D4EB4FL;
+		for (; i < end; i++)
+			hash = (hash ^ bytes[i]) * 0x100000001B3L;
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	public static char getChar(byte[] bytes, int offset) {
+		return (char) CHAR_LE.get(bytes, offset);
+	}
+
+	public static int getInt(byte[] bytes, int offset) {
+		return (int) INT_LE.get(bytes, offset);
+	}
+
+	public static long getUnsignedInt(byte[] bytes, int offset) {
+		return Integer.toUnsignedLong((int) INT_LE.get(bytes, offset));
+	}
+
+	public static long getLong(byte[] bytes, int offset) {
+		return (long) LONG_LE.get(bytes, offset);
+	}
+
+	public static float getFloat(byte[] bytes, int offset) {
+		return (float) FLOAT_LE.get(bytes, offset);
+	}
+}
@@ -0,0 +1,14 @@
+package intrinio.realtime.common;
+
+/**
+ * How frames are distributed across processing threads.
+ */
+public enum DispatchMode {
+	/** Every processing thread takes whole frames from one shared ring. Best load balance; no ordering between threads. */
+	SHARED,
+	/**
+	 * Frames are split into messages and each message goes to the thread chosen by a hash of its symbol (or contract).
+	 * Events for one instrument are always delivered in order, by the same thread.
+	 */
+	SYMBOL_AFFINITY
+}
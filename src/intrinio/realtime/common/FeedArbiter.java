@@ -0,0 +1,230 @@
+package intrinio.realtime.common;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Merges two redundant legs of the same feed, e.g. two connections with identical subscriptions, so each message is delivered once:
+ * whichever leg delivers a message first wins and the other leg's copy is dropped. Messages are matched within a sliding window
+ * by a 64-bit hash of their content, which covers the symbol (or contract), type, price, size and timestamp.
+ * If a leg stalls or drops, the other leg's messages simply find no match, so there is nothing to fail over.
+ * Identical messages repeated on the same leg are genuine repeats and are all delivered, each matching one copy from the other leg.
+ * The window is split into stripes by hash, each with its own lock, so the legs rarely wait for each other.
+ */
+public final class FeedArbiter {
+	private static final int STRIPE_BITS = 4;
+	private static final int STRIPES = 1 << STRIPE_BITS;
+
+	private final MessageLayout layout;
+	private final long windowNanos;
+	private final Stripe[] stripes = new Stripe[STRIPES];
+	private final LongAdder[] wins;
+	private final LongAdder[] leadNanos;
+	private final LongAdder unmatched = new LongAdder();
+
+	/**
+	 * @param window How long, in milliseconds, a message waits for its copy from the other leg. Matches are found for between one and two windows.
+	 * @param capacity The most messages remembered per window, i.e. the peak message rate times the window; a busier window is cut short.
+	 */
+	public FeedArbiter(MessageLayout layout, long window, int capacity) {
+		this.layout = layout;
+		this.windowNanos = window * 1_000_000L;
+		//Twice the capacity in slots, as a generation rotates when half full, spread across the stripes.
+		int slots = Integer.highestOneBit((int) Math.max(2L * capacity / STRIPES, 64L) - 1) << 1;
+		this.wins = new LongAdder[2];
+		this.leadNanos = new LongAdder[2];
+		for (int i = 0; i < 2; i++) {
+			wins[i] = new LongAdder();
+			leadNanos[i] = new LongAdder();
+		}
+		long now = System.nanoTime();
+		for (int i = 0; i < STRIPES; i++)
+			stripes[i] = new Stripe(slots, now + windowNanos);
+	}
+
+	/**
+	 * Compacts the frame that arrived on {@code leg} (0 or 1) in place without the messages another leg already delivered.
+	 * Returns the new length, or 0 if nothing is left.
+	 */
+	public int arbitrate(int leg, byte[] bytes, int length) {
+		int count = bytes[0] & 0xFF;
+		int kept = 0;
+		int read = 1;
+		int write = 1;
+		long now = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			int messageLength = read < length ? layout.getMessageLength(bytes, read) : -1;
+			if (messageLength <= 0 || read + messageLength > length) {
+				//Unrecognized message - keep the rest of the frame as-is for the processing thread to report.
+				System.arraycopy(bytes, read, bytes, write, length - read);
+				write += length - read;
+				kept += count - i;
+				break;
+			}
+			long key = Bytes.hash64(bytes, read, layout.getContentLength(bytes, read));
+			//The top bits pick the stripe and the low bits the slot within it.
+			if (stripes[(int) (key >>> (64 - STRIPE_BITS))].isFirst(leg, key, now)) {
+				if (write != read)
+					System.arraycopy(bytes, read, bytes, write, messageLength);
+				write += messageLength;
+				kept++;
+			}
+			read += messageLength;
+		}
+		bytes[0] = (byte) kept;
+		return kept > 0 ? write : 0;
+	}
+
+	/**
+	 * The number of messages the leg delivered first and the other leg then duplicated.
+	 */
+	public long getWins(int leg) {
+		return wins[leg].sum();
+	}
+
+	/**
+	 * The average time, in nanoseconds, by which the leg's wins beat the copy from the other leg.
+	 */
+	public long getMeanLeadNanos(int leg) {
+		long count = wins[leg].sum();
+		return count == 0L ? 0L : leadNanos[leg].sum() / count;
+	}
+
+	/**
+	 * The number of messages that expired from the window without a copy from the other leg, e.g. while a leg was reconnecting.
+	 */
+	public long getUnmatched() {
+		return unmatched.sum();
+	}
+
+	public String getStats() {
+		StringBuilder builder = new StringBuilder("Arbitration (");
+		for (int i = 0; i < wins.length; i++) {
+			char name = (char) ('A' + i);
+			builder.append("Leg ").append(name).append(" Wins = ").append(getWins(i))
+				.append(", Leg ").append(name).append(" Lead = ").append(getMeanLeadNanos(i) / 1000L).append(" us, ");
+		}
+		return builder.append("Unmatched = ").append(getUnmatched()).append(')').toString();
+	}
+
+	/**
+	 * A share of the window: the messages whose hashes fall in it, in two generations that rotate each window.
+	 */
+	private final class Stripe {
+		private final ReentrantLock lock = new ReentrantLock();
+		private final int capacity;
+		private Generation current;
+		private Generation previous;
+		private long rotateAt;
+
+		private Stripe(int capacity, long rotateAt) {
+			this.capacity = capacity;
+			this.current = new Generation(capacity);
+			this.previous = new Generation(capacity);
+			this.rotateAt = rotateAt;
+		}
+
+		private boolean isFirst(int leg, long key, long now) {
+			if (key == 0L)
+				key = 1L; //0 marks an empty slot
+			lock.lock();
+			try {
+				if (now - rotateAt >= 0L)
+					rotate(now);
+				Generation generation = current;
+				int index = current.find(key);
+				if (current.keys[index] == 0L) {
+					int previousIndex = previous.find(key);
+					if (previous.keys[previousIndex] != 0L) {
+						generation = previous;
+						index = previousIndex;
+					}
+				}
+				if (generation.keys[index] == 0L) {
+					if (current.count * 2 >= capacity) {
+						rotate(now);
+						index = current.find(key);
+					}
+					current.insert(index, key, leg, now);
+					return true;
+				}
+				int winner = generation.legs[index];
+				if (winner != leg && generation.pending[index] > 0) {
+					//Another leg already delivered this message; count the win and drop the copy.
+					wins[winner].increment();
+					leadNanos[winner].add(now - generation.nanos[index]);
+					generation.pending[index]--;
+					return false;
+				}
+				//A repeat on the leg that is ahead, or this leg has overtaken the one that was ahead.
+				if (winner != leg) {
+					generation.legs[index] = (byte) leg;
+					generation.pending[index] = 0;
+				}
+				generation.pending[index]++;
+				generation.nanos[index] = now;
+				return true;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void rotate(long now) {
+			unmatched.add(previous.countUnmatched());
+			Generation recycled = previous;
+			previous = current;
+			recycled.clear();
+			current = recycled;
+			rotateAt = now + windowNanos;
+		}
+	}
+
+	private static final class Generation {
+		private final long[] keys;
+		private final long[] nanos;
+		private final byte[] legs;
+		private final int[] pending;
+		private int count;
+
+		private Generation(int capacity) {
+			keys = new long[capacity];
+			nanos = new long[capacity];
+			legs = new byte[capacity];
+			pending = new int[capacity];
+		}
+
+		/**
+		 * The slot holding the key, or the empty slot where it would go.
+		 */
+		private int find(long key) {
+			int mask = keys.length - 1;
+			int index = (int) key & mask;
+			while (keys[index] != 0L && keys[index] != key)
+				index = (index + 1) & mask;
+			return index;
+		}
+
+		private void insert(int index, long key, int leg, long now) {
+			keys[index] = key;
+			nanos[index] = now;
+			legs[index] = (byte) leg;
+			pending[index] = 1;
+			count++;
+		}
+
+		private long countUnmatched() {
+			long total = 0L;
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] != 0L)
+					total += pending[i];
+			}
+			return total;
+		}
+
+		private void clear() {
+			Arrays.fill(keys, 0L);
+			count = 0;
+		}
+	}
+}
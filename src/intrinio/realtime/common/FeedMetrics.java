@@ -0,0 +1,129 @@
+package intrinio.realtime.common;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of one client's ingest pipeline, kept in a {@link MetricsRegistry}: what arrived on the sockets, broken down by
+ * message type, how it was framed, what could not be parsed or handled, and how the processing queue and connections fared.
+ */
+public final class FeedMetrics {
+	private final MessageLayout layout;
+	private final LongAdder frames;
+	private final LongAdder fragments;
+	private final LongAdder[] messages;
+	private final LongAdder[] bytes;
+	private final LongAdder parseErrors;
+	private final LongAdder callbackExceptions;
+	private final LongAdder reconnects;
+	private final LongAdder joins;
+	private final LongAdder leaves;
+
+	public FeedMetrics(MetricsRegistry registry, MessageLayout layout, FrameDispatcher dispatcher) {
+		this.layout = layout;
+		String[] names = layout.getMessageTypeNames();
+		this.frames = registry.counter("Frames");
+		this.fragments = registry.counter("Fragments");
+		registry.doubleGauge("FragmentsPerFrame", this::getFragmentsPerFrame);
+		registry.gauge("Messages", this::getMessages);
+		registry.gauge("Bytes", this::getBytes);
+		this.messages = new LongAdder[names.length];
+		this.bytes = new LongAdder[names.length];
+		for (int i = 0; i < names.length; i++) {
+			messages[i] = registry.counter(names[i] + "Messages");
+			bytes[i] = registry.counter(names[i] + "Bytes");
+		}
+		this.parseErrors = registry.counter("ParseErrors");
+		this.callbackExceptions = registry.counter("CallbackExceptions");
+		registry.gauge("QueueDepth", dispatcher::size);
+		registry.gauge("QueueHighWaterMark", dispatcher::getHighWaterMark);
+		registry.gauge("Dropped", dispatcher::getDroppedTotal);
+		registry.gauge("Filtered", dispatcher::getFiltered);
+		this.reconnects = registry.counter("Reconnects");
+		this.joins = registry.counter("Joins");
+		this.leaves = registry.counter("Leaves");
+	}
+
+	/**
+	 * Counts one websocket fragment.
+	 */
+	public void recordFragment() {
+		fragments.increment();
+	}
+
+	/**
+	 * Counts a complete frame and its messages by type. Call before the frame is filtered or arbitrated, which rewrite it in place.
+	 * Consecutive messages of the same type are added in one step.
+	 */
+	public void recordFrame(byte[] frame, int length) {
+		frames.increment();
+		int count = frame[0] & 0xFF;
+		int offset = 1;
+		int runType = -1;
+		long runCount = 0L;
+		long runBytes = 0L;
+		for (int i = 0; i < count; i++) {
+			int messageLength = offset < length ? layout.getMessageLength(frame, offset) : -1;
+			if (messageLength <= 0 || offset + messageLength > length) {
+				parseErrors.increment();
+				break;
+			}
+			int type = layout.getMessageType(frame, offset);
+			if (type != runType) {
+				addRun(runType, runCount, runBytes);
+				runType = type;
+				runCount = 0L;
+				runBytes = 0L;
+			}
+			runCount++;
+			runBytes += messageLength;
+			offset += messageLength;
+		}
+		addRun(runType, runCount, runBytes);
+	}
+
+	public void recordParseError() {
+		parseErrors.increment();
+	}
+
+	public void recordCallbackException() {
+		callbackExceptions.increment();
+	}
+
+	public void recordReconnect() {
+		reconnects.increment();
+	}
+
+	public void recordJoins(int channels) {
+		joins.add(channels);
+	}
+
+	public void recordLeaves(int channels) {
+		leaves.add(channels);
+	}
+
+	public long getMessages() {
+		long total = 0L;
+		for (LongAdder counter : messages)
+			total += counter.sum();
+		return total;
+	}
+
+	public long getBytes() {
+		long total = 0L;
+		for (LongAdder counter : bytes)
+			total += counter.sum();
+		return total;
+	}
+
+	public double getFragmentsPerFrame() {
+		long count = frames.sum();
+		return count == 0L ? 0.0D : (double) fragments.sum() / count;
+	}
+
+	private void addRun(int type, long count, long size) {
+		if (type >= 0 && count > 0L) {
+			messages[type].add(count);
+			bytes[type].add(size);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package intrinio.realtime.common;
+
+/**
+ * A complete websocket data frame. Only the first {@code length} bytes of {@code bytes} belong to the frame.
+ * Instances are reused as hand-off holders, so read the fields before the next call that fills the same instance.
+ */
+public final class Frame {
+	private byte[] bytes;
+	private int length;
+	private long receivedNanos;
+
+	public Frame() {}
+
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * The {@link System#nanoTime()} at which the frame was received, or 0 if it was not stamped.
+	 */
+	public long getReceivedNanos() {
+		return receivedNanos;
+	}
+
+	void set(byte[] bytes, int length) {
+		set(bytes, length, 0L);
+	}
+
+	void set(byte[] bytes, int length, long receivedNanos) {
+		this.bytes = bytes;
+		this.length = length;
+		this.receivedNanos = receivedNanos;
+	}
+}
@@ -0,0 +1,78 @@
+package intrinio.realtime.common;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reassembles websocket fragments into complete frames.
+ * A websocket listener receives its callbacks one at a time, so the listener thread is the only writer and no locking is needed.
+ * Each fragment is copied exactly once; the finished buffer is handed off with the frame and a new one is started for the next frame.
+ * The returned {@link Frame} holder is reused by the next call.
+ * When a {@link BufferPool} is supplied, frame buffers are borrowed from it and the consumer must release them after parsing.
+ */
+public final class FrameAssembler {
+	private static final int MIN_CAPACITY = 1024;
+
+	private final BufferPool pool;
+	private final Frame frame = new Frame();
+	private byte[] buffer;
+	private int length = 0;
+	private int lastFragmentedLength = MIN_CAPACITY;
+
+	public FrameAssembler() {
+		this(null);
+	}
+
+	public FrameAssembler(BufferPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Appends a fragment. Returns the complete frame when {@code isComplete} is set, otherwise null.
+	 */
+	public Frame append(ByteBuffer fragment, boolean isComplete) {
+		int remaining = fragment.remaining();
+		if (isComplete && length == 0) {
+			//Unfragmented frame - the common case. Copy straight into a new (or pooled) array.
+			byte[] bytes = allocate(remaining);
+			fragment.get(bytes, 0, remaining);
+			frame.set(bytes, remaining);
+			return frame;
+		}
+		ensureCapacity(length + remaining);
+		fragment.get(buffer, length, remaining);
+		length += remaining;
+		if (!isComplete)
+			return null;
+		frame.set(buffer, length);
+		lastFragmentedLength = length;
+		buffer = null;
+		length = 0;
+		return frame;
+	}
+
+	/**
+	 * Discards any partially assembled frame, e.g. when the connection drops mid-frame.
+	 */
+	public void reset() {
+		if (pool != null)
+			pool.release(buffer);
+		buffer = null;
+		length = 0;
+	}
+
+	private byte[] allocate(int size) {
+		return pool != null ? pool.borrow(size) : new byte[size];
+	}
+
+	private void ensureCapacity(int required) {
+		if (buffer == null) {
+			buffer = allocate(Math.max(required, lastFragmentedLength));
+		} else if (buffer.length < required) {
+			byte[] grown = allocate(Math.max(required, buffer.length << 1));
+			System.arraycopy(buffer, 0, grown, 0, length);
+			if (pool != null)
+				pool.release(buffer);
+			buffer = grown;
+		}
+	}
+}
@@ -0,0 +1,469 @@
+package intrinio.realtime.common;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves complete frames from the websocket thread to the processing threads according to a {@link DispatchMode}.
+ * When a processing queue is full the {@link OverflowPolicy} decides what is kept, and every message that is dropped is counted by type.
+ */
+public final class FrameDispatcher {
+	private final DispatchMode mode;
+	private final OverflowPolicy overflowPolicy;
+	private final RingBuffer[] rings;
+	private final MessageLayout layout;
+	private final BufferPool pool;
+	private final ThreadLocal<Scratch> scratch;
+	private final LongAdder[] dropped;
+	private final LongAdder filtered = new LongAdder();
+	private final QuoteConflator[] overflowConflators;
+	private volatile QuoteConflator[] conflators;
+	private volatile MessageFilter filter;
+	private volatile FeedArbiter arbiter;
+
+	/**
+	 * @param ringCapacity The maximum number of frames waiting in each processing queue.
+	 */
+	public FrameDispatcher(DispatchMode mode, OverflowPolicy overflowPolicy, int workers, int ringCapacity, WaitStrategy waitStrategy, MessageLayout layout, BufferPool pool) {
+		this.mode = mode == null ? DispatchMode.SHARED : mode;
+		this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.BLOCK : overflowPolicy;
+		this.layout = layout;
+		this.pool = pool;
+		this.rings = new RingBuffer[Math.max(1, workers)];
+		if (this.mode == DispatchMode.SYMBOL_AFFINITY) {
+			for (int i = 0; i < rings.length; i++)
+				rings[i] = new RingBuffer(ringCapacity, waitStrategy);
+		} else {
+			RingBuffer ring = new RingBuffer(ringCapacity, waitStrategy);
+			for (int i = 0; i < rings.length; i++)
+				rings[i] = ring;
+		}
+		this.scratch = ThreadLocal.withInitial(() -> new Scratch(rings.length));
+		//One counter per message type, plus one for messages of an unrecognized type.
+		this.dropped = new LongAdder[layout.getMessageTypeNames().length + 1];
+		for (int i = 0; i < dropped.length; i++)
+			dropped[i] = new LongAdder();
+		this.overflowConflators = this.overflowPolicy == OverflowPolicy.CONFLATE_QUOTES ? createConflators() : null;
+	}
+
+	public DispatchMode getMode() {
+		return mode;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * Whether quotes may be waiting in a conflator, under {@link OverflowPolicy#CONFLATE_QUOTES} or with quote conflation on.
+	 * If so the processing threads must call {@link #drainQuotes(int, byte[])}, or those quotes are never delivered.
+	 */
+	public boolean isConflatingQuotes() {
+		return overflowConflators != null || conflators != null;
+	}
+
+	/**
+	 * The conflators' counters summed across the processing threads, or null if no quotes are conflated.
+	 */
+	public String getConflationStats() {
+		QuoteConflator[] conflators = this.conflators;
+		if (conflators == null)
+			conflators = overflowConflators;
+		if (conflators == null)
+			return null;
+		int symbols = 0;
+		int pending = 0;
+		long conflated = 0L;
+		for (int i = 0; i < conflators.length; i++) {
+			if (i > 0 && conflators[i] == conflators[i - 1])
+				continue;
+			symbols += conflators[i].getSymbolCount();
+			pending += conflators[i].getPendingCount();
+			conflated += conflators[i].getConflatedCount();
+		}
+		return String.format("Quote Conflation (Symbols = %d, Pending = %d, Conflated = %d)", symbols, pending, conflated);
+	}
+
+	/**
+	 * The number of messages of the given type (an index into {@link MessageLayout#getMessageTypeNames()}) dropped because a queue was full.
+	 */
+	public long getDropped(int type) {
+		return dropped[type].sum();
+	}
+
+	/**
+	 * The number of messages of an unrecognized type dropped because a queue was full.
+	 */
+	public long getDroppedUnknown() {
+		return dropped[dropped.length - 1].sum();
+	}
+
+	public long getDroppedTotal() {
+		long total = 0L;
+		for (LongAdder counter : dropped)
+			total += counter.sum();
+		return total;
+	}
+
+	public String getDropStats() {
+		StringBuilder builder = new StringBuilder("Dropped (");
+		String[] names = layout.getMessageTypeNames();
+		for (int i = 0; i < names.length; i++)
+			builder.append(names[i]).append(" = ").append(dropped[i].sum()).append(", ");
+		return builder.append("Unknown = ").append(getDroppedUnknown()).append(')').toString();
+	}
+
+	/**
+	 * The number of messages removed by the {@link MessageFilter}.
+	 */
+	public long getFiltered() {
+		return filtered.sum();
+	}
+
+	/**
+	 * The number of frames waiting across all rings.
+	 */
+	public int size() {
+		if (mode != DispatchMode.SYMBOL_AFFINITY)
+			return rings[0].size();
+		int size = 0;
+		for (RingBuffer ring : rings)
+			size += ring.size();
+		return size;
+	}
+
+	/**
+	 * The most frames that have been waiting at once in any one ring.
+	 */
+	public int getHighWaterMark() {
+		int highWaterMark = 0;
+		for (RingBuffer ring : rings)
+			highWaterMark = Math.max(highWaterMark, ring.getHighWaterMark());
+		return highWaterMark;
+	}
+
+	/**
+	 * Keeps only the newest quote per symbol (and quote type) until a processing thread takes it with {@link #drainQuotes(int, byte[])}.
+	 * Under {@link DispatchMode#SYMBOL_AFFINITY} each symbol's quotes are conflated for, and only drained by, the thread that owns the symbol.
+	 */
+	public void setQuoteConflation(boolean enabled) {
+		this.conflators = enabled ? createConflators() : null;
+	}
+
+	/**
+	 * Removes the messages the filter rejects before they are queued or conflated. Pass null to deliver every message.
+	 */
+	public void setMessageFilter(MessageFilter filter) {
+		this.filter = filter;
+	}
+
+	/**
+	 * Delivers each message once across two redundant legs, e.g. a hot-standby pair of connections. Pass null when there is only one leg.
+	 */
+	public void setArbiter(FeedArbiter arbiter) {
+		this.arbiter = arbiter;
+	}
+
+	/**
+	 * Hands a complete frame to the processing threads. Ownership of {@code bytes} passes to the dispatcher.
+	 */
+	public void publish(byte[] bytes, int length) {
+		publish(bytes, length, 0);
+	}
+
+	/**
+	 * Hands a complete frame that arrived on the given leg to the processing threads. Ownership of {@code bytes} passes to the dispatcher.
+	 */
+	public void publish(byte[] bytes, int length, int leg) {
+		publish(bytes, length, leg, 0L);
+	}
+
+	/**
+	 * Hands a complete frame that arrived on the given leg at {@code receivedNanos}, a {@link System#nanoTime()}, to the processing threads.
+	 * The time travels with the frame to the processing thread. Ownership of {@code bytes} passes to the dispatcher.
+	 */
+	public void publish(byte[] bytes, int length, int leg, long receivedNanos) {
+		MessageFilter filter = this.filter;
+		if (filter != null) {
+			length = removeFiltered(bytes, length, filter);
+			if (length == 0) {
+				release(bytes);
+				return;
+			}
+		}
+		FeedArbiter arbiter = this.arbiter;
+		if (arbiter != null) {
+			length = arbiter.arbitrate(leg, bytes, length);
+			if (length == 0) {
+				release(bytes);
+				return;
+			}
+		}
+		QuoteConflator[] conflators = this.conflators;
+		if (conflators != null) {
+			length = removeQuotes(bytes, length, conflators, false);
+			if (length == 0) {
+				release(bytes);
+				return;
+			}
+		}
+		if (mode == DispatchMode.SYMBOL_AFFINITY && rings.length > 1)
+			split(bytes, length, receivedNanos);
+		else
+			enqueue(0, bytes, length, receivedNanos);
+	}
+
+	/**
+	 * Takes the next frame for the given processing thread, waiting up to the timeout.
+	 */
+	public boolean poll(int worker, Frame into, long timeout, TimeUnit unit) throws InterruptedException {
+		return rings[worker].poll(into, timeout, unit);
+	}
+
+	/**
+	 * Copies the conflated quotes waiting for the given processing thread into {@code into} as a frame, without waiting.
+	 * Quotes conflated because the queue was full are only handed over once the thread's queue is empty, so they never overtake older queued quotes.
+	 * Returns the frame length, or 0 if there are none. A thread waiting in {@link #poll} returns early when quotes arrive for it.
+	 */
+	public int drainQuotes(int worker, byte[] into) {
+		QuoteConflator[] conflators = this.conflators;
+		if (conflators != null && conflators[worker].hasPending()) {
+			int length = conflators[worker].drain(into);
+			if (length > 0)
+				return length;
+		}
+		if (overflowConflators != null && overflowConflators[worker].hasPending() && rings[worker].size() == 0)
+			return overflowConflators[worker].drain(into);
+		return 0;
+	}
+
+	private void split(byte[] bytes, int length, long receivedNanos) {
+		Scratch s = scratch.get();
+		int count = bytes[0] & 0xFF;
+		s.reset();
+		int offset = 1;
+		int firstShard = -1;
+		boolean singleShard = true;
+		for (int i = 0; i < count; i++) {
+			int messageLength = offset < length ? layout.getMessageLength(bytes, offset) : -1;
+			if (messageLength <= 0 || offset + messageLength > length) {
+				//Unrecognized message - let the processing thread report it on the unsplit frame.
+				enqueue(0, bytes, length, receivedNanos);
+				return;
+			}
+			int shard = shardOf(bytes, layout.getSymbolOffset(bytes, offset), layout.getSymbolLength(bytes, offset));
+			s.shards[i] = shard;
+			s.lengths[i] = messageLength;
+			s.counts[shard]++;
+			s.bytes[shard] += messageLength;
+			if (firstShard < 0)
+				firstShard = shard;
+			else if (shard != firstShard)
+				singleShard = false;
+			offset += messageLength;
+		}
+		if (firstShard < 0) {
+			release(bytes);
+			return;
+		}
+		if (singleShard) {
+			enqueue(firstShard, bytes, length, receivedNanos);
+			return;
+		}
+		for (int shard = 0; shard < rings.length; shard++) {
+			if (s.counts[shard] > 0) {
+				s.frames[shard] = allocate(s.bytes[shard] + 1);
+				s.frames[shard][0] = (byte) s.counts[shard];
+				s.positions[shard] = 1;
+			}
+		}
+		offset = 1;
+		for (int i = 0; i < count; i++) {
+			int shard = s.shards[i];
+			System.arraycopy(bytes, offset, s.frames[shard], s.positions[shard], s.lengths[i]);
+			s.positions[shard] += s.lengths[i];
+			offset += s.lengths[i];
+		}
+		release(bytes);
+		for (int shard = 0; shard < rings.length; shard++) {
+			if (s.counts[shard] > 0) {
+				enqueue(shard, s.frames[shard], s.positions[shard], receivedNanos);
+				s.frames[shard] = null;
+			}
+		}
+	}
+
+	private void enqueue(int shard, byte[] bytes, int length, long receivedNanos) {
+		RingBuffer ring = rings[shard];
+		switch (overflowPolicy) {
+			case DROP_NEWEST:
+				if (!ring.offer(bytes, length, receivedNanos)) {
+					countDropped(bytes, length);
+					release(bytes);
+				}
+				break;
+			case DROP_OLDEST:
+				if (!ring.offer(bytes, length, receivedNanos)) {
+					Frame evicted = scratch.get().evicted;
+					do {
+						if (ring.tryPoll(evicted)) {
+							countDropped(evicted.getBytes(), evicted.getLength());
+							release(evicted.getBytes());
+							evicted.set(null, 0);
+						}
+					} while (!ring.offer(bytes, length, receivedNanos));
+				}
+				break;
+			case CONFLATE_QUOTES:
+				if (overflowConflators[shard].hasPending()) {
+					//A quote whose symbol already has one waiting in the conflator replaces it there, rather than overtaking it through the ring.
+					length = removeQuotes(bytes, length, overflowConflators, true);
+					if (length == 0) {
+						release(bytes);
+						break;
+					}
+				}
+				if (!ring.offer(bytes, length, receivedNanos)) {
+					int remaining = removeQuotes(bytes, length, overflowConflators, false);
+					if (remaining > 0)
+						ring.put(bytes, remaining, receivedNanos);
+					else
+						release(bytes);
+				}
+				break;
+			case BLOCK:
+			default:
+				ring.put(bytes, length, receivedNanos);
+		}
+	}
+
+	/**
+	 * Compacts the frame in place without its quotes, which go to the conflator of the thread that owns their symbol.
+	 * With {@code pendingOnly} only the quotes that replace one already waiting in the conflator are removed.
+	 * Returns the new length, or 0 if nothing is left.
+	 */
+	private int removeQuotes(byte[] bytes, int length, QuoteConflator[] conflators, boolean pendingOnly) {
+		int count = bytes[0] & 0xFF;
+		int kept = 0;
+		int read = 1;
+		int write = 1;
+		for (int i = 0; i < count; i++) {
+			int messageLength = read < length ? layout.getMessageLength(bytes, read) : -1;
+			if (messageLength <= 0 || read + messageLength > length) {
+				//Unrecognized message - keep the rest of the frame as-is for the processing thread to report.
+				System.arraycopy(bytes, read, bytes, write, length - read);
+				write += length - read;
+				kept += count - i;
+				break;
+			}
+			int shard = 0;
+			boolean quote = layout.isQuote(bytes, read);
+			if (quote && mode == DispatchMode.SYMBOL_AFFINITY && conflators.length > 1)
+				shard = shardOf(bytes, layout.getSymbolOffset(bytes, read), layout.getSymbolLength(bytes, read));
+			if (!quote || pendingOnly && !conflators[shard].replaceIfPending(bytes, read, messageLength)) {
+				if (write != read)
+					System.arraycopy(bytes, read, bytes, write, messageLength);
+				write += messageLength;
+				kept++;
+			} else if (!pendingOnly && conflators[shard].put(bytes, read, messageLength)) {
+				rings[shard].wake();
+			}
+			read += messageLength;
+		}
+		bytes[0] = (byte) kept;
+		return kept > 0 ? write : 0;
+	}
+
+	/**
+	 * Compacts the frame in place without the messages the filter rejects. Returns the new length, or 0 if nothing is left.
+	 */
+	private int removeFiltered(byte[] bytes, int length, MessageFilter filter) {
+		int count = bytes[0] & 0xFF;
+		int kept = 0;
+		int read = 1;
+		int write = 1;
+		for (int i = 0; i < count; i++) {
+			int messageLength = read < length ? layout.getMessageLength(bytes, read) : -1;
+			if (messageLength <= 0 || read + messageLength > length) {
+				//Unrecognized message - keep the rest of the frame as-is for the processing thread to report.
+				System.arraycopy(bytes, read, bytes, write, length - read);
+				write += length - read;
+				kept += count - i;
+				break;
+			}
+			if (filter.accept(bytes, read)) {
+				if (write != read)
+					System.arraycopy(bytes, read, bytes, write, messageLength);
+				write += messageLength;
+				kept++;
+			}
+			read += messageLength;
+		}
+		if (kept < count)
+			filtered.add(count - kept);
+		bytes[0] = (byte) kept;
+		return kept > 0 ? write : 0;
+	}
+
+	private void countDropped(byte[] bytes, int length) {
+		int count = bytes[0] & 0xFF;
+		int offset = 1;
+		for (int i = 0; i < count; i++) {
+			int type = offset < length ? layout.getMessageType(bytes, offset) : -1;
+			int messageLength = type >= 0 ? layout.getMessageLength(bytes, offset) : -1;
+			if (messageLength <= 0 || offset + messageLength > length) {
+				dropped[dropped.length - 1].add(count - i);
+				return;
+			}
+			dropped[type].increment();
+			offset += messageLength;
+		}
+	}
+
+	/**
+	 * One conflator per ring, shared the same way the rings are.
+	 */
+	private QuoteConflator[] createConflators() {
+		QuoteConflator[] created = new QuoteConflator[rings.length];
+		for (int i = 0; i < created.length; i++)
+			created[i] = i > 0 && rings[i] == rings[i - 1] ? created[i - 1] : new QuoteConflator(layout);
+		return created;
+	}
+
+	private int shardOf(byte[] bytes, int offset, int length) {
+		return Math.floorMod(Bytes.hash(bytes, offset, length), rings.length);
+	}
+
+	private byte[] allocate(int size) {
+		return pool != null ? pool.borrow(size) : new byte[size];
+	}
+
+	private void release(byte[] bytes) {
+		if (pool != null)
+			pool.release(bytes);
+	}
+
+	private static final class Scratch {
+		//A frame's message count is a single byte, so 256 entries always suffice.
+		private final int[] shards = new int[256];
+		private final int[] lengths = new int[256];
+		private final int[] counts;
+		private final int[] bytes;
+		private final int[] positions;
+		private final byte[][] frames;
+		private final Frame evicted = new Frame();
+
+		private Scratch(int shardCount) {
+			counts = new int[shardCount];
+			bytes = new int[shardCount];
+			positions = new int[shardCount];
+			frames = new byte[shardCount][];
+		}
+
+		private void reset() {
+			Arrays.fill(counts, 0);
+			Arrays.fill(bytes, 0);
+		}
+	}
+}
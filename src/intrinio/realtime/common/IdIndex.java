@@ -0,0 +1,33 @@
+package intrinio.realtime.common;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A growable array indexed by the dense IDs from a {@link SymbolTable}, for attaching data to interned symbols.
+ * Reads take no lock. Negative IDs (records not interned from the feed) are never stored.
+ */
+public final class IdIndex<V> {
+	private volatile AtomicReferenceArray<V> values = new AtomicReferenceArray<>(1024);
+
+	public V get(int id) {
+		AtomicReferenceArray<V> current = values;
+		return (id >= 0 && id < current.length()) ? current.get(id) : null;
+	}
+
+	public synchronized void set(int id, V value) {
+		if (id < 0)
+			return;
+		AtomicReferenceArray<V> current = values;
+		if (id >= current.length()) {
+			int length = current.length();
+			while (length <= id)
+				length <<= 1;
+			AtomicReferenceArray<V> resized = new AtomicReferenceArray<>(length);
+			for (int i = 0; i < current.length(); i++)
+				resized.set(i, current.get(i));
+			current = resized;
+		}
+		current.set(id, value);
+		values = current;
+	}
+}
@@ -0,0 +1,131 @@
+package intrinio.realtime.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds. Buckets are logarithmic, eight per power of two, so any recorded value
+ * is reported within about 6% of its true value, and values below 8 ns exactly. Recording is one atomic increment plus a sum.
+ * {@link #getIntervalSnapshot()} takes and clears the counts in one pass, so each value lands in exactly one interval.
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong(0L);
+
+	/**
+	 * Records a duration. Negative durations, e.g. from an exchange clock running ahead of ours, are recorded as 0.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0L)
+			nanos = 0L;
+		counts.getAndIncrement(indexOf(nanos));
+		sum.add(nanos);
+		if (nanos > max.get())
+			max.accumulateAndGet(nanos, Math::max); //Only written when a new high is reached
+	}
+
+	/**
+	 * Everything recorded since the histogram was created or last reset.
+	 */
+	public Snapshot getSnapshot() {
+		long[] snapshot = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++)
+			snapshot[i] = counts.get(i);
+		return new Snapshot(snapshot, sum.sum(), max.get());
+	}
+
+	/**
+	 * Everything recorded since the last reset, and resets the histogram.
+	 */
+	public Snapshot getIntervalSnapshot() {
+		long[] snapshot = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++)
+			snapshot[i] = counts.getAndSet(i, 0L);
+		return new Snapshot(snapshot, sum.sumThenReset(), max.getAndSet(0L));
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * The middle of the bucket's range.
+	 */
+	static long valueOf(int index) {
+		if (index < SUB_BUCKETS)
+			return index;
+		int shift = index / SUB_BUCKETS - 1;
+		long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+		return lower + ((1L << shift) >>> 1);
+	}
+
+	/**
+	 * A histogram's counts at one point in time. Values are in nanoseconds.
+	 */
+	public static final class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long max;
+
+		private Snapshot(long[] counts, long sum, long max) {
+			long count = 0L;
+			for (long bucket : counts)
+				count += bucket;
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		public double getMean() {
+			return count == 0L ? 0.0D : (double) sum / count;
+		}
+
+		/**
+		 * The value below which {@code percentile} percent (0 to 100) of the recorded values fall, or 0 if nothing was recorded.
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if (count == 0L)
+				return 0L;
+			long rank = Math.max(1L, (long) Math.ceil(Math.min(100.0D, percentile) / 100.0D * count));
+			if (rank >= count)
+				return max;
+			long seen = 0L;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank)
+					return Math.min(valueOf(i), max);
+			}
+			return max;
+		}
+
+		public String toString() {
+			return String.format("Count = %d, Mean = %.1f us, P50 = %.1f us, P99 = %.1f us, P99.9 = %.1f us, Max = %.1f us",
+					count,
+					getMean() / 1000.0D,
+					getValueAtPercentile(50.0D) / 1000.0D,
+					getValueAtPercentile(99.0D) / 1000.0D,
+					getValueAtPercentile(99.9D) / 1000.0D,
+					max / 1000.0D);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package intrinio.realtime.common;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency histograms for each stage between the socket and the callbacks, from {@link System#nanoTime()} stamps taken as a frame
+ * is received (first and last fragment), dequeued by a processing thread, and as each callback is entered and returns:
+ * <ul>
+ *     <li>Reassembly: first fragment to complete frame.</li>
+ *     <li>Queue: complete frame to dequeue.</li>
+ *     <li>Lag, by message type: the message's exchange timestamp to receipt, so it includes any clock offset from the exchange.</li>
+ *     <li>Parse, by callback: dequeue, or the previous callback's return, to callback entry.</li>
+ *     <li>Callback, by callback: entry to return.</li>
+ *     <li>Total, by callback: receipt to return.</li>
+ * </ul>
+ */
+public final class LatencyTracker {
+	private static final long CALIBRATION_INTERVAL_NANOS = 1_000_000_000L;
+
+	private final MessageLayout layout;
+	private final String[] messageTypeNames;
+	private final String[] callbackNames;
+	private final LatencyHistogram reassembly = new LatencyHistogram();
+	private final LatencyHistogram queue = new LatencyHistogram();
+	private final LatencyHistogram[] lag;
+	private final LatencyHistogram[] parse;
+	private final LatencyHistogram[] callback;
+	private final LatencyHistogram[] total;
+	private volatile long epochOffsetNanos;
+	private volatile long calibratedNanos;
+
+	/**
+	 * @param callbackNames Display names of the callback kinds passed to {@link #recordCallback(int, long, long, long, long)}.
+	 */
+	public LatencyTracker(MessageLayout layout, String[] callbackNames) {
+		this.layout = layout;
+		this.messageTypeNames = layout.getMessageTypeNames();
+		this.callbackNames = callbackNames;
+		this.lag = create(messageTypeNames.length);
+		this.parse = create(callbackNames.length);
+		this.callback = create(callbackNames.length);
+		this.total = create(callbackNames.length);
+		calibrate();
+	}
+
+	public void recordReassembly(long firstFragmentNanos, long receivedNanos) {
+		reassembly.record(receivedNanos - firstFragmentNanos);
+	}
+
+	/**
+	 * Records the frame's time in the queue and each message's lag behind its exchange timestamp.
+	 * Frames without a receive time, e.g. conflated quotes, are skipped.
+	 */
+	public void recordDequeue(byte[] frame, int length, long receivedNanos, long dequeuedNanos) {
+		if (receivedNanos == 0L)
+			return;
+		queue.record(dequeuedNanos - receivedNanos);
+		if (dequeuedNanos - calibratedNanos > CALIBRATION_INTERVAL_NANOS)
+			calibrate();
+		long receivedEpochNanos = epochOffsetNanos + receivedNanos;
+		int count = frame[0] & 0xFF;
+		int offset = 1;
+		for (int i = 0; i < count; i++) {
+			int messageLength = offset < length ? layout.getMessageLength(frame, offset) : -1;
+			if (messageLength <= 0 || offset + messageLength > length)
+				return;
+			int type = layout.getMessageType(frame, offset);
+			long timestamp = layout.getTimestamp(frame, offset);
+			if (type >= 0 && timestamp > 0L)
+				lag[type].record(receivedEpochNanos - timestamp);
+			offset += messageLength;
+		}
+	}
+
+	/**
+	 * Records one callback. {@code markNanos} is when the processing thread started on this callback's messages: the dequeue,
+	 * or the previous callback's return. Returns {@code exitNanos}, the mark for the next callback.
+	 */
+	public long recordCallback(int kind, long receivedNanos, long markNanos, long entryNanos, long exitNanos) {
+		parse[kind].record(entryNanos - markNanos);
+		callback[kind].record(exitNanos - entryNanos);
+		if (receivedNanos != 0L)
+			total[kind].record(exitNanos - receivedNanos);
+		return exitNanos;
+	}
+
+	/**
+	 * Snapshots of every histogram by name, e.g. {@code Queue}, {@code TradeLag} or {@code QuoteCallback}, in stage order.
+	 * With {@code reset}, each histogram is cleared as it is read, to report by interval.
+	 */
+	public Map<String, LatencyHistogram.Snapshot> getSnapshots(boolean reset) {
+		LinkedHashMap<String, LatencyHistogram.Snapshot> snapshots = new LinkedHashMap<String, LatencyHistogram.Snapshot>();
+		snapshots.put("Reassembly", snapshot(reassembly, reset));
+		snapshots.put("Queue", snapshot(queue, reset));
+		for (int i = 0; i < messageTypeNames.length; i++)
+			snapshots.put(messageTypeNames[i] + "Lag", snapshot(lag[i], reset));
+		for (int i = 0; i < callbackNames.length; i++) {
+			snapshots.put(callbackNames[i] + "Parse", snapshot(parse[i], reset));
+			snapshots.put(callbackNames[i] + "Callback", snapshot(callback[i], reset));
+			snapshots.put(callbackNames[i] + "Total", snapshot(total[i], reset));
+		}
+		return snapshots;
+	}
+
+	/**
+	 * Publishes the median, 99th and 99.9th percentile of every histogram, in microseconds, e.g. {@code QueueP99Micros}.
+	 */
+	public void register(MetricsRegistry registry) {
+		register(registry, "Reassembly", reassembly);
+		register(registry, "Queue", queue);
+		for (int i = 0; i < messageTypeNames.length; i++)
+			register(registry, messageTypeNames[i] + "Lag", lag[i]);
+		for (int i = 0; i < callbackNames.length; i++) {
+			register(registry, callbackNames[i] + "Parse", parse[i]);
+			register(registry, callbackNames[i] + "Callback", callback[i]);
+			register(registry, callbackNames[i] + "Total", total[i]);
+		}
+	}
+
+	public String getStats() {
+		StringBuilder builder = new StringBuilder("Latency (");
+		String separator = "";
+		for (Map.Entry<String, LatencyHistogram.Snapshot> entry : getSnapshots(false).entrySet()) {
+			if (entry.getValue().getCount() > 0L) {
+				builder.append(separator).append(entry.getKey()).append(": ").append(entry.getValue());
+				separator = "; ";
+			}
+		}
+		return builder.append(')').toString();
+	}
+
+	/**
+	 * Maps {@link System#nanoTime()} to the wall clock. Repeated periodically, so the two clocks drifting apart does not skew the lag.
+	 */
+	private void calibrate() {
+		Instant now = Instant.now();
+		long nanos = System.nanoTime();
+		epochOffsetNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano() - nanos;
+		calibratedNanos = nanos;
+	}
+
+	private static void register(MetricsRegistry registry, String name, LatencyHistogram histogram) {
+		registry.doubleGauge(name + "P50Micros", () -> histogram.getSnapshot().getValueAtPercentile(50.0D) / 1000.0D);
+		registry.doubleGauge(name + "P99Micros", () -> histogram.getSnapshot().getValueAtPercentile(99.0D) / 1000.0D);
+		registry.doubleGauge(name + "P999Micros", () -> histogram.getSnapshot().getValueAtPercentile(99.9D) / 1000.0D);
+	}
+
+	private static LatencyHistogram.Snapshot snapshot(LatencyHistogram histogram, boolean reset) {
+		return reset ? histogram.getIntervalSnapshot() : histogram.getSnapshot();
+	}
+
+	private static LatencyHistogram[] create(int count) {
+		LatencyHistogram[] histograms = new LatencyHistogram[count];
+		for (int i = 0; i < count; i++)
+			histograms[i] = new LatencyHistogram();
+		return histograms;
+	}
+}
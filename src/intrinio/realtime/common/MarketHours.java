@@ -0,0 +1,31 @@
+package intrinio.realtime.common;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * The regular US trading session, 9:30 to 16:00 New York time on weekdays. Exchange holidays are not taken into account.
+ */
+public final class MarketHours {
+	public static final ZoneId TIME_ZONE = ZoneId.of("America/New_York");
+	private static final LocalTime OPEN = LocalTime.of(9, 30);
+	private static final LocalTime CLOSE = LocalTime.of(16, 0);
+
+	private MarketHours() {}
+
+	public static boolean isOpen() {
+		return isOpen(Instant.now());
+	}
+
+	public static boolean isOpen(Instant instant) {
+		ZonedDateTime time = instant.atZone(TIME_ZONE);
+		DayOfWeek day = time.getDayOfWeek();
+		if (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY)
+			return false;
+		LocalTime localTime = time.toLocalTime();
+		return !localTime.isBefore(OPEN) && localTime.isBefore(CLOSE);
+	}
+}
@@ -0,0 +1,12 @@
+package intrinio.realtime.common;
+
+/**
+ * Decides from a message's raw bytes whether it is delivered at all. Filters run on the websocket thread before a frame is
+ * queued, so they must not allocate or block; messages that fail are skipped by length and never parsed.
+ */
+public interface MessageFilter {
+	/**
+	 * Whether to keep the message starting at {@code offset}. Its type is known to the {@link MessageLayout}.
+	 */
+	boolean accept(byte[] frame, int offset);
+}
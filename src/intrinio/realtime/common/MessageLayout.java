@@ -0,0 +1,51 @@
+package intrinio.realtime.common;
+
+/**
+ * Describes where messages and their symbols sit inside a frame, so the ingest pipeline can walk a frame without parsing it.
+ * A frame is a one byte message count followed by the messages back to back.
+ */
+public interface MessageLayout {
+	/**
+	 * The length in bytes of the message starting at {@code offset}, or -1 if its type is not recognized.
+	 */
+	int getMessageLength(byte[] frame, int offset);
+
+	/**
+	 * The number of bytes of the message at {@code offset} that carry data, leaving out any trailing padding.
+	 */
+	default int getContentLength(byte[] frame, int offset) {
+		return getMessageLength(frame, offset);
+	}
+
+	/**
+	 * Display names of the message types, indexed by {@link #getMessageType(byte[], int)}.
+	 */
+	String[] getMessageTypeNames();
+
+	/**
+	 * The index of the message's type in {@link #getMessageTypeNames()}, or -1 if it is not recognized.
+	 */
+	int getMessageType(byte[] frame, int offset);
+
+	/**
+	 * The message's exchange timestamp in nanoseconds since the unix epoch, or -1 if its type carries none.
+	 */
+	default long getTimestamp(byte[] frame, int offset) {
+		return -1L;
+	}
+
+	/**
+	 * Whether the message is a quote, and so may be superseded by a later quote for the same symbol.
+	 */
+	boolean isQuote(byte[] frame, int offset);
+
+	/**
+	 * The offset of the message's symbol (or contract) bytes.
+	 */
+	int getSymbolOffset(byte[] frame, int offset);
+
+	/**
+	 * The length of the message's symbol (or contract) bytes.
+	 */
+	int getSymbolLength(byte[] frame, int offset);
+}
@@ -0,0 +1,18 @@
+package intrinio.realtime.common;
+
+import java.util.Map;
+
+/**
+ * A read-only view of a component's counters and gauges, also published over JMX under the {@code intrinio.realtime} domain.
+ */
+public interface Metrics {
+	/**
+	 * The current value of every metric, in registration order. Counters and gauges are {@link Long}s; averages are {@link Double}s.
+	 */
+	Map<String, Number> getValues();
+
+	/**
+	 * The current value of the named metric, or null if there is no such metric.
+	 */
+	Number getValue(String name);
+}
@@ -0,0 +1,174 @@
+package intrinio.realtime.common;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Named counters and gauges for one component. Counters are {@link LongAdder}s, so threads updating them on the data path
+ * do not contend; values are only summed when read. The registry is also a dynamic MBean with one read-only attribute per metric.
+ */
+public final class MetricsRegistry implements Metrics, DynamicMBean {
+	private static final String DOMAIN = "intrinio.realtime";
+	private static final AtomicInteger instances = new AtomicInteger(0);
+
+	private final String type;
+	private volatile Entry[] entries = new Entry[0];
+	private ObjectName objectName;
+
+	/**
+	 * @param type The JMX type the registry is published under, e.g. {@code OptionsClient}.
+	 */
+	public MetricsRegistry(String type) {
+		this.type = type;
+	}
+
+	/**
+	 * Adds a counter, reported as a {@link Long}.
+	 */
+	public LongAdder counter(String name) {
+		LongAdder counter = new LongAdder();
+		add(new Entry(name, Long.class, counter::sum));
+		return counter;
+	}
+
+	/**
+	 * Adds a value sampled when read, reported as a {@link Long}.
+	 */
+	public void gauge(String name, LongSupplier gauge) {
+		add(new Entry(name, Long.class, gauge::getAsLong));
+	}
+
+	/**
+	 * Adds a value sampled when read, reported as a {@link Double}.
+	 */
+	public void doubleGauge(String name, DoubleSupplier gauge) {
+		add(new Entry(name, Double.class, gauge::getAsDouble));
+	}
+
+	@Override
+	public Map<String, Number> getValues() {
+		Entry[] entries = this.entries;
+		LinkedHashMap<String, Number> values = new LinkedHashMap<String, Number>(entries.length * 2);
+		for (Entry entry : entries)
+			values.put(entry.name, entry.value.get());
+		return values;
+	}
+
+	@Override
+	public Number getValue(String name) {
+		Entry entry = find(name);
+		return entry == null ? null : entry.value.get();
+	}
+
+	/**
+	 * Publishes the registry with the platform MBean server as {@code intrinio.realtime:type=<type>,id=<n>}.
+	 * Does nothing if it is already registered.
+	 */
+	public synchronized ObjectName register() throws JMException {
+		if (objectName == null) {
+			ObjectName name = new ObjectName(DOMAIN + ":type=" + type + ",id=" + instances.incrementAndGet());
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+			objectName = name;
+		}
+		return objectName;
+	}
+
+	public synchronized void unregister() throws JMException {
+		if (objectName != null) {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+			objectName = null;
+		}
+	}
+
+	//region DynamicMBean
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Entry entry = find(attribute);
+		if (entry == null)
+			throw new AttributeNotFoundException(attribute);
+		return entry.value.get();
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList list = new AttributeList(attributes.length);
+		for (String attribute : attributes) {
+			Entry entry = find(attribute);
+			if (entry != null)
+				list.add(new Attribute(attribute, entry.value.get()));
+		}
+		return list;
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		Entry[] entries = this.entries;
+		MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[entries.length];
+		for (int i = 0; i < entries.length; i++)
+			attributes[i] = new MBeanAttributeInfo(entries[i].name, entries[i].type.getName(), entries[i].name, true, false, false);
+		return new MBeanInfo(getClass().getName(), type + " metrics", attributes, null, null, null);
+	}
+	//endregion DynamicMBean
+
+	private synchronized void add(Entry entry) {
+		if (find(entry.name) != null)
+			throw new IllegalArgumentException("Duplicate metric: " + entry.name);
+		Entry[] grown = Arrays.copyOf(entries, entries.length + 1);
+		grown[entries.length] = entry;
+		entries = grown;
+	}
+
+	private Entry find(String name) {
+		for (Entry entry : entries) {
+			if (entry.name.equals(name))
+				return entry;
+		}
+		return null;
+	}
+
+	private static final class Entry {
+		private final String name;
+		private final Class<? extends Number> type;
+		private final Supplier<Number> value;
+
+		private Entry(String name, Class<? extends Number> type, Supplier<Number> value) {
+			this.name = name;
+			this.type = type;
+			this.value = value;
+		}
+	}
+}
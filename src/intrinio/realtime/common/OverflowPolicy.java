@@ -0,0 +1,21 @@
+package intrinio.realtime.common;
+
+/**
+ * What the websocket thread does with a complete frame when the processing queue is full.
+ * Every message that is not delivered is counted, by type, in {@link FrameDispatcher#getDropped(int)}.
+ */
+public enum OverflowPolicy {
+	/** Wait for the processing threads to make room. Nothing is dropped; the websocket stops reading until they catch up. */
+	BLOCK,
+	/** Discard the oldest queued frame to make room for the new one. */
+	DROP_OLDEST,
+	/** Discard the new frame. */
+	DROP_NEWEST,
+	/**
+	 * Move the quotes in the new frame to a latest-value slot per symbol and quote type, and wait for room for the rest.
+	 * The slots are delivered by the processing thread that owns the symbol once its queue has drained, so a conflated quote never
+	 * reaches the callback before older quotes for the symbol, and later quotes replace it until it is delivered.
+	 * Trades and all other messages are never dropped.
+	 */
+	CONFLATE_QUOTES
+}
@@ -0,0 +1,233 @@
+package intrinio.realtime.common;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps only the newest quote of each type for each symbol (or contract). Quotes are stored as raw message bytes in one slot per
+ * symbol and quote type, overwriting whatever was there, and the slots that changed since the last drain are handed back as a frame
+ * in the wire format. A slow consumer therefore sees at most one quote per symbol and type per drain, and never a backlog of stale ones.
+ * Keying on the type keeps an equity's ask from overwriting its bid; options quotes carry both sides in one message type.
+ */
+public final class QuoteConflator {
+	private static final int INITIAL_TABLE_SIZE = 1 << 12;
+
+	private final MessageLayout layout;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+	private final ArrayDeque<Slot> dirty = new ArrayDeque<Slot>();
+	private final LongAdder conflated = new LongAdder();
+	private Slot[] table = new Slot[INITIAL_TABLE_SIZE];
+	private int count = 0;
+	private volatile int pending = 0;
+
+	public QuoteConflator(MessageLayout layout) {
+		this.layout = layout;
+	}
+
+	/**
+	 * Stores the quote message at {@code offset}, replacing any quote of the same type for the same symbol that has not been drained yet.
+	 * Returns true if no other quote was waiting, i.e. the conflator just became worth draining.
+	 */
+	public boolean put(byte[] frame, int offset, int length) {
+		int type = layout.getMessageType(frame, offset);
+		int symbolOffset = layout.getSymbolOffset(frame, offset);
+		int symbolLength = layout.getSymbolLength(frame, offset);
+		int hash = Bytes.hash(frame, symbolOffset, symbolLength) * 31 + type;
+		lock.lock();
+		try {
+			Slot slot = find(type, frame, symbolOffset, symbolLength, hash);
+			if (slot.bytes.length < length)
+				slot.bytes = new byte[length];
+			System.arraycopy(frame, offset, slot.bytes, 0, length);
+			slot.length = length;
+			if (slot.dirty) {
+				conflated.increment();
+				return false;
+			}
+			slot.dirty = true;
+			dirty.addLast(slot);
+			pending = dirty.size();
+			changed.signal();
+			return pending == 1;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stores the quote message at {@code offset} only if a quote of the same type for the same symbol is waiting to be drained,
+	 * replacing it. Returns whether the quote was stored. A quote that is not stored may be delivered directly, as it cannot overtake an older one.
+	 */
+	public boolean replaceIfPending(byte[] frame, int offset, int length) {
+		int type = layout.getMessageType(frame, offset);
+		int symbolOffset = layout.getSymbolOffset(frame, offset);
+		int symbolLength = layout.getSymbolLength(frame, offset);
+		int hash = Bytes.hash(frame, symbolOffset, symbolLength) * 31 + type;
+		lock.lock();
+		try {
+			Slot slot = lookup(type, frame, symbolOffset, symbolLength, hash);
+			if (slot == null || !slot.dirty)
+				return false;
+			if (slot.bytes.length < length)
+				slot.bytes = new byte[length];
+			System.arraycopy(frame, offset, slot.bytes, 0, length);
+			slot.length = length;
+			conflated.increment();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Whether any quote is waiting to be drained. Does not take the lock, so the answer may already be stale.
+	 */
+	public boolean hasPending() {
+		return pending > 0;
+	}
+
+	/**
+	 * Copies the quotes that changed since the last drain into {@code into} as a frame (a count byte followed by the messages),
+	 * waiting up to the timeout for one to arrive. Returns the frame length, or 0 if nothing changed before the timeout.
+	 */
+	public int drain(byte[] into, long timeout, TimeUnit unit) throws InterruptedException {
+		lock.lock();
+		try {
+			long remaining = unit.toNanos(timeout);
+			while (dirty.isEmpty()) {
+				if (remaining <= 0L)
+					return 0;
+				remaining = changed.awaitNanos(remaining);
+			}
+			return drainLocked(into);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Copies the quotes that changed since the last drain into {@code into} as a frame, without waiting. Returns the frame length, or 0 if nothing changed.
+	 */
+	public int drain(byte[] into) {
+		lock.lock();
+		try {
+			return drainLocked(into);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * The number of slots, one per symbol and quote type seen.
+	 */
+	public int getSymbolCount() {
+		lock.lock();
+		try {
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * The number of slots whose newest quote has not been drained yet.
+	 */
+	public int getPendingCount() {
+		return pending;
+	}
+
+	/**
+	 * The number of quotes that were overwritten before they were drained.
+	 */
+	public long getConflatedCount() {
+		return conflated.sum();
+	}
+
+	public String getStats() {
+		return String.format("Quote Conflation (Symbols = %d, Pending = %d, Conflated = %d)", getSymbolCount(), getPendingCount(), getConflatedCount());
+	}
+
+	private int drainLocked(byte[] into) {
+		int messages = 0;
+		int position = 1;
+		while (messages < 255 && !dirty.isEmpty() && position + dirty.peekFirst().length <= into.length) {
+			Slot slot = dirty.pollFirst();
+			System.arraycopy(slot.bytes, 0, into, position, slot.length);
+			position += slot.length;
+			slot.dirty = false;
+			messages++;
+		}
+		pending = dirty.size();
+		into[0] = (byte) messages;
+		return messages > 0 ? position : 0;
+	}
+
+	/**
+	 * The slot for the symbol and type, or null if there is none yet.
+	 */
+	private Slot lookup(int type, byte[] frame, int symbolOffset, int symbolLength, int hash) {
+		int mask = table.length - 1;
+		int index = hash & mask;
+		Slot slot;
+		while ((slot = table[index]) != null) {
+			if (slot.hash == hash && slot.type == type && slot.matches(frame, symbolOffset, symbolLength))
+				return slot;
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	private Slot find(int type, byte[] frame, int symbolOffset, int symbolLength, int hash) {
+		Slot slot = lookup(type, frame, symbolOffset, symbolLength, hash);
+		if (slot != null)
+			return slot;
+		int mask = table.length - 1;
+		int index = hash & mask;
+		while (table[index] != null)
+			index = (index + 1) & mask;
+		slot = new Slot(type, frame, symbolOffset, symbolLength, hash);
+		table[index] = slot;
+		if (++count * 2 > table.length)
+			resize();
+		return slot;
+	}
+
+	private void resize() {
+		Slot[] resized = new Slot[table.length << 1];
+		int mask = resized.length - 1;
+		for (Slot slot : table) {
+			if (slot != null) {
+				int index = slot.hash & mask;
+				while (resized[index] != null)
+					index = (index + 1) & mask;
+				resized[index] = slot;
+			}
+		}
+		table = resized;
+	}
+
+	private static final class Slot {
+		private final int type;
+		private final byte[] symbol;
+		private final int hash;
+		private byte[] bytes = new byte[0];
+		private int length;
+		private boolean dirty;
+
+		private Slot(int type, byte[] frame, int symbolOffset, int symbolLength, int hash) {
+			this.type = type;
+			this.symbol = new byte[symbolLength];
+			System.arraycopy(frame, symbolOffset, symbol, 0, symbolLength);
+			this.hash = hash;
+		}
+
+		private boolean matches(byte[] frame, int symbolOffset, int symbolLength) {
+			return Arrays.equals(symbol, 0, symbol.length, frame, symbolOffset, symbolOffset + symbolLength);
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package intrinio.realtime.common;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded, preallocated, multi-producer multi-consumer ring of frames between the websocket thread and the processing threads.
+ * Each slot carries a sequence number that producers and consumers claim with a CAS, so no nodes are allocated and no lock is taken
+ * on the data path. Idle consumers wait according to the configured {@link WaitStrategy}.
+ */
+public final class RingBuffer {
+	private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 100;
+	private static final long SLEEP_NANOS = 100L;
+
+	private final int mask;
+	private final long[] sequences;
+	private final byte[][] buffers;
+	private final int[] lengths;
+	private final long[] receivedNanos;
+	private final AtomicLong enqueuePosition = new AtomicLong(0L);
+	private final AtomicLong dequeuePosition = new AtomicLong(0L);
+	private final AtomicLong highWaterMark = new AtomicLong(0L);
+	private final WaitStrategy waitStrategy;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final AtomicInteger waiters = new AtomicInteger(0);
+	private final AtomicBoolean woken = new AtomicBoolean(false);
+
+	/**
+	 * @param capacity The number of frames the ring can hold. Rounded up to a power of two.
+	 */
+	public RingBuffer(int capacity, WaitStrategy waitStrategy) {
+		int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = size - 1;
+		this.sequences = new long[size];
+		this.buffers = new byte[size][];
+		this.lengths = new int[size];
+		this.receivedNanos = new long[size];
+		this.waitStrategy = waitStrategy == null ? WaitStrategy.BLOCKING : waitStrategy;
+		for (int i = 0; i < size; i++) {
+			sequences[i] = i;
+		}
+	}
+
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	public int size() {
+		return (int) Math.max(0L, enqueuePosition.get() - dequeuePosition.get());
+	}
+
+	/**
+	 * The most frames that have been waiting at once.
+	 */
+	public int getHighWaterMark() {
+		return (int) highWaterMark.get();
+	}
+
+	/**
+	 * Publishes a frame if there is room. Returns false, without waiting, when the ring is full.
+	 */
+	public boolean offer(byte[] bytes, int length) {
+		return offer(bytes, length, 0L);
+	}
+
+	/**
+	 * Publishes a frame stamped with the {@link System#nanoTime()} it was received at, if there is room.
+	 */
+	public boolean offer(byte[] bytes, int length, long receivedNanos) {
+		long position = enqueuePosition.get();
+		while (true) {
+			int index = (int) position & mask;
+			long difference = (long) SEQUENCES.getAcquire(sequences, index) - position;
+			if (difference == 0L) {
+				if (enqueuePosition.compareAndSet(position, position + 1L)) {
+					buffers[index] = bytes;
+					lengths[index] = length;
+					this.receivedNanos[index] = receivedNanos;
+					SEQUENCES.setVolatile(sequences, index, position + 1L);
+					long depth = position + 1L - dequeuePosition.get();
+					if (depth > highWaterMark.get())
+						highWaterMark.accumulateAndGet(depth, Math::max); //Only written when a new high is reached
+					signalConsumers();
+					return true;
+				}
+				position = enqueuePosition.get();
+			} else if (difference < 0L) {
+				return false;
+			} else {
+				position = enqueuePosition.get();
+			}
+		}
+	}
+
+	/**
+	 * Publishes a frame, backing off until a slot frees up if the ring is full.
+	 */
+	public void put(byte[] bytes, int length) {
+		put(bytes, length, 0L);
+	}
+
+	/**
+	 * Publishes a frame stamped with the {@link System#nanoTime()} it was received at, backing off until a slot frees up if the ring is full.
+	 */
+	public void put(byte[] bytes, int length, long receivedNanos) {
+		int idle = 0;
+		while (!offer(bytes, length, receivedNanos)) {
+			if (idle < SPIN_TRIES)
+				Thread.onSpinWait();
+			else if (idle < SPIN_TRIES + YIELD_TRIES)
+				Thread.yield();
+			else
+				LockSupport.parkNanos(SLEEP_NANOS);
+			idle++;
+		}
+	}
+
+	/**
+	 * Takes the next frame into {@code into}, waiting up to the timeout. Returns false if the timeout elapsed first, or if {@link #wake()} was called.
+	 */
+	public boolean poll(Frame into, long timeout, TimeUnit unit) throws InterruptedException {
+		if (tryPoll(into))
+			return true;
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int idle = 0;
+		while (true) {
+			if (tryPoll(into))
+				return true;
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0L || woken.get() && woken.getAndSet(false))
+				return false;
+			waitForData(idle++, remaining);
+		}
+	}
+
+	/**
+	 * Takes the next frame into {@code into} if one is available, without waiting.
+	 */
+	public boolean tryPoll(Frame into) {
+		long position = dequeuePosition.get();
+		while (true) {
+			int index = (int) position & mask;
+			long difference = (long) SEQUENCES.getAcquire(sequences, index) - (position + 1L);
+			if (difference == 0L) {
+				if (dequeuePosition.compareAndSet(position, position + 1L)) {
+					into.set(buffers[index], lengths[index], receivedNanos[index]);
+					buffers[index] = null;
+					SEQUENCES.setRelease(sequences, index, position + mask + 1L);
+					return true;
+				}
+				position = dequeuePosition.get();
+			} else if (difference < 0L) {
+				return false;
+			} else {
+				position = dequeuePosition.get();
+			}
+		}
+	}
+
+	/**
+	 * Makes a consumer waiting in {@link #poll(Frame, long, TimeUnit)} return without a frame, e.g. because it has work waiting elsewhere.
+	 * If no consumer is waiting, the next one to find the ring empty returns at once.
+	 */
+	public void wake() {
+		woken.set(true);
+		signalConsumers();
+	}
+
+	private boolean isEmpty() {
+		long position = dequeuePosition.get();
+		return (long) SEQUENCES.getVolatile(sequences, (int) position & mask) - (position + 1L) < 0L;
+	}
+
+	private void waitForData(int idle, long remainingNanos) throws InterruptedException {
+		switch (waitStrategy) {
+			case BUSY_SPIN:
+				Thread.onSpinWait();
+				break;
+			case YIELDING:
+				if (idle < SPIN_TRIES)
+					Thread.onSpinWait();
+				else
+					Thread.yield();
+				break;
+			case SLEEPING:
+				if (idle < SPIN_TRIES)
+					Thread.onSpinWait();
+				else if (idle < SPIN_TRIES + YIELD_TRIES)
+					Thread.yield();
+				else
+					LockSupport.parkNanos(SLEEP_NANOS);
+				break;
+			case BLOCKING:
+			default:
+				waiters.incrementAndGet();
+				lock.lock();
+				try {
+					if (isEmpty() && !woken.get())
+						notEmpty.awaitNanos(remainingNanos);
+				} finally {
+					lock.unlock();
+					waiters.decrementAndGet();
+				}
+		}
+	}
+
+	private void signalConsumers() {
+		if (waiters.get() > 0) {
+			lock.lock();
+			try {
+				notEmpty.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package intrinio.realtime.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * The channels a client wants, the channels it has asked the server for, and the channels whose requests have been sent.
+ * Any thread may change the desired set without locking; each change marks the key dirty, and {@link #flush(BiFunction)}
+ * turns only the dirty keys into the joins and leaves that bring the server in line, so a flush costs O(changes) however many channels there are.
+ */
+public final class SubscriptionRegistry<K> {
+	private final Set<K> desired = ConcurrentHashMap.newKeySet();
+	private final Set<K> dirty = ConcurrentHashMap.newKeySet();
+	private final Set<K> acknowledged = ConcurrentHashMap.newKeySet();
+	private final Object lock = new Object();
+	//Guarded by lock. Requested is what has been handed to the sender, whether or not it has gone out yet.
+	private final Set<K> requested = new HashSet<K>();
+	private long generation = 0L;
+
+	/**
+	 * Adds the key to the desired set. Returns false if it was already there.
+	 */
+	public boolean add(K key) {
+		if (!desired.add(key))
+			return false;
+		dirty.add(key);
+		return true;
+	}
+
+	/**
+	 * Removes the key from the desired set. Returns false if it was not there.
+	 */
+	public boolean remove(K key) {
+		if (!desired.remove(key))
+			return false;
+		dirty.add(key);
+		return true;
+	}
+
+	/**
+	 * Makes the desired set exactly {@code keys}. Only the keys that actually come or go are marked dirty.
+	 */
+	public void replace(Collection<? extends K> keys) {
+		Set<K> replacement = new HashSet<K>(keys);
+		for (K key : desired) {
+			if (!replacement.contains(key))
+				remove(key);
+		}
+		for (K key : replacement)
+			add(key);
+	}
+
+	public boolean contains(K key) {
+		return desired.contains(key);
+	}
+
+	/**
+	 * Whether the join for the key has been sent on the current connection.
+	 */
+	public boolean isAcknowledged(K key) {
+		return acknowledged.contains(key);
+	}
+
+	/**
+	 * A snapshot of the desired set.
+	 */
+	public List<K> getDesired() {
+		return new ArrayList<K>(desired);
+	}
+
+	public int size() {
+		return desired.size();
+	}
+
+	public int getAcknowledgedCount() {
+		return acknowledged.size();
+	}
+
+	/**
+	 * Hands the joins and leaves needed since the last flush to {@code send}, whose future completes when they have been sent.
+	 * Flushes are serialized, so batches reach the sender in the order their changes were made.
+	 * If sending fails, the keys are marked dirty again for the next flush.
+	 */
+	public CompletableFuture<Void> flush(BiFunction<List<K>, List<K>, CompletableFuture<Void>> send) {
+		synchronized (lock) {
+			ArrayList<K> joins = new ArrayList<K>();
+			ArrayList<K> leaves = new ArrayList<K>();
+			for (K key : dirty) {
+				//Clear the mark before reading the desired state, so a change racing with this flush is seen by the next one.
+				dirty.remove(key);
+				boolean wanted = desired.contains(key);
+				if (wanted && requested.add(key))
+					joins.add(key);
+				else if (!wanted && requested.remove(key))
+					leaves.add(key);
+			}
+			if (joins.isEmpty() && leaves.isEmpty())
+				return CompletableFuture.completedFuture(null);
+			return track(send.apply(joins, leaves), joins, leaves);
+		}
+	}
+
+	/**
+	 * Starts over for a new connection: nothing is requested or acknowledged, and every desired key is handed to {@code send} as a join.
+	 */
+	public CompletableFuture<Void> resubscribe(BiFunction<List<K>, List<K>, CompletableFuture<Void>> send) {
+		synchronized (lock) {
+			generation++;
+			dirty.clear();
+			requested.clear();
+			acknowledged.clear();
+			ArrayList<K> joins = new ArrayList<K>(desired);
+			requested.addAll(joins);
+			return track(send.apply(joins, Collections.<K>emptyList()), joins, Collections.<K>emptyList());
+		}
+	}
+
+	private CompletableFuture<Void> track(CompletableFuture<Void> sent, List<K> joins, List<K> leaves) {
+		long sentGeneration = generation;
+		sent.whenComplete((ignored, error) -> {
+			synchronized (lock) {
+				//Results from a connection that has since been replaced say nothing about the current one.
+				if (sentGeneration != generation)
+					return;
+				if (error == null) {
+					acknowledged.addAll(joins);
+					acknowledged.removeAll(leaves);
+				} else {
+					requested.removeAll(joins);
+					requested.addAll(leaves);
+					dirty.addAll(joins);
+					dirty.addAll(leaves);
+				}
+			}
+		});
+		return sent;
+	}
+}
@@ -0,0 +1,107 @@
+package intrinio.realtime.common;
+
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends join and leave messages one after another. A {@link WebSocket} allows only one outstanding send, so each message
+ * is sent when the previous one completes, and each batch starts when the previous batch is done, whichever thread submitted it.
+ * Sends are optionally rate limited, allowing a burst of one second's worth of messages.
+ */
+public final class SubscriptionSender {
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	private final Object lock = new Object();
+	private final long intervalNanos;
+	private final long burstNanos;
+	private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+	//Only touched by the batch being sent, and batches run one at a time.
+	private long nextSendNanos;
+
+	/**
+	 * @param messagesPerSecond The most messages to send per second, or 0 for no limit.
+	 */
+	public SubscriptionSender(int messagesPerSecond) {
+		this.intervalNanos = messagesPerSecond > 0 ? NANOS_PER_SECOND / messagesPerSecond : 0L;
+		this.burstNanos = messagesPerSecond > 0 ? NANOS_PER_SECOND - intervalNanos : 0L;
+		this.nextSendNanos = System.nanoTime() - burstNanos;
+	}
+
+	/**
+	 * Queues the messages to be sent in order after everything queued before them. The future completes when the last one
+	 * has been sent, or exceptionally with the first failure, in which case the rest of the batch is not sent.
+	 */
+	public CompletableFuture<Void> send(WebSocket webSocket, List<ByteBuffer> messages) {
+		CompletableFuture<Void> done = new CompletableFuture<Void>();
+		CompletableFuture<Void> previous;
+		synchronized (lock) {
+			previous = tail;
+			tail = done;
+		}
+		previous.whenComplete((ignored, error) -> sendFrom(webSocket, messages, 0, done));
+		return done;
+	}
+
+	/**
+	 * Forgets the batches queued so far, for a new connection. Batches still being sent to the old connection carry on independently.
+	 */
+	public void reset() {
+		synchronized (lock) {
+			tail = CompletableFuture.completedFuture(null);
+		}
+	}
+
+	private void sendFrom(WebSocket webSocket, List<ByteBuffer> messages, int index, CompletableFuture<Void> done) {
+		//Loops while sends complete immediately, so a long batch does not recurse once per message.
+		while (index < messages.size()) {
+			long delay = acquire();
+			if (delay > 0L) {
+				int next = index;
+				CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> sendFrom(webSocket, messages, next, done));
+				return;
+			}
+			CompletableFuture<WebSocket> sent;
+			try {
+				sent = webSocket.sendBinary(messages.get(index), true);
+			} catch (Exception e) {
+				done.completeExceptionally(e);
+				return;
+			}
+			index++;
+			if (!sent.isDone()) {
+				int next = index;
+				sent.whenComplete((ignored, error) -> {
+					if (error != null)
+						done.completeExceptionally(error);
+					else
+						sendFrom(webSocket, messages, next, done);
+				});
+				return;
+			}
+			if (sent.isCompletedExceptionally()) {
+				sent.whenComplete((ignored, error) -> done.completeExceptionally(error));
+				return;
+			}
+		}
+		done.complete(null);
+	}
+
+	/**
+	 * Takes a send permit, returning how long to wait first.
+	 */
+	private long acquire() {
+		if (intervalNanos == 0L)
+			return 0L;
+		long now = System.nanoTime();
+		if (nextSendNanos - (now - burstNanos) < 0L)
+			nextSendNanos = now - burstNanos;
+		long wait = nextSendNanos - now;
+		if (wait > 0L)
+			return wait;
+		nextSendNanos += intervalNanos;
+		return 0L;
+	}
+}
@@ -0,0 +1,81 @@
+package intrinio.realtime.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable set of ASCII symbols that is queried with raw wire bytes. The symbols are stored back to back in one byte array
+ * and each table slot is a single {@code long} packing the hash, offset and length, so a lookup touches two arrays and decodes nothing.
+ */
+public final class SymbolSet {
+	//Slot layout, from the top: 32 hash | 24 offset | 8 length. Symbols are never empty, so 0 marks a free slot.
+	private final long[] slots;
+	private final byte[] symbols;
+	private final int size;
+
+	public SymbolSet(Collection<? extends CharSequence> symbols) {
+		byte[][] distinct = new byte[symbols.size()][];
+		int count = 0;
+		int total = 0;
+		for (CharSequence symbol : symbols) {
+			byte[] bytes = symbol.toString().getBytes(StandardCharsets.US_ASCII);
+			if (bytes.length == 0 || bytes.length > 0xFF)
+				throw new IllegalArgumentException("Invalid symbol: '" + symbol + "'");
+			distinct[count++] = bytes;
+			total += bytes.length;
+		}
+		if (total > 0xFFFFFF)
+			throw new IllegalArgumentException("Too many symbols: " + count);
+		this.slots = new long[Integer.highestOneBit(Math.max(1, count) * 2) << 1];
+		this.symbols = new byte[total];
+		int position = 0;
+		int added = 0;
+		int mask = slots.length - 1;
+		for (int i = 0; i < count; i++) {
+			byte[] bytes = distinct[i];
+			System.arraycopy(bytes, 0, this.symbols, position, bytes.length);
+			int hash = Bytes.hash(bytes, 0, bytes.length);
+			if (find(this.symbols, position, bytes.length, hash) >= 0)
+				continue;
+			int index = hash & mask;
+			while (slots[index] != 0L)
+				index = (index + 1) & mask;
+			slots[index] = ((long) hash << 32) | ((long) position << 8) | bytes.length;
+			position += bytes.length;
+			added++;
+		}
+		this.size = added;
+	}
+
+	/**
+	 * Whether the ASCII symbol in the given range is in the set.
+	 */
+	public boolean contains(byte[] bytes, int offset, int length) {
+		return find(bytes, offset, length, Bytes.hash(bytes, offset, length)) >= 0;
+	}
+
+	public boolean contains(CharSequence symbol) {
+		byte[] bytes = symbol.toString().getBytes(StandardCharsets.US_ASCII);
+		return contains(bytes, 0, bytes.length);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private int find(byte[] bytes, int offset, int length, int hash) {
+		int mask = slots.length - 1;
+		int index = hash & mask;
+		long slot;
+		while ((slot = slots[index]) != 0L) {
+			if ((int) (slot >>> 32) == hash && (int) (slot & 0xFF) == length) {
+				int start = (int) (slot >>> 8) & 0xFFFFFF;
+				if (Arrays.equals(symbols, start, start + length, bytes, offset, offset + length))
+					return index;
+			}
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,155 @@
+package intrinio.realtime.common;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * Interns symbols straight from their wire bytes. Each distinct symbol is decoded once and gets a canonical {@link String}
+ * and a dense integer ID (0, 1, 2, ...) that can index arrays. Lookups hash the bytes without decoding them and take no lock;
+ * only the first sighting of a symbol locks, to insert it.
+ */
+public final class SymbolTable {
+	/**
+	 * Ticker symbols. Equities symbols and option underlyings share this table, so a ticker has the same ID in both feeds.
+	 */
+	public static final SymbolTable SECURITIES = new SymbolTable();
+
+	private static final int INITIAL_CAPACITY = 1 << 10;
+	private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(Entry[].class);
+
+	private final UnaryOperator<String> canonicalizer;
+	private final Object writeLock = new Object();
+	private volatile Entry[] table = new Entry[INITIAL_CAPACITY * 2];
+	private volatile String[] symbols = new String[INITIAL_CAPACITY];
+	private volatile int size = 0;
+
+	public SymbolTable() {
+		this(UnaryOperator.identity());
+	}
+
+	/**
+	 * @param canonicalizer Turns the decoded wire symbol into the canonical string, e.g. to reformat an option contract. Called once per symbol.
+	 */
+	public SymbolTable(UnaryOperator<String> canonicalizer) {
+		this.canonicalizer = canonicalizer;
+	}
+
+	/**
+	 * The ID of the ASCII symbol in the given range, adding it if it has not been seen before.
+	 */
+	public int intern(byte[] bytes, int offset, int length) {
+		int hash = Bytes.hash(bytes, offset, length);
+		int id = find(table, bytes, offset, length, hash);
+		if (id >= 0)
+			return id;
+		synchronized (writeLock) {
+			id = find(table, bytes, offset, length, hash);
+			if (id >= 0)
+				return id;
+			return insert(Arrays.copyOfRange(bytes, offset, offset + length), hash);
+		}
+	}
+
+	/**
+	 * The ID of the ASCII symbol at {@code index} in the buffer, adding it if it has not been seen before.
+	 */
+	public int intern(ByteBuffer buffer, int index, int length) {
+		if (buffer.hasArray())
+			return intern(buffer.array(), buffer.arrayOffset() + index, length);
+		byte[] bytes = new byte[length];
+		buffer.get(index, bytes);
+		return intern(bytes, 0, length);
+	}
+
+	/**
+	 * The ID of a symbol given as text in its wire form, adding it if it has not been seen before.
+	 */
+	public int intern(CharSequence symbol) {
+		byte[] bytes = symbol.toString().getBytes(StandardCharsets.US_ASCII);
+		return intern(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * The ID of a symbol given as text in its wire form, or -1 if it has not been seen.
+	 */
+	public int getId(CharSequence symbol) {
+		byte[] bytes = symbol.toString().getBytes(StandardCharsets.US_ASCII);
+		return find(table, bytes, 0, bytes.length, Bytes.hash(bytes, 0, bytes.length));
+	}
+
+	/**
+	 * The canonical string for an ID returned by this table.
+	 */
+	public String getSymbol(int id) {
+		return symbols[id];
+	}
+
+	/**
+	 * The number of symbols interned. IDs run from 0 to size - 1.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private static int find(Entry[] table, byte[] bytes, int offset, int length, int hash) {
+		int mask = table.length - 1;
+		int index = hash & mask;
+		Entry entry;
+		while ((entry = (Entry) ENTRIES.getAcquire(table, index)) != null) {
+			if (entry.hash == hash && Arrays.equals(entry.bytes, 0, entry.bytes.length, bytes, offset, offset + length))
+				return entry.id;
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	private int insert(byte[] key, int hash) {
+		int id = size;
+		String[] currentSymbols = symbols;
+		if (id == currentSymbols.length)
+			currentSymbols = Arrays.copyOf(currentSymbols, id << 1);
+		currentSymbols[id] = canonicalizer.apply(new String(key, StandardCharsets.US_ASCII));
+		symbols = currentSymbols;
+		Entry[] current = table;
+		if ((id + 1) * 2 > current.length)
+			current = resize(current);
+		//The release store publishes the symbol along with the entry; readers that miss the entry fall through to the lock.
+		place(current, new Entry(key, hash, id));
+		table = current;
+		size = id + 1;
+		return id;
+	}
+
+	private static Entry[] resize(Entry[] current) {
+		Entry[] resized = new Entry[current.length << 1];
+		for (Entry entry : current) {
+			if (entry != null)
+				place(resized, entry);
+		}
+		return resized;
+	}
+
+	private static void place(Entry[] table, Entry entry) {
+		int mask = table.length - 1;
+		int index = entry.hash & mask;
+		while (table[index] != null)
+			index = (index + 1) & mask;
+		ENTRIES.setRelease(table, index, entry);
+	}
+
+	private static final class Entry {
+		private final byte[] bytes;
+		private final int hash;
+		private final int id;
+
+		private Entry(byte[] bytes, int hash, int id) {
+			this.bytes = bytes;
+			this.hash = hash;
+			this.id = id;
+		}
+	}
+}
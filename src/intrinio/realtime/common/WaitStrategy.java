@@ -0,0 +1,16 @@
+package intrinio.realtime.common;
+
+/**
+ * How processing threads wait for the next frame when the ring buffer is empty.
+ * Ordered from least to most CPU used while idle, and from highest to lowest wake-up latency.
+ */
+public enum WaitStrategy {
+	/** Park on a condition that the websocket thread signals. Lowest CPU use; wake-up costs a context switch. */
+	BLOCKING,
+	/** Spin briefly, then yield, then park for short intervals. */
+	SLEEPING,
+	/** Spin briefly, then yield the processor in a loop. */
+	YIELDING,
+	/** Spin continuously. Lowest latency; each processing thread keeps a core busy. */
+	BUSY_SPIN
+}
@@ -1,5 +1,8 @@
 package intrinio.realtime.composite;
 
+import intrinio.realtime.options.ExpirationCalendar;
+import intrinio.realtime.options.OptionContractKey;
+
 import java.util.Date;
 
 public class BlackScholesGreekCalculator {
@@ -11,11 +14,25 @@ public class BlackScholesGreekCalculator {
     private static final double root2Pi = Math.sqrt(2.0D * Math.PI);
 
     public static Greek calculate(double riskFreeInterestRate, double dividendYield, double underlyingPrice, double latestEventUnixTimestamp, double marketPrice, boolean isPut, double strike, Date expirationDate) {
+        double yearsToExpiration = (expirationDate.getTime() / 1000.0D - latestEventUnixTimestamp) / ExpirationCalendar.SECONDS_PER_YEAR;
+        return calculate(riskFreeInterestRate, dividendYield, underlyingPrice, marketPrice, isPut, strike, yearsToExpiration);
+    }
+
+    public static Greek calculate(double riskFreeInterestRate, double dividendYield, double underlyingPrice, double latestEventUnixTimestamp, double marketPrice, OptionContractKey contractKey) {
+        return calculate(riskFreeInterestRate, dividendYield, underlyingPrice, latestEventUnixTimestamp, marketPrice, contractKey.isPut(), contractKey.getStrikeInThousandths() / 1000.0D, contractKey.getExpirationEpochSecond());
+    }
+
+    /**
+     * @param expirationEpochSecond The settlement instant in seconds since 1970-01-01T00:00Z, e.g. from {@link ExpirationCalendar}.
+     */
+    public static Greek calculate(double riskFreeInterestRate, double dividendYield, double underlyingPrice, double latestEventUnixTimestamp, double marketPrice, boolean isPut, double strike, long expirationEpochSecond) {
+        return calculate(riskFreeInterestRate, dividendYield, underlyingPrice, marketPrice, isPut, strike, ExpirationCalendar.getYearsToExpiration(expirationEpochSecond, latestEventUnixTimestamp));
+    }
+
+    private static Greek calculate(double riskFreeInterestRate, double dividendYield, double underlyingPrice, double marketPrice, boolean isPut, double strike, double yearsToExpiration) {
         if (marketPrice <= 0.0D || riskFreeInterestRate <= 0.0D || underlyingPrice <= 0.0D)
             return new Greek(0.0D, 0.0D, 0.0D, 0.0D, 0.0D, false);
 
-        double yearsToExpiration = getYearsToExpiration(latestEventUnixTimestamp, expirationDate);
-
         if (yearsToExpiration <= 0.0D || strike <= 0.0D)
             return new Greek(0.0D, 0.0D, 0.0D, 0.0D, 0.0D, false);
 
@@ -133,9 +150,4 @@ public class BlackScholesGreekCalculator {
         double discountedStrike = Math.exp(-riskFreeInterestRate * yearsToExpiration) * strike;
         return discountedStrike * cumulativeNormalDistribution(-d2) - discountedUnderlying * cumulativeNormalDistribution(-d1);
     }
-
-    private static double getYearsToExpiration(double latestActivityUnixTime, Date expirationDate) {
-        double expiration = expirationDate.getTime() / 1000.0D;
-        return (expiration - latestActivityUnixTime) / 31557600.0D;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package intrinio.realtime.composite;
+
+import intrinio.realtime.options.Client;
+import intrinio.realtime.options.ExpirationCalendar;
+import intrinio.realtime.options.OptionContractKey;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps an options client joined to just the contracts of one underlying that are near the money and within a range of days to expiration,
+ * joining and leaving contracts as the underlying price moves. Feed it prices with {@link #onUnderlyingPrice(double)}, or pass
+ * {@link #onEquitiesTradeUpdated(SecurityData, DataCache, intrinio.realtime.equities.Trade)} as the cache's equities trade callback.
+ * <p>
+ * A contract is joined when its strike is within the moneyness band of the price, and left only once it is outside the band widened by
+ * the hysteresis, so contracts near the edge do not flap. The chain is only re-evaluated once the price has moved half the hysteresis
+ * margin (or the date has changed), and each re-evaluation sends its joins and leaves as one batch.
+ */
+public final class ChainSubscription {
+    private final Client client;
+    private final String underlying;
+    private final int minDaysToExpiration;
+    private final int maxDaysToExpiration;
+    private final double moneynessBand;
+    private double hysteresis = 0.25D;
+    private OptionContractKey[] keys = new OptionContractKey[0];
+    private String[] contracts = new String[0];
+    private boolean[] joined = new boolean[0];
+    private double lastPrice = Double.NaN;
+    private double evaluatedPrice = Double.NaN;
+    private long evaluatedDay = Long.MIN_VALUE;
+
+    /**
+     * @param moneynessBand How far the strike may be from the underlying price, as a fraction of the price, e.g. 0.05 for within 5%.
+     */
+    public ChainSubscription(Client client, String underlying, int minDaysToExpiration, int maxDaysToExpiration, double moneynessBand) {
+        this.client = client;
+        this.underlying = underlying;
+        this.minDaysToExpiration = minDaysToExpiration;
+        this.maxDaysToExpiration = maxDaysToExpiration;
+        this.moneynessBand = moneynessBand;
+    }
+
+    public String getUnderlying() {
+        return underlying;
+    }
+
+    /**
+     * How much wider than the moneyness band a joined contract may drift before it is left, as a fraction of the band. Defaults to 0.25.
+     */
+    public synchronized void setHysteresis(double hysteresis) {
+        this.hysteresis = hysteresis;
+    }
+
+    /**
+     * The contracts to choose from, in the standard OCC format (e.g. from a chain lookup). Contracts on other underlyings are ignored,
+     * and contracts that are not in the OCC format are skipped and logged. Contracts no longer listed are left.
+     */
+    public synchronized CompletableFuture<Void> setContracts(Collection<String> contracts) {
+        ArrayList<OptionContractKey> keys = new ArrayList<OptionContractKey>(contracts.size());
+        for (String contract : contracts) {
+            OptionContractKey key = contract == null ? null : OptionContractKey.tryParse(contract);
+            if (key == null)
+                Log("Skipping malformed contract: " + contract);
+            else if (key.getUnderlyingSymbol().equals(underlying))
+                keys.add(key);
+        }
+        HashSet<OptionContractKey> stillJoined = new HashSet<OptionContractKey>();
+        for (int i = 0; i < this.keys.length; i++) {
+            if (joined[i])
+                stillJoined.add(this.keys[i]);
+        }
+        boolean[] wasJoined = new boolean[keys.size()];
+        String[] names = new String[keys.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = keys.get(i).toString();
+            wasJoined[i] = stillJoined.remove(keys.get(i));
+        }
+        //Whatever is left was joined but is no longer listed.
+        ArrayList<String> leaves = new ArrayList<String>(stillJoined.size());
+        for (OptionContractKey key : stillJoined)
+            leaves.add(key.toString());
+        this.keys = keys.toArray(new OptionContractKey[0]);
+        this.contracts = names;
+        this.joined = wasJoined;
+        this.evaluatedDay = Long.MIN_VALUE;
+        CompletableFuture<Void> rebalanced = Double.isNaN(lastPrice) ? CompletableFuture.completedFuture(null) : rebalance(lastPrice);
+        return leaves.isEmpty() ? rebalanced : CompletableFuture.allOf(rebalanced, client.leaveAsync(leaves.toArray(new String[0])));
+    }
+
+    /**
+     * Moves the subscription to a new underlying price. Cheap when the price has not moved enough to matter.
+     */
+    public synchronized CompletableFuture<Void> onUnderlyingPrice(double price) {
+        if (!(price > 0.0D))
+            return CompletableFuture.completedFuture(null);
+        lastPrice = price;
+        return rebalance(price);
+    }
+
+    /**
+     * Matches {@link OnEquitiesTradeUpdated}, so it can be set as the cache's callback (or called from one) to follow the equities feed.
+     */
+    public void onEquitiesTradeUpdated(SecurityData securityData, DataCache dataCache, intrinio.realtime.equities.Trade trade) {
+        if (underlying.equals(trade.symbol()))
+            onUnderlyingPrice(trade.price());
+    }
+
+    /**
+     * Moves the subscription to the latest equities trade for the underlying in the cache, if there is one.
+     */
+    public CompletableFuture<Void> refresh(DataCache dataCache) {
+        intrinio.realtime.equities.Trade trade = dataCache.getLatestEquityTrade(underlying);
+        return trade == null ? CompletableFuture.completedFuture(null) : onUnderlyingPrice(trade.price());
+    }
+
+    /**
+     * The contracts currently joined by this subscription.
+     */
+    public synchronized List<String> getJoinedContracts() {
+        ArrayList<String> result = new ArrayList<String>();
+        for (int i = 0; i < contracts.length; i++) {
+            if (joined[i])
+                result.add(contracts[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Leaves every contract this subscription joined.
+     */
+    public synchronized CompletableFuture<Void> close() {
+        List<String> leaves = getJoinedContracts();
+        Arrays.fill(joined, false);
+        evaluatedDay = Long.MIN_VALUE;
+        lastPrice = Double.NaN;
+        return client.leaveAsync(leaves.toArray(new String[0]));
+    }
+
+    private CompletableFuture<Void> rebalance(double price) {
+        long today = LocalDate.now(ExpirationCalendar.TIME_ZONE).toEpochDay();
+        if (today == evaluatedDay && Math.abs(price / evaluatedPrice - 1.0D) < moneynessBand * hysteresis / 2.0D)
+            return CompletableFuture.completedFuture(null);
+        evaluatedDay = today;
+        evaluatedPrice = price;
+        double enterLow = price * (1.0D - moneynessBand);
+        double enterHigh = price * (1.0D + moneynessBand);
+        double exitLow = price * (1.0D - moneynessBand * (1.0D + hysteresis));
+        double exitHigh = price * (1.0D + moneynessBand * (1.0D + hysteresis));
+        ArrayList<String> joins = new ArrayList<String>();
+        ArrayList<String> leaves = new ArrayList<String>();
+        for (int i = 0; i < keys.length; i++) {
+            long days = keys[i].getExpirationEpochDay() - today;
+            boolean inDays = days >= minDaysToExpiration && days <= maxDaysToExpiration;
+            double strike = keys[i].getStrikeInThousandths() / 1000.0D;
+            if (joined[i]) {
+                if (!inDays || strike < exitLow || strike > exitHigh) {
+                    joined[i] = false;
+                    leaves.add(contracts[i]);
+                }
+            } else if (inDays && strike >= enterLow && strike <= enterHigh) {
+                joined[i] = true;
+                joins.add(contracts[i]);
+            }
+        }
+        if (joins.isEmpty() && leaves.isEmpty())
+            return CompletableFuture.completedFuture(null);
+        return client.updateAsync(joins.toArray(new String[0]), leaves.toArray(new String[0]));
+    }
+
+    private void Log(String message){
+        System.out.println(message);
+    }
+}
@@ -1,14 +1,31 @@
 package intrinio.realtime.composite;
 
+import intrinio.realtime.common.IdIndex;
+import intrinio.realtime.common.Metrics;
+import intrinio.realtime.common.MetricsRegistry;
+
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 class CurrentDataCache implements DataCache {
     private final ConcurrentHashMap<String, SecurityData> securities = new ConcurrentHashMap<>();
     private final Map<String, SecurityData> readonlySecurities = Collections.unmodifiableMap(securities);
     private final ConcurrentHashMap<String, Double> supplementaryData = new ConcurrentHashMap<>();
     private final Map<String, Double> readonlySupplementaryData = Collections.unmodifiableMap(supplementaryData);
+    private final IdIndex<SecurityData> securitiesBySymbolId = new IdIndex<>();
+    private final MetricsRegistry metrics = new MetricsRegistry("DataCache");
+    private final LongAdder equityTradeUpdates = metrics.counter("EquityTradeUpdates");
+    private final LongAdder equityQuoteUpdates = metrics.counter("EquityQuoteUpdates");
+    private final LongAdder optionTradeUpdates = metrics.counter("OptionTradeUpdates");
+    private final LongAdder optionQuoteUpdates = metrics.counter("OptionQuoteUpdates");
+    private final LongAdder optionRefreshUpdates = metrics.counter("OptionRefreshUpdates");
+    private final LongAdder optionUnusualActivityUpdates = metrics.counter("OptionUnusualActivityUpdates");
+    private final LongAdder supplementalDatumUpdates = metrics.counter("SupplementalDatumUpdates");
+    private final LongAdder greekUpdates = metrics.counter("GreekUpdates");
+    private final LongAdder ignoredUpdates = metrics.counter("IgnoredUpdates");
+    private final LongAdder callbackExceptions = metrics.counter("CallbackExceptions");
 
     private OnSupplementalDatumUpdated supplementalDatumUpdatedCallback;
     private OnSecuritySupplementalDatumUpdated securitySupplementalDatumUpdatedCallback;
@@ -25,6 +42,36 @@ class CurrentDataCache implements DataCache {
     private OnOptionsUnusualActivityUpdated optionsUnusualActivityUpdatedCallback;
 
     public CurrentDataCache() {
+        metrics.gauge("Securities", securities::size);
+        metrics.gauge("OptionsContracts", this::getOptionsContractCount);
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public void publishMetrics() {
+        try {
+            metrics.register();
+        } catch (Exception e) {
+            Log("Metrics not published over JMX. " + e.getMessage());
+        }
+    }
+
+    public void unpublishMetrics() {
+        try {
+            metrics.unregister();
+        } catch (Exception e) {
+            Log("Metrics not unpublished from JMX. " + e.getMessage());
+        }
+    }
+
+    /**
+     * Counts an exception thrown by one of the cache's update callbacks.
+     */
+    static void recordCallbackException(DataCache dataCache) {
+        if (dataCache instanceof CurrentDataCache currentDataCache)
+            currentDataCache.callbackExceptions.increment();
     }
 
     public Double getSupplementaryDatum(String key) {
@@ -33,11 +80,12 @@ class CurrentDataCache implements DataCache {
 
     public boolean setSupplementaryDatum(String key, Double datum, SupplementalDatumUpdate update) {
         Double newValue = supplementaryData.compute(key, (k, oldValue) -> update.supplementalDatumUpdate(k, oldValue, datum));
-        boolean result = java.util.Objects.equals(datum, newValue);
+        boolean result = count(java.util.Objects.equals(datum, newValue), supplementalDatumUpdates);
         if (result && supplementalDatumUpdatedCallback != null) {
             try {
                 supplementalDatumUpdatedCallback.onSupplementalDatumUpdated(key, datum, this);
             } catch (Exception e) {
+                callbackExceptions.increment();
                 Log("Error in OnSupplementalDatumUpdated Callback: " + e.getMessage());
             }
         }
@@ -56,7 +104,7 @@ class CurrentDataCache implements DataCache {
     public boolean setSecuritySupplementalDatum(String tickerSymbol, String key, Double datum, SupplementalDatumUpdate update) {
         if (tickerSymbol != null && !tickerSymbol.trim().isEmpty()) {
             SecurityData securityData = securities.computeIfAbsent(tickerSymbol, k -> new CurrentSecurityData(tickerSymbol, null, null, null));
-            return securityData.setSupplementaryDatum(key, datum, securitySupplementalDatumUpdatedCallback, this, update);
+            return count(securityData.setSupplementaryDatum(key, datum, securitySupplementalDatumUpdatedCallback, this, update), supplementalDatumUpdates);
         }
         return false;
     }
@@ -69,7 +117,7 @@ class CurrentDataCache implements DataCache {
     public boolean setOptionSupplementalDatum(String tickerSymbol, String contract, String key, Double datum, SupplementalDatumUpdate update) {
         if (tickerSymbol != null && !tickerSymbol.trim().isEmpty()) {
             SecurityData securityData = securities.computeIfAbsent(tickerSymbol, k -> new CurrentSecurityData(tickerSymbol, null, null, null));
-            return securityData.setOptionsContractSupplementalDatum(contract, key, datum, optionsContractSupplementalDatumUpdatedCallback, this, update);
+            return count(securityData.setOptionsContractSupplementalDatum(contract, key, datum, optionsContractSupplementalDatumUpdatedCallback, this, update), supplementalDatumUpdates);
         }
         return false;
     }
@@ -82,7 +130,7 @@ class CurrentDataCache implements DataCache {
     public boolean setOptionGreekData(String tickerSymbol, String contract, String key, Greek data, GreekDataUpdate update) {
         if (tickerSymbol != null && !tickerSymbol.trim().isEmpty()) {
             SecurityData securityData = securities.computeIfAbsent(tickerSymbol, k -> new CurrentSecurityData(tickerSymbol, null, null, null));
-            return securityData.setOptionsContractGreekData(contract, key, data, optionsContractGreekDataUpdatedCallback, this, update);
+            return count(securityData.setOptionsContractGreekData(contract, key, data, optionsContractGreekDataUpdatedCallback, this, update), greekUpdates);
         }
         return false;
     }
@@ -112,9 +160,13 @@ class CurrentDataCache implements DataCache {
 
     public boolean setEquityTrade(intrinio.realtime.equities.Trade trade) {
         if (trade != null) {
-            String symbol = trade.symbol();
-            SecurityData securityData = securities.computeIfAbsent(symbol, k -> new CurrentSecurityData(symbol, trade, null, null));
-            return securityData.setEquitiesTrade(trade, equitiesTradeUpdatedCallback, this);
+            SecurityData securityData = securitiesBySymbolId.get(trade.symbolId());
+            if (securityData == null) {
+                String symbol = trade.symbol();
+                securityData = securities.computeIfAbsent(symbol, k -> new CurrentSecurityData(symbol, trade, null, null));
+                securitiesBySymbolId.set(trade.symbolId(), securityData);
+            }
+            return count(securityData.setEquitiesTrade(trade, equitiesTradeUpdatedCallback, this), equityTradeUpdates);
         }
         return false;
     }
@@ -135,9 +187,13 @@ class CurrentDataCache implements DataCache {
 
     public boolean setEquityQuote(intrinio.realtime.equities.Quote quote) {
         if (quote != null) {
-            String symbol = quote.symbol();
-            SecurityData securityData = securities.computeIfAbsent(symbol, k -> new CurrentSecurityData(symbol, null, quote.type() == intrinio.realtime.equities.QuoteType.ASK ? quote : null, quote.type() == intrinio.realtime.equities.QuoteType.BID ? quote : null));
-            return securityData.setEquitiesQuote(quote, equitiesQuoteUpdatedCallback, this);
+            SecurityData securityData = securitiesBySymbolId.get(quote.symbolId());
+            if (securityData == null) {
+                String symbol = quote.symbol();
+                securityData = securities.computeIfAbsent(symbol, k -> new CurrentSecurityData(symbol, null, quote.type() == intrinio.realtime.equities.QuoteType.ASK ? quote : null, quote.type() == intrinio.realtime.equities.QuoteType.BID ? quote : null));
+                securitiesBySymbolId.set(quote.symbolId(), securityData);
+            }
+            return count(securityData.setEquitiesQuote(quote, equitiesQuoteUpdatedCallback, this), equityQuoteUpdates);
         }
         return false;
     }
@@ -153,9 +209,8 @@ class CurrentDataCache implements DataCache {
 
     public boolean setOptionsTrade(intrinio.realtime.options.Trade trade) {
         if (trade != null) {
-            String underlyingSymbol = trade.getUnderlyingSymbol();
-            SecurityData securityData = securities.computeIfAbsent(underlyingSymbol, k -> new CurrentSecurityData(underlyingSymbol, null, null, null));
-            return securityData.setOptionsContractTrade(trade, optionsTradeUpdatedCallback, this);
+            SecurityData securityData = getUnderlyingSecurity(trade.contractKey(), trade.contract());
+            return count(securityData.setOptionsContractTrade(trade, optionsTradeUpdatedCallback, this), optionTradeUpdates);
         }
         return false;
     }
@@ -171,9 +226,8 @@ class CurrentDataCache implements DataCache {
 
     public boolean setOptionsQuote(intrinio.realtime.options.Quote quote) {
         if (quote != null) {
-            String underlyingSymbol = quote.getUnderlyingSymbol();
-            SecurityData securityData = securities.computeIfAbsent(underlyingSymbol, k -> new CurrentSecurityData(underlyingSymbol, null, null, null));
-            return securityData.setOptionsContractQuote(quote, optionsQuoteUpdatedCallback, this);
+            SecurityData securityData = getUnderlyingSecurity(quote.contractKey(), quote.contract());
+            return count(securityData.setOptionsContractQuote(quote, optionsQuoteUpdatedCallback, this), optionQuoteUpdates);
         }
         return false;
     }
@@ -189,9 +243,8 @@ class CurrentDataCache implements DataCache {
 
     public boolean setOptionsRefresh(intrinio.realtime.options.Refresh refresh) {
         if (refresh != null) {
-            String underlyingSymbol = refresh.getUnderlyingSymbol();
-            SecurityData securityData = securities.computeIfAbsent(underlyingSymbol, k -> new CurrentSecurityData(underlyingSymbol, null, null, null));
-            return securityData.setOptionsContractRefresh(refresh, optionsRefreshUpdatedCallback, this);
+            SecurityData securityData = getUnderlyingSecurity(refresh.contractKey(), refresh.contract());
+            return count(securityData.setOptionsContractRefresh(refresh, optionsRefreshUpdatedCallback, this), optionRefreshUpdates);
         }
         return false;
     }
@@ -207,9 +260,8 @@ class CurrentDataCache implements DataCache {
 
     public boolean setOptionsUnusualActivity(intrinio.realtime.options.UnusualActivity unusualActivity) {
         if (unusualActivity != null) {
-            String underlyingSymbol = unusualActivity.getUnderlyingSymbol();
-            SecurityData securityData = securities.computeIfAbsent(underlyingSymbol, k -> new CurrentSecurityData(underlyingSymbol, null, null, null));
-            return securityData.setOptionsContractUnusualActivity(unusualActivity, optionsUnusualActivityUpdatedCallback, this);
+            SecurityData securityData = getUnderlyingSecurity(unusualActivity.contractKey(), unusualActivity.contract());
+            return count(securityData.setOptionsContractUnusualActivity(unusualActivity, optionsUnusualActivityUpdatedCallback, this), optionUnusualActivityUpdates);
         }
         return false;
     }
@@ -218,6 +270,38 @@ class CurrentDataCache implements DataCache {
         setOptionsUnusualActivity(unusualActivity);
     }
 
+    /**
+     * Counts an update against {@code counter} if it was applied, or as ignored if the cache already held newer data.
+     */
+    private boolean count(boolean updated, LongAdder counter) {
+        (updated ? counter : ignoredUpdates).increment();
+        return updated;
+    }
+
+    private long getOptionsContractCount() {
+        long count = 0L;
+        for (SecurityData securityData : securities.values())
+            count += securityData.getAllOptionsContractData().size();
+        return count;
+    }
+
+    /**
+     * The underlying's security, found by the key's underlying id, or by the leading symbol of a contract that has no key.
+     */
+    private SecurityData getUnderlyingSecurity(intrinio.realtime.options.OptionContractKey contractKey, String contract) {
+        if (contractKey == null) {
+            String underlyingSymbol = intrinio.realtime.options.OptionContractKey.parseUnderlyingSymbol(contract);
+            return securities.computeIfAbsent(underlyingSymbol, k -> new CurrentSecurityData(underlyingSymbol, null, null, null));
+        }
+        SecurityData securityData = securitiesBySymbolId.get(contractKey.getUnderlyingId());
+        if (securityData == null) {
+            String underlyingSymbol = contractKey.getUnderlyingSymbol();
+            securityData = securities.computeIfAbsent(underlyingSymbol, k -> new CurrentSecurityData(underlyingSymbol, null, null, null));
+            securitiesBySymbolId.set(contractKey.getUnderlyingId(), securityData);
+        }
+        return securityData;
+    }
+
     public OnSupplementalDatumUpdated getSupplementalDatumUpdatedCallback() {
         return supplementalDatumUpdatedCallback;
     }
@@ -77,6 +77,7 @@ class CurrentOptionsContractData implements OptionsContractData {
             try {
                 onOptionsTradeUpdated.onOptionsTradeUpdated(this, dataCache, securityData, trade);
             } catch (Exception e) {
+                CurrentDataCache.recordCallbackException(dataCache);
                 Log("Error in OnOptionsTradeUpdated Callback: " + e.getMessage());
             }
         }
@@ -100,6 +101,7 @@ class CurrentOptionsContractData implements OptionsContractData {
             try {
                 onOptionsQuoteUpdated.onOptionsQuoteUpdated(this, dataCache, securityData, quote);
             } catch (Exception e) {
+                CurrentDataCache.recordCallbackException(dataCache);
                 Log("Error in onOptionsQuoteUpdated Callback: " + e.getMessage());
             }
         }
@@ -119,6 +121,7 @@ class CurrentOptionsContractData implements OptionsContractData {
             try {
                 onOptionsRefreshUpdated.onOptionsRefreshUpdated(this, dataCache, securityData, refresh);
             } catch (Exception e) {
+                CurrentDataCache.recordCallbackException(dataCache);
                 Log("Error in onOptionsRefreshUpdated Callback: " + e.getMessage());
             }
         }
@@ -138,6 +141,7 @@ class CurrentOptionsContractData implements OptionsContractData {
             try {
                 onOptionsUnusualActivityUpdated.onOptionsUnusualActivityUpdated(this, dataCache, securityData, unusualActivity);
             } catch (Exception e) {
+                CurrentDataCache.recordCallbackException(dataCache);
                 Log("Error in onOptionsUnusualActivityUpdated Callback: " + e.getMessage());
             }
         }
@@ -162,6 +166,7 @@ class CurrentOptionsContractData implements OptionsContractData {
             try {
                 onOptionsContractSupplementalDatumUpdated.onOptionsContractSupplementalDatumUpdated(key, datum, this, securityData, dataCache);
             } catch (Exception e) {
+                CurrentDataCache.recordCallbackException(dataCache);
                 Log("Error in onOptionsContractSupplementalDatumUpdated Callback: " + e.getMessage());
             }
         }
@@ -192,6 +197,7 @@ class CurrentOptionsContractData implements OptionsContractData {
             try {
                 onOptionsContractGreekDataUpdated.onOptionsContractGreekDataUpdated(key, datum, this, securityData, dataCache);
             } catch (Exception e) {
+                CurrentDataCache.recordCallbackException(dataCache);
                 Log("Error in onOptionsContractGreekDataUpdated Callback: " + e.getMessage());
             }
         }
@@ -65,6 +65,7 @@ class CurrentSecurityData implements SecurityData {
             try {
                 onSecuritySupplementalDatumUpdated.onSecuritySupplementalDatumUpdated(key, datum, this, dataCache);
             } catch (Exception e) {
+                CurrentDataCache.recordCallbackException(dataCache);
                 Log("Error in onSecuritySupplementalDatumUpdated Callback: " + e.getMessage());
             }
         }
@@ -93,6 +94,7 @@ class CurrentSecurityData implements SecurityData {
             try {
                 onEquitiesTradeUpdated.onEquitiesTradeUpdated(this, dataCache, trade);
             } catch (Exception e) {
+                CurrentDataCache.recordCallbackException(dataCache);
                 Log("Error in onEquitiesTradeUpdated Callback: " + e.getMessage());
             }
         }
@@ -126,6 +128,7 @@ class CurrentSecurityData implements SecurityData {
             try {
                 onEquitiesQuoteUpdated.onEquitiesQuoteUpdated(this, dataCache, quote);
             } catch (Exception e) {
+                CurrentDataCache.recordCallbackException(dataCache);
                 Log("Error in onEquitiesQuoteUpdated Callback: " + e.getMessage());
             }
         }
@@ -1,5 +1,7 @@
 package intrinio.realtime.composite;
 
+import intrinio.realtime.common.Metrics;
+
 import java.util.Map;
 
 /**
@@ -7,6 +9,26 @@ import java.util.Map;
  */
 public interface DataCache {
 
+    /**
+     * Counts of the updates applied to the cache, by kind, or null if the cache does not keep any.
+     */
+    default Metrics getMetrics() {
+        return null;
+    }
+
+    /**
+     * Publishes {@link #getMetrics()} over JMX as {@code intrinio.realtime:type=DataCache,id=<n>} until {@link #unpublishMetrics()} is called.
+     * Caches are not published unless asked, so a discarded cache leaves nothing registered. Does nothing if the cache keeps no metrics.
+     */
+    default void publishMetrics() {
+    }
+
+    /**
+     * Removes the cache's metrics from JMX, if {@link #publishMetrics()} published them.
+     */
+    default void unpublishMetrics() {
+    }
+
     /**
      * Get a supplementary data point from the general cache.
      */
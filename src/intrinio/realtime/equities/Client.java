@@ -1,60 +1,86 @@
 package intrinio.realtime.equities;
 
-import java.io.BufferedReader;
+import intrinio.realtime.common.Backoff;
+import intrinio.realtime.common.BufferPool;
+import intrinio.realtime.common.FeedArbiter;
+import intrinio.realtime.common.FeedMetrics;
+import intrinio.realtime.common.Frame;
+import intrinio.realtime.common.FrameAssembler;
+import intrinio.realtime.common.FrameDispatcher;
+import intrinio.realtime.common.LatencyHistogram;
+import intrinio.realtime.common.LatencyTracker;
+import intrinio.realtime.common.MarketHours;
+import intrinio.realtime.common.Metrics;
+import intrinio.realtime.common.MetricsRegistry;
+import intrinio.realtime.common.OverflowPolicy;
+import intrinio.realtime.common.SubscriptionRegistry;
+import intrinio.realtime.common.SubscriptionSender;
+
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.ProtocolException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocketHandshakeException;
 import java.net.http.WebSocket;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BooleanSupplier;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class Client implements WebSocket.Listener {
 	//region Final Data Members
+	private static final String[] CALLBACK_NAMES = {"Trade", "Quote"};
 	private final String FirehoseChannelName = "lobby";
-	private final long[] selfHealBackoffs = {1000, 30000, 60000, 300000, 600000};
-	private final ReentrantReadWriteLock tLock = new ReentrantReadWriteLock();
-	private final ReentrantReadWriteLock wsLock = new ReentrantReadWriteLock();
-	private final LinkedBlockingDeque<byte[]> data = new LinkedBlockingDeque<>();
-	private final HashSet<Channel> channels = new HashSet<Channel>();
-	private final WebSocketState wsState = new WebSocketState();
-	private final LinkedBlockingDeque<Tuple<byte[], Boolean>> dataBucket = new LinkedBlockingDeque<Tuple<byte[], Boolean>>();
-	private final Lock dataBucketLock = new ReentrantLock();;
+	private final long selfHealBaseBackoff = 250;
+	private final long selfHealMaxBackoff = 60000;
+	private final Duration tokenRefreshAge = Duration.ofHours(20); //Refreshed in the background, leaving hours of retries before tokenMaxAge
+	private final Duration tokenMaxAge = Duration.ofHours(23); //Tokens expire after 24 hours; an hour of margin for clock skew
+	private final ReentrantLock tLock = new ReentrantLock();
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+	private final ConcurrentHashMap<String, Integer> connectionGroups = new ConcurrentHashMap<String, Integer>();
+	private final MetricsRegistry metricsRegistry = new MetricsRegistry("EquitiesClient");
 	//endregion Final Data Members
 
 	//region Data Members
 	private Config config;
 	private AtomicReference<Token> token = new AtomicReference<Token>(new Token(null, LocalDateTime.now()));
-	private AtomicLong dataMsgCount = new AtomicLong(0l);
-	private AtomicLong textMsgCount = new AtomicLong(0l);
-	private OnTrade onTrade = (Trade trade) -> {};
-	private OnQuote onQuote = (Quote quote) -> {};
+	private volatile CompletableFuture<Void> tokenRefresh = null;
+	private OnTradeBatch onTradeBatch = (Trade[] trades, int count) -> {};
+	private OnQuoteBatch onQuoteBatch = (Quote[] quotes, int count) -> {};
+	private OnTradeView onTradeView = null;
+	private OnQuoteView onQuoteView = null;
 	private Thread[] processDataThreads;
+	private FrameDispatcher dispatcher;
+	private FeedMetrics metrics;
+	private LatencyTracker latency;
+	private Connection[] connections;
+	private int shards = 1;
+	private int legs = 1;
+	private FeedArbiter arbiter;
+	private BufferPool bufferPool;
 	private boolean isCancellationRequested = false;
+	private Thread watchdogThread;
 	private String HeaderClientInformationKey = "Client-Information";
 	private String HeaderClientInformationValue = "IntrinioRealtimeJavaSDKv8.2";
 	private String HeaderMessageVersionKey = "UseNewEquitiesFormat";
 	private String HeaderMessageVersionValue = "v2";
+	private SymbolFilter messageFilter = null;
 	//endregion Data Members
 
 	//region Constructors
@@ -62,6 +88,8 @@ public class Client implements WebSocket.Listener {
 		try {
 			config = Config.load();
 			processDataThreads = new Thread[config.getEquitiesNumThreads()];
+			initializeDataPipeline();
+			initializeConnections();
 		} catch (Exception e) {
 			Client.Log("Initialization Failure. " + e.getMessage());
 		}
@@ -71,6 +99,8 @@ public class Client implements WebSocket.Listener {
 		try {
 			this.config = config;
 			processDataThreads = new Thread[config.getEquitiesNumThreads()];
+			initializeDataPipeline();
+			initializeConnections();
 		} catch (Exception e) {
 			Client.Log("Initialization Failure. " + e.getMessage());
 		}
@@ -78,24 +108,24 @@ public class Client implements WebSocket.Listener {
 
 	public Client(OnTrade onTrade){
 		this();
-		this.onTrade = onTrade;
+		this.onTradeBatch = OnTradeBatch.of(onTrade);
 	}
 
 	public Client(OnTrade onTrade, OnQuote onQuote){
 		this();
-		this.onTrade = onTrade;
-		this.onQuote = onQuote;
+		this.onTradeBatch = OnTradeBatch.of(onTrade);
+		this.onQuoteBatch = OnQuoteBatch.of(onQuote);
 	}
 
 	public Client(OnTrade onTrade, Config config){
 		this(config);
-		this.onTrade = onTrade;
+		this.onTradeBatch = OnTradeBatch.of(onTrade);
 	}
 
 	public Client(OnTrade onTrade, OnQuote onQuote, Config config){
 		this(config);
-		this.onTrade = onTrade;
-		this.onQuote = onQuote;
+		this.onTradeBatch = OnTradeBatch.of(onTrade);
+		this.onQuoteBatch = OnQuoteBatch.of(onQuote);
 	}
 
 	protected void finalize() {
@@ -105,13 +135,102 @@ public class Client implements WebSocket.Listener {
 
 	//region Public Get Set
 	public String getStats() {
-		return String.format("Data Messages = %d, Text Messages = %d, Queue Depth = %d", this.dataMsgCount.get(), this.textMsgCount.get(), getDataSize());
+		long dataMsgCount = 0L;
+		long textMsgCount = 0L;
+		for (Connection connection : connections) {
+			dataMsgCount += connection.dataMsgCount.get();
+			textMsgCount += connection.textMsgCount.get();
+		}
+		String stats = String.format("Data Messages = %d, Text Messages = %d, Queue Depth = %d", dataMsgCount, textMsgCount, getDataSize());
+		if (connections.length > 1) {
+			for (Connection connection : connections)
+				stats += ", " + connection.getStats();
+		}
+		if (arbiter != null)
+			stats += ", " + arbiter.getStats();
+		if (dispatcher.getOverflowPolicy() != OverflowPolicy.BLOCK)
+			stats += ", " + dispatcher.getDropStats();
+		if (messageFilter != null)
+			stats += ", Filtered = " + dispatcher.getFiltered();
+		if (dispatcher.isConflatingQuotes())
+			stats += ", " + dispatcher.getConflationStats();
+		if (latency != null)
+			stats += ", " + latency.getStats();
+		return bufferPool == null ? stats : stats + ", " + bufferPool.getStats();
+	}
+
+	/**
+	 * Counters for what the client has received and how the pipeline is keeping up, also published over JMX while the client is running.
+	 */
+	public Metrics getMetrics() {
+		return metricsRegistry;
+	}
+
+	/**
+	 * Latency histograms for each stage from socket to callback, by name, when {@code equitiesLatencyTrackingEnabled} is set; otherwise empty.
+	 * With {@code reset}, the histograms are cleared as they are read, so calling this on a timer reports each interval.
+	 */
+	public Map<String, LatencyHistogram.Snapshot> getLatencySnapshots(boolean reset) {
+		return latency == null ? Collections.emptyMap() : latency.getSnapshots(reset);
+	}
+
+	/**
+	 * Milliseconds since the quietest connection last received a message, e.g. to alert on a feed that has gone silent.
+	 */
+	public long getLastMessageAgeMillis() {
+		long age = 0L;
+		for (Connection connection : connections)
+			age = Math.max(age, connection.getLastMessageAgeMillis());
+		return age;
+	}
+
+	/**
+	 * The slowest connection's latest ping round trip in microseconds, or -1 before the first pong.
+	 */
+	public long getPingRoundTripMicros() {
+		long roundTrip = -1L;
+		for (Connection connection : connections) {
+			long nanos = connection.pingRoundTripNanos;
+			if (nanos >= 0L)
+				roundTrip = Math.max(roundTrip, nanos / 1000L);
+		}
+		return roundTrip;
+	}
+
+	public void setOnTradeBatch(OnTradeBatch onTradeBatch) {
+		this.onTradeBatch = onTradeBatch;
+	}
+
+	public void setOnQuoteBatch(OnQuoteBatch onQuoteBatch) {
+		this.onQuoteBatch = onQuoteBatch;
+	}
+
+	/**
+	 * Receive trades as a reused flyweight view instead of parsed records. Takes precedence over the other trade callbacks.
+	 */
+	public void setOnTradeView(OnTradeView onTradeView) {
+		this.onTradeView = onTradeView;
+	}
+
+	/**
+	 * Receive quotes as a reused flyweight view instead of parsed records. Takes precedence over the other quote callbacks.
+	 */
+	public void setOnQuoteView(OnQuoteView onQuoteView) {
+		this.onQuoteView = onQuoteView;
+	}
+	/**
+	 * Drop the messages for symbols outside the filter before they are queued, e.g. to narrow a lobby subscription.
+	 * Rejected messages are never parsed. Pass null to deliver every message.
+	 */
+	public void setMessageFilter(SymbolFilter filter) {
+		this.dispatcher.setMessageFilter(filter);
+		this.messageFilter = filter;
 	}
 	//endregion Public Get Set
 
 	//region Private Get Set
 	private int getDataSize() {
-		return dataBucket.size();
+		return dispatcher.size();
 	}
 
 	private String getAuthUrl() throws Exception {
@@ -159,83 +278,40 @@ public class Client implements WebSocket.Listener {
 		return wsUrl;
 	}
 
-	private boolean allReady() {
-		wsLock.readLock().lock();
-		try {
-			return wsState.isReady();
-		} finally {
-			wsLock.readLock().unlock();
-		}
-	}
 	//endregion Private Get Set
 
 	//region Public Methods
+	/**
+	 * @deprecated Each websocket connection now has its own listener, so the client no longer receives socket events.
+	 * Kept for compatibility; forwards to the connection that owns {@code ws}.
+	 */
+	@Deprecated
 	public CompletionStage<Void> onClose(WebSocket ws, int status, String reason) {
-		wsLock.writeLock().lock();
-		try {
-			try {
-				this.wsState.getWebSocket().sendClose(1000, "Client closed");
-			}catch (Exception ex){}
-
-			if (!wsState.isReconnecting()) {
-				Client.Log("Websocket - Closed");
-				wsState.setReady(false);
-				if (!isCancellationRequested){
-					this.wsState.setReconnecting(true);
-					try {
-						new Thread(() -> {
-							try { Thread.sleep(1000); } catch (Exception e){}
-							this.doWithRetryBackoff(() -> reconnect());
-						}).start();
-					}catch (Exception e){}
-				}
-			}
-		} finally {
-			wsLock.writeLock().unlock();
-		}
-		return null;
+		return getConnection(ws).onClose(ws, status, reason);
 	}
 
+	/**
+	 * @deprecated Each websocket connection now has its own listener. Kept for compatibility; forwards to the connection that owns {@code ws}.
+	 */
+	@Deprecated
 	public void onError(WebSocket ws, Throwable err) {
-		try {
-			Client.Log("Websocket - Error - %s", err.getMessage());
-			ws.request(1);
-			if (err.getMessage() == "Operation timed out"){
-				onClose(ws, 1000, "Websocket - Error");
-			}
-		}
-		catch (Exception e){
-			Client.Log("Websocket - Error - %s", e.getMessage());
-		}
+		getConnection(ws).onError(ws, err);
 	}
 
+	/**
+	 * @deprecated Each websocket connection now has its own listener. Kept for compatibility; forwards to the connection that owns {@code ws}.
+	 */
+	@Deprecated
 	public CompletionStage<Void> onText(WebSocket ws, CharSequence data, boolean isComplete) {
-		textMsgCount.addAndGet(1l);
-		if (data != null && data.length() > 0) {
-			try {
-				Client.Log("Error received: %s", data.toString());
-				ws.request(1);
-			}
-			catch (Exception e) {
-				Client.Log("Failure parsing error from server in onText(). " + e.getMessage());
-				ws.request(1);
-			}
-		}
-		else
-			ws.request(1);
-		return null;
+		return getConnection(ws).onText(ws, data, isComplete);
 	}
 
+	/**
+	 * @deprecated Each websocket connection now has its own listener. Kept for compatibility; forwards to the connection that owns {@code ws}.
+	 */
+	@Deprecated
 	public CompletionStage<Void> onBinary(WebSocket ws, ByteBuffer data, boolean isComplete) {
-		dataMsgCount.addAndGet(1);
-		byte[] bytes = new byte[data.remaining()];
-		data.get(bytes);
-		this.dataBucket.add(new Tuple<byte[], Boolean>(bytes, isComplete));
-		if (isComplete) {
-			this.data.add(assembleCompleteDataMessage());
-		}
-		ws.request(1);
-		return null;
+		return getConnection(ws).onBinary(ws, data, isComplete);
 	}
 
 	public static void Log(String message) {
@@ -247,30 +323,11 @@ public class Client implements WebSocket.Listener {
 	}
 
 	public void join() {
-		while (!this.allReady()) {
-			try {
-				Thread.sleep(1000);
-			} catch (InterruptedException e) {}
-		}
-		String[] symbols = config.getEquitiesSymbols();
-		boolean tradesOnly = config.isEquitiesTradesOnly();
-		for (String symbol : symbols) {
-			if (!this.channels.contains(new Channel(symbol, tradesOnly))) {
-				this._join(symbol, tradesOnly);
-			}
-		}
+		this.joinAsync(config.getEquitiesSymbols(), config.isEquitiesTradesOnly());
 	}
 
 	public void join(String symbol, boolean tradesOnly) {
-		boolean t = tradesOnly || config.isEquitiesTradesOnly();
-		while (!this.allReady()) {
-			try {
-				Thread.sleep(1000);
-			} catch (InterruptedException e) {}
-		}
-		if (!this.channels.contains(new Channel(symbol, tradesOnly))) {
-			this._join(symbol, t);
-		}
+		this.joinAsync(new String[]{symbol}, tradesOnly);
 	}
 
 	public void join(String symbol) {
@@ -278,21 +335,41 @@ public class Client implements WebSocket.Listener {
 	}
 
 	public void join(String[] symbols, boolean tradesOnly) {
+		this.joinAsync(symbols, tradesOnly);
+	}
+
+	public void join(String[] symbols) {
+		this.join(symbols, false);
+	}
+
+	/**
+	 * Joins all the channels in one pipelined batch, or as soon as the client connects. The future completes when every join has been sent.
+	 */
+	public CompletableFuture<Void> joinAsync(String[] symbols, boolean tradesOnly) {
 		boolean t = tradesOnly || config.isEquitiesTradesOnly();
-		while (!this.allReady()) {
-			try {
-				Thread.sleep(1000);
-			} catch (InterruptedException e) {}
-		}
+		boolean[] touched = new boolean[shards];
 		for (String symbol : symbols) {
-			if (!this.channels.contains(new Channel(symbol, t))) {
-				this._join(symbol, t);
-			}
+			int shard = getShard(symbol);
+			for (int leg = 0; leg < legs; leg++)
+				connections[shard * legs + leg].channels.add(new Channel(symbol, t));
+			touched[shard] = true;
 		}
+		return this.flushSubscriptions(touched);
 	}
 
-	public void join(String[] symbols) {
-		this.join(symbols, false);
+	/**
+	 * Makes the joined channels exactly {@code symbols}, e.g. to swap a watchlist. Only the channels that change are joined or left.
+	 */
+	public CompletableFuture<Void> replaceAsync(String[] symbols, boolean tradesOnly) {
+		boolean t = tradesOnly || config.isEquitiesTradesOnly();
+		List<List<Channel>> replacements = new ArrayList<List<Channel>>(shards);
+		for (int i = 0; i < shards; i++)
+			replacements.add(new ArrayList<Channel>());
+		for (String symbol : symbols)
+			replacements.get(getShard(symbol)).add(new Channel(symbol, t));
+		for (Connection connection : connections)
+			connection.channels.replace(replacements.get(connection.shard));
+		return this.flushSubscriptions(null);
 	}
 
 	public void joinLobby(){
@@ -300,53 +377,82 @@ public class Client implements WebSocket.Listener {
 	}
 
 	public void joinLobby(boolean tradesOnly){
-		boolean t = tradesOnly || config.isEquitiesTradesOnly();
-		while (!this.allReady()) {
-			try {
-				Thread.sleep(1000);
-			} catch (InterruptedException e) {}
-		}
-		if (!this.channels.contains(new Channel(FirehoseChannelName, tradesOnly))) {
-			this._join(FirehoseChannelName, t);
-		}
+		this.joinAsync(new String[]{FirehoseChannelName}, tradesOnly);
 	}
 
 	public void leave() {
-		for (Channel channel : this.channels) {
-			this._leave(channel.symbol(), channel.tradesOnly());
-		}
+		for (Connection connection : connections)
+			connection.channels.replace(Collections.<Channel>emptyList());
+		this.flushSubscriptions(null);
 	}
 
 	public void leave(String symbol) {
-		for (Channel channel : this.channels) {
-			if (channel.symbol() == symbol) {
-				this._leave(symbol, channel.tradesOnly());
-			}
-		}
+		this.leaveAsync(new String[]{symbol});
 	}
 
 	public void leaveLobby(){
-		for (Channel channel : this.channels) {
-			if (channel.symbol() == FirehoseChannelName) {
-				this._leave(FirehoseChannelName, channel.tradesOnly());
+		this.leaveAsync(new String[]{FirehoseChannelName});
+	}
+
+	public void leave(String[] symbols) {
+		this.leaveAsync(symbols);
+	}
+
+	/**
+	 * Leaves all the channels for the symbols in one pipelined batch. The future completes when every leave has been sent.
+	 */
+	public CompletableFuture<Void> leaveAsync(String[] symbols) {
+		boolean[] touched = new boolean[shards];
+		for (String symbol : symbols) {
+			int shard = getShard(symbol);
+			for (int leg = 0; leg < legs; leg++) {
+				Connection connection = connections[shard * legs + leg];
+				connection.channels.remove(new Channel(symbol, true));
+				connection.channels.remove(new Channel(symbol, false));
 			}
+			touched[shard] = true;
 		}
+		return this.flushSubscriptions(touched);
 	}
 
-	public void leave(String[] symbols) {
+	/**
+	 * Routes the symbols to one connection instead of spreading them by hash, e.g. to isolate the busiest symbols.
+	 * Symbols already joined on another connection are moved. Connections are numbered from 0 to {@code equitiesConnections} - 1;
+	 * with hot standby both legs of a connection carry its symbols.
+	 */
+	public CompletableFuture<Void> assignConnection(String[] symbols, int connection) {
+		if (connection < 0 || connection >= shards)
+			throw new IllegalArgumentException("Connection out of range: " + connection);
+		boolean[] touched = new boolean[shards];
 		for (String symbol : symbols) {
-			for (Channel channel : this.channels) {
-				if (channel.symbol() == symbol) {
-					this._leave(symbol, channel.tradesOnly());
+			int current = getShard(symbol);
+			connectionGroups.put(symbol, connection);
+			if (current == connection)
+				continue;
+			for (int leg = 0; leg < legs; leg++) {
+				for (boolean tradesOnly : new boolean[]{true, false}) {
+					Channel channel = new Channel(symbol, tradesOnly);
+					if (connections[current * legs + leg].channels.remove(channel)) {
+						connections[connection * legs + leg].channels.add(channel);
+						touched[current] = true;
+						touched[connection] = true;
+					}
 				}
 			}
 		}
+		return this.flushSubscriptions(touched);
 	}
 
 	public void start() throws Exception{
 		String token = this.fetchToken();
-		this.initializeWebSocket(token);
+		for (Connection connection : connections)
+			connection.initializeWebSocket(token);
 		this.startThreads();
+		try {
+			metricsRegistry.register();
+		} catch (Exception e) {
+			Client.Log("Metrics not published over JMX. " + e.getMessage());
+		}
 	}
 
 	public void stop() {
@@ -354,54 +460,68 @@ public class Client implements WebSocket.Listener {
 		try {
 			Thread.sleep(1000);
 		} catch (Exception e) {}
-		wsLock.writeLock().lock();
-		try {
-			wsState.setReady(false);
-		} catch (Exception e) {}
-		finally {
-			wsLock.writeLock().unlock();
+		for (Connection connection : connections) {
+			connection.wsLock.writeLock().lock();
+			try {
+				connection.wsState.setReady(false);
+			} catch (Exception e) {}
+			finally {
+				connection.wsLock.writeLock().unlock();
+			}
 		}
 		Client.Log("Websocket - Closing");
 		stopThreads(); //this sets isCancellationRequested = true so the following close event doesn't try to reconnect
-		onClose(this.wsState.getWebSocket(), 1000, "Websocket - Error");
+		CompletableFuture<Void> tokenRefresh = this.tokenRefresh;
+		if (tokenRefresh != null)
+			tokenRefresh.cancel(false);
+		for (Connection connection : connections)
+			connection.onClose(connection.wsState.getWebSocket(), 1000, "Websocket - Error");
+		try {
+			metricsRegistry.unregister();
+		} catch (Exception e) {}
 		Client.Log("Stopped");
 	}
 	//endregion Public Methods
 
 	//region Private Methods
-	private void processData(){
+	/**
+	 * The connection whose current socket is {@code ws}, or the first connection if none is.
+	 */
+	private Connection getConnection(WebSocket ws) {
+		for (Connection connection : connections) {
+			if (connection.wsState.getWebSocket() == ws)
+				return connection;
+		}
+		return connections[0];
+	}
+
+	private void processData(int worker){
+		Frame frame = new Frame();
+		EventBatch batch = new EventBatch();
+		//Conflated quotes are delivered by the same threads as everything else, so each symbol still has a single writer.
+		byte[] conflated = dispatcher.isConflatingQuotes() ? new byte[1 + 255 * 255] : null; //At most 255 messages of at most 255 bytes
 		while (!this.isCancellationRequested) {
-			int count, offset, messageLength;
-			byte type;
-			ByteBuffer buffer, offsetBuffer;
 			try {
-				byte[] datum = data.poll(1, TimeUnit.SECONDS);
-				if (datum != null) {
-					count = datum[0];
-					offset = 1;
-					buffer = ByteBuffer.wrap(datum);
-					buffer.position(0);
-					buffer.limit(datum.length);
-					for (long i = 0L; i < count; i++) {
-						buffer.position(0);
-						type = datum[offset];
-						messageLength = datum[offset + 1];
-						offsetBuffer = buffer.slice(offset, messageLength);
-						switch (type) {
-							case 0:
-								Trade trade = Trade.parse(offsetBuffer);
-								onTrade.onTrade(trade);
-								break;
-							case 1:
-							case 2:
-								Quote quote = Quote.parse(offsetBuffer);
-								onQuote.onQuote(quote);
-								break;
-							default:
-								Client.Log("Error parsing multi-part message. Type is %d", type);
-								i = count;
-						}
-						offset += messageLength;
+				if (dispatcher.poll(worker, frame, 1, TimeUnit.SECONDS)) {
+					if (latency != null) {
+						long dequeuedNanos = System.nanoTime();
+						latency.recordDequeue(frame.getBytes(), frame.getLength(), frame.getReceivedNanos(), dequeuedNanos);
+						batch.receivedNanos = frame.getReceivedNanos();
+						batch.markNanos = dequeuedNanos;
+					}
+					try {
+						processFrame(frame.getBytes(), frame.getLength(), batch);
+					} finally {
+						releaseFrame(frame);
+					}
+				}
+				if (conflated != null) {
+					int length = dispatcher.drainQuotes(worker, conflated);
+					if (length > 0) {
+						//Conflated quotes have no single receive time, so they only feed the parse and callback stages.
+						batch.receivedNanos = 0L;
+						batch.markNanos = latency != null ? System.nanoTime() : 0L;
+						processFrame(conflated, length, batch);
 					}
 				}
 			} catch (Exception ex)
@@ -411,131 +531,301 @@ public class Client implements WebSocket.Listener {
 		}
 	}
 
-	private void startThreads() throws Exception{
-		this.isCancellationRequested = false;
-		for (int i = 0; i < processDataThreads.length; i++) {
-			processDataThreads[i] = new Thread(()->processData());
-		}
-		for (Thread thread : processDataThreads) {
-			thread.start();
+	/**
+	 * Parses the frame and delivers its messages. A message that cannot be parsed ends the frame and counts as a parse error;
+	 * the messages before it are still delivered. An exception thrown by a callback counts against the callback and does not stop the frame.
+	 * Trades and quotes are batched and delivered before the next view callback, or at the end of the frame, so the callbacks
+	 * see the frame's messages in order except that within a batch the trades come before the quotes.
+	 */
+	private void processFrame(byte[] datum, int length, EventBatch batch) {
+		try {
+			parseFrame(datum, length, batch);
+		} catch (Exception ex) {
+			metrics.recordParseError();
+			Client.Log("Error parsing message. " + ex.getMessage());
 		}
+		flushBatches(batch);
 	}
 
-	private void stopThreads(){
-		this.isCancellationRequested = true;
+	/**
+	 * Delivers the trades and quotes batched so far, the trades first, and empties the batch.
+	 */
+	private void flushBatches(EventBatch batch) {
 		try {
-			Thread.sleep(1000);
-		}catch (Exception e){}
-		for (Thread thread : processDataThreads) {
-			try {
-				thread.join();
-			}catch (Exception e){}
+			if (batch.tradeCount > 0) {
+				long entryNanos = enterCallback();
+				try {
+					onTradeBatch.onTrades(batch.trades, batch.tradeCount);
+				} catch (Exception ex) {
+					onCallbackException(ex);
+				}
+				exitCallback(batch, 0, entryNanos);
+			}
+			if (batch.quoteCount > 0) {
+				long entryNanos = enterCallback();
+				try {
+					onQuoteBatch.onQuotes(batch.quotes, batch.quoteCount);
+				} catch (Exception ex) {
+					onCallbackException(ex);
+				}
+				exitCallback(batch, 1, entryNanos);
+			}
+		} finally {
+			batch.tradeCount = 0;
+			batch.quoteCount = 0;
+		}
+	}
+
+	/**
+	 * Fills the batch with the frame's trades and quotes and calls the view callbacks, which catch their own exceptions,
+	 * so anything thrown from here is a parse failure.
+	 */
+	private void parseFrame(byte[] datum, int length, EventBatch batch) {
+		int count, offset, messageLength;
+		byte type;
+		ByteBuffer buffer;
+		count = datum[0] & 0xFF;
+		offset = 1;
+		buffer = ByteBuffer.wrap(datum);
+		buffer.position(0);
+		buffer.limit(length);
+		for (long i = 0L; i < count; i++) {
+			buffer.position(0);
+			if (offset + 1 >= length) {
+				metrics.recordParseError();
+				Client.Log("Error parsing multi-part message. Message %d of %d starts past the end of the frame", i + 1, count);
+				return;
+			}
+			type = datum[offset];
+			messageLength = datum[offset + 1] & 0xFF;
+			if (messageLength <= 0 || offset + messageLength > length) {
+				metrics.recordParseError();
+				Client.Log("Error parsing multi-part message. Message %d of %d runs past the end of the frame", i + 1, count);
+				return;
+			}
+			switch (type) {
+				case 0:
+					if (onTradeView != null) {
+						TradeView view = batch.tradeView.wrap(datum, offset);
+						flushBatches(batch);
+						long entryNanos = enterCallback();
+						try {
+							onTradeView.onTrade(view);
+						} catch (Exception ex) {
+							onCallbackException(ex);
+						}
+						exitCallback(batch, 0, entryNanos);
+					} else
+						batch.trades[batch.tradeCount++] = Trade.parse(buffer.slice(offset, messageLength));
+					break;
+				case 1:
+				case 2:
+					if (onQuoteView != null) {
+						QuoteView view = batch.quoteView.wrap(datum, offset);
+						flushBatches(batch);
+						long entryNanos = enterCallback();
+						try {
+							onQuoteView.onQuote(view);
+						} catch (Exception ex) {
+							onCallbackException(ex);
+						}
+						exitCallback(batch, 1, entryNanos);
+					} else
+						batch.quotes[batch.quoteCount++] = Quote.parse(buffer.slice(offset, messageLength));
+					break;
+				default:
+					metrics.recordParseError();
+					Client.Log("Error parsing multi-part message. Type is %d", type);
+					i = count;
+			}
+			offset += messageLength;
 		}
 	}
 
-	private void _join(String symbol, boolean tradesOnly) {
-		_join(symbol, tradesOnly, false);
+	private void onCallbackException(Exception ex) {
+		metrics.recordCallbackException();
+		Client.Log("Callback Exception. " + ex.getMessage());
+	}
+
+	private long enterCallback() {
+		return latency != null ? System.nanoTime() : 0L;
 	}
 
-	private void _join(String symbol, boolean tradesOnly, boolean forceRejoin){
-		Channel channel = new Channel(symbol, tradesOnly);
-		if (channels.add(channel) || (channels.contains(channel) && forceRejoin)) {
-			byte[] message = makeJoinMessage(tradesOnly, symbol);
-			Client.Log("Websocket - Joining channel: %s (trades only = %s)", symbol, Boolean.toString(tradesOnly));
-			wsState.getWebSocket().sendBinary(ByteBuffer.wrap(message), true);
+	/**
+	 * Records a callback's latency, by kind (0 for trades, 1 for quotes), if latency tracking is on. The return becomes the batch's mark for the next callback.
+	 */
+	private void exitCallback(EventBatch batch, int kind, long entryNanos) {
+		if (latency != null)
+			batch.markNanos = latency.recordCallback(kind, batch.receivedNanos, batch.markNanos, entryNanos, System.nanoTime());
+	}
+
+	private void initializeDataPipeline() {
+		if (config.isEquitiesBufferPoolEnabled()) {
+			bufferPool = new BufferPool();
+		}
+		dispatcher = new FrameDispatcher(config.getEquitiesDispatchMode(), config.getEquitiesOverflowPolicy(), processDataThreads.length, config.getEquitiesQueueCapacity(), config.getEquitiesWaitStrategy(), EquitiesMessageLayout.INSTANCE, bufferPool);
+		metrics = new FeedMetrics(metricsRegistry, EquitiesMessageLayout.INSTANCE, dispatcher);
+		if (config.isEquitiesLatencyTrackingEnabled()) {
+			latency = new LatencyTracker(EquitiesMessageLayout.INSTANCE, CALLBACK_NAMES);
+			latency.register(metricsRegistry);
 		}
 	}
 
-	private void _leave(String symbol, boolean tradesOnly) {
-		Channel channel = new Channel(symbol, tradesOnly);
-		if (channels.remove(channel)) {
-			byte[] message = makeLeaveMessage(symbol);
-			Client.Log("Websocket - Leaving channel: %s (trades only = %s)", symbol, Boolean.toString(tradesOnly));
-			wsState.getWebSocket().sendBinary(ByteBuffer.wrap(message), true);
+	/**
+	 * Opens {@code equitiesConnections} connections, each with a hot-standby twin carrying the same channels if that is enabled.
+	 * The twins are legs A and B, and the arbiter delivers whichever leg's copy of each message arrives first.
+	 */
+	private void initializeConnections() {
+		shards = config.getEquitiesConnections();
+		if (config.isEquitiesHotStandbyEnabled()) {
+			legs = 2;
+			arbiter = new FeedArbiter(EquitiesMessageLayout.INSTANCE, config.getEquitiesArbitrationWindow(), config.getEquitiesArbitrationCapacity());
+			dispatcher.setArbiter(arbiter);
 		}
+		connections = new Connection[shards * legs];
+		for (int shard = 0; shard < shards; shard++) {
+			for (int leg = 0; leg < legs; leg++)
+				connections[shard * legs + leg] = new Connection(shard, leg);
+		}
+	}
+
+	/**
+	 * The connection a symbol is routed to: its assigned connection if it has one, otherwise one picked by hash.
+	 */
+	private int getShard(String symbol) {
+		Integer group = connectionGroups.get(symbol);
+		if (group != null)
+			return group;
+		return Math.floorMod(symbol.hashCode(), shards);
 	}
 
-	private void onWebSocketConnected (WebSocket ws, WebSocketState wsState) {
-		for (Channel channel : channels) {
-			_join(channel.symbol(), channel.tradesOnly(), true);
+	/**
+	 * Flushes the connections marked in {@code touched}, or all of them if it is null.
+	 */
+	private CompletableFuture<Void> flushSubscriptions(boolean[] touched) {
+		ArrayList<CompletableFuture<Void>> flushes = new ArrayList<CompletableFuture<Void>>(connections.length);
+		for (Connection connection : connections) {
+			if (touched == null || touched[connection.shard])
+				flushes.add(connection.flushSubscriptions());
 		}
+		return flushes.size() == 1 ? flushes.get(0) : CompletableFuture.allOf(flushes.toArray(new CompletableFuture<?>[0]));
 	}
 
-	private void initializeWebSocket(String token) {
-		wsLock.writeLock().lock();
-		try {
-			Client.Log("Websocket - Connecting...");
-			WebSocketState wsState = new WebSocketState();
-			String wsUrl;
+	private void releaseFrame(Frame frame) {
+		if (bufferPool != null)
+			bufferPool.release(frame.getBytes());
+	}
+
+	private void startThreads() throws Exception{
+		this.isCancellationRequested = false;
+		for (int i = 0; i < processDataThreads.length; i++) {
+			final int worker = i;
+			processDataThreads[i] = new Thread(()->processData(worker));
+		}
+		for (Thread thread : processDataThreads) {
+			thread.start();
+		}
+		if (config.getEquitiesHeartbeatInterval() > 0 || config.getEquitiesStallTimeout() > 0) {
+			watchdogThread = new Thread(this::watchConnections);
+			watchdogThread.start();
+		}
+	}
+
+	private void watchConnections() {
+		long heartbeatNanos = TimeUnit.SECONDS.toNanos(config.getEquitiesHeartbeatInterval());
+		long stallNanos = TimeUnit.SECONDS.toNanos(config.getEquitiesStallTimeout());
+		while (!this.isCancellationRequested) {
 			try {
-				wsUrl = this.getWebSocketUrl(token);
-			} catch (Exception e) {
-				Client.Log("Initialization Failure. " + e.getMessage());
-				return;
+				Thread.sleep(1000);
+				long now = System.nanoTime();
+				boolean marketOpen = MarketHours.isOpen();
+				for (Connection connection : connections)
+					connection.checkHealth(now, heartbeatNanos, stallNanos, marketOpen);
+			} catch (Exception ex) {
+				Client.Log("Watchdog Exception. " + ex.getMessage());
 			}
-			URI uri = null;
+		}
+	}
+
+	private void stopThreads(){
+		this.isCancellationRequested = true;
+		try {
+			Thread.sleep(1000);
+		}catch (Exception e){}
+		for (Thread thread : processDataThreads) {
 			try {
-				uri = new URI(wsUrl);
-			} catch (URISyntaxException e) {
-				Client.Log("Initialization Failure. Bad URL (%s). %s", wsUrl, e.getMessage());
-				return;
-			}
-			HttpClient httpClient = HttpClient.newHttpClient();
-			CompletableFuture<WebSocket> task =
-				httpClient.newWebSocketBuilder()
-				.header(HeaderMessageVersionKey, HeaderMessageVersionValue)
-				.header(HeaderClientInformationKey, HeaderClientInformationValue)
-				.buildAsync(uri, (WebSocket.Listener) this);
+				thread.join();
+			}catch (Exception e){}
+		}
+		if (watchdogThread != null) {
 			try {
-				WebSocket ws = task.get();
-				this.wsState.setWebSocket(ws);
-				Client.Log("Websocket - Connected");
-				this.onWebSocketConnected(ws, this.wsState);
-			} catch (ExecutionException e) {
-				Client.Log("Initialization Failure. Could not establish connection. %s", e.getMessage());
-			} catch (InterruptedException e) {
-				Client.Log("Initialization Failure. Thread interrupted. %s", e.getMessage());
-			}
-		} finally {
-			wsLock.writeLock().unlock();
+				watchdogThread.join();
+			}catch (Exception e){}
 		}
 	}
 
-	private boolean reconnect(){
-		Client.Log("Websocket - Reconnecting...");
-		if (this.wsState.isReady()) {
-			return true;
-		} else {
-			this.wsLock.writeLock().lock();
+	/**
+	 * The cached token, or a new one if there is none yet, it is near expiry, or the server rejected it. Only one thread
+	 * fetches at a time and the lock is not held while backing off, so the others pick up the new token as soon as there is one.
+	 */
+	private String fetchToken() {
+		Backoff backoff = new Backoff(selfHealBaseBackoff, selfHealMaxBackoff);
+		while (true) {
+			Token token = this.token.get();
+			if (isUsable(token))
+				return token.token();
+			tLock.lock();
 			try {
-				this.wsState.setReconnecting(true);
+				token = this.token.get();
+				if (isUsable(token))
+					return token.token();
+				if (tryGetNewToken())
+					return this.token.get().token();
 			} finally {
-				this.wsLock.writeLock().unlock();
+				tLock.unlock();
 			}
-			String token = this.fetchToken();
-			initializeWebSocket(token);
-			return false;
+			try {
+				Thread.sleep(backoff.next());
+			} catch (InterruptedException e) {}
 		}
 	}
 
-	private String fetchToken() {
-		tLock.readLock().lock();
+	private boolean isUsable(Token token) {
+		return token.token() != null && token.date().plus(tokenMaxAge).isAfter(LocalDateTime.now());
+	}
+
+	/**
+	 * Drops the cached token if it is still the one the server rejected, so the next fetch gets a new one.
+	 */
+	private void invalidateToken(String rejected) {
+		Token token = this.token.get();
+		if (rejected.equals(token.token()))
+			this.token.compareAndSet(token, new Token(null, token.date()));
+	}
+
+	/**
+	 * Replaces the token in the background before it is due, so reconnects never wait on the authorization server.
+	 */
+	private void scheduleTokenRefresh(long delay) {
+		CompletableFuture<Void> previous = this.tokenRefresh;
+		if (previous != null)
+			previous.cancel(false);
+		this.tokenRefresh = CompletableFuture.runAsync(this::refreshToken, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+	}
+
+	private void refreshToken() {
+		if (this.isCancellationRequested)
+			return;
+		tLock.lock();
 		try {
-			tLock.readLock().unlock();
-			tLock.writeLock().lock();
-			try {
-				doWithRetryBackoff(() -> tryGetNewToken());
-				tLock.readLock().lock();
-				return this.token.get().token();
-			} finally {
-				tLock.writeLock().unlock();
-			}
+			if (!tryGetNewToken())
+				scheduleTokenRefresh(selfHealMaxBackoff);
 		} finally {
-			tLock.readLock().unlock();
+			tLock.unlock();
 		}
 	}
 
-	private boolean tryGetNewToken(){
+	private boolean tryGetNewToken() {
 		Client.Log("Authorizing...");
 		String authUrl = null;
 		try {
@@ -544,37 +834,26 @@ public class Client implements WebSocket.Listener {
 			Client.Log("Authorization Failure. " + e.getMessage());
 			return false;
 		}
-		URL url = null;
+		HttpRequest request;
 		try {
-			url = new URL(authUrl);
-		} catch (MalformedURLException e) {
+			request = HttpRequest.newBuilder(new URI(authUrl)).header(HeaderClientInformationKey, HeaderClientInformationValue).timeout(Duration.ofSeconds(30)).GET().build();
+		} catch (URISyntaxException | IllegalArgumentException e) {
 			Client.Log("Authorization Failure. Bad URL (%s). %s", authUrl, e.getMessage());
 			return false;
 		}
-		HttpURLConnection con;
-		try {
-			con = (HttpURLConnection) url.openConnection();
-			con.setRequestProperty(HeaderClientInformationKey, HeaderClientInformationValue);
-		} catch (IOException e) {
-			Client.Log("Authorization Failure. Please check your network connection. " + e.getMessage());
-			return false;
-		}
 		try {
-			con.setRequestMethod("GET");
-			int status = con.getResponseCode();
+			HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+			int status = response.statusCode();
 			if (status == 200) {
-				BufferedReader reader = new BufferedReader(new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8));
-				String token = reader.readLine();
+				String token = response.body().lines().findFirst().orElse("");
 				this.token.set(new Token(token, LocalDateTime.now()));
 				Client.Log("Authorization successful");
+				scheduleTokenRefresh(tokenRefreshAge.toMillis());
 				return true;
 			}
 			else
 				Client.Log("Authorization Failure (%d). The authorization key you provided is likely incorrect.", status);
 			return false;
-		} catch (ProtocolException e) {
-			Client.Log("Authorization Failure. Bad request type. " + e.getMessage());
-			return false;
 		} catch (IOException e) {
 			Client.Log("Authorization Failure. The authorization server is likely offline. " + e.getMessage());
 			return false;
@@ -619,46 +898,11 @@ public class Client implements WebSocket.Listener {
 		return message;
 	}
 
-	private byte[] assembleCompleteDataMessage() {
-		Queue<byte[]> parts = new LinkedList<>();
-		int length = 0;
-		boolean done = false;
-		dataBucketLock.lock();
-		try {
-			while (!done) {
-				try {
-					Tuple<byte[], Boolean> datum = dataBucket.poll(1, TimeUnit.SECONDS);
-					if (datum != null) {
-						parts.add(datum.x);
-						done = datum.y;
-						length += datum.x.length;
-					}
-				} catch(InterruptedException e) {
-					Client.Log("process data interrupted");
-				}
-			}
-		} finally {dataBucketLock.unlock();}
-
-		//reassemble into one byte array
-		byte[] bytes = new byte[length];
-		int index = 0;
-		while (!parts.isEmpty()) {
-			byte[] part = parts.remove();
-			java.lang.System.arraycopy(part, 0, bytes, index, part.length);
-			index += part.length;
-		}
-		return bytes;
-	}
-
-	private void doWithRetryBackoff(BooleanSupplier callback) {
-		int i = 0;
-		long backoff = this.selfHealBackoffs[i];
+	private void doWithRetryBackoff(BooleanSupplier callback, Backoff backoff) {
 		boolean success = callback.getAsBoolean();
 		while (!success) {
 			try {
-				Thread.sleep(backoff);
-				i = Math.min(i + 1, this.selfHealBackoffs.length - 1);
-				backoff = this.selfHealBackoffs[i];
+				Thread.sleep(backoff.next());
 				success = callback.getAsBoolean();
 			} catch (InterruptedException e) {}
 			catch (Exception e) {
@@ -668,12 +912,305 @@ public class Client implements WebSocket.Listener {
 	}
 	//endregion Private Methods
 
-	private class Tuple<X, Y> {
-		  public final X x; 
-		  public final Y y; 
-		  public Tuple(X x, Y y) { 
-		    this.x = x; 
-		    this.y = y; 
-		  } 
+	/**
+	 * One websocket and the channels routed to it. Each connection has its own subscriptions, reconnects on its own and
+	 * resubscribes only its own channels after a drop; all of them publish into the shared dispatcher, tagged with their leg.
+	 */
+	private final class Connection implements WebSocket.Listener {
+		private final int shard;
+		private final int leg;
+		private final String name;
+		private final ReentrantReadWriteLock wsLock = new ReentrantReadWriteLock();
+		private final WebSocketState wsState = new WebSocketState();
+		private final SubscriptionRegistry<Channel> channels = new SubscriptionRegistry<Channel>();
+		private final SubscriptionSender subscriptionSender = new SubscriptionSender(config.getEquitiesSubscriptionRateLimit());
+		private final FrameAssembler frameAssembler = bufferPool == null ? new FrameAssembler() : new FrameAssembler(bufferPool);
+		private final AtomicLong dataMsgCount = new AtomicLong(0l);
+		private final AtomicLong textMsgCount = new AtomicLong(0l);
+		private final AtomicLong reconnectCount = new AtomicLong(0l);
+		private final AtomicLong stallCount = new AtomicLong(0l);
+		private volatile CompletableFuture<Void> resubscription = CompletableFuture.completedFuture(null);
+		private volatile long lastMessageNanos = System.nanoTime();
+		private volatile long lastPongNanos = System.nanoTime();
+		private volatile long lastPingNanos = System.nanoTime();
+		private volatile long pingRoundTripNanos = -1L;
+		private volatile boolean publishing = false;
+		private long frameStartNanos = 0L;
+		private boolean midFrame = false;
+
+		private Connection(int shard, int leg) {
+			this.shard = shard;
+			this.leg = leg;
+			String label = (shards > 1 ? Integer.toString(shard) : "") + (legs > 1 ? Character.toString((char) ('A' + leg)) : "");
+			this.name = label.isEmpty() ? "Websocket" : "Websocket " + label;
+		}
+
+		private String getStats() {
+			return String.format("%s (Data Messages = %d, Text Messages = %d, Channels = %d, Reconnects = %d, Stalls = %d, Last Message Age = %d ms, Ping RTT = %d us, Ready = %s)", name, dataMsgCount.get(), textMsgCount.get(), channels.size(), reconnectCount.get(), stallCount.get(), getLastMessageAgeMillis(), pingRoundTripNanos < 0L ? -1L : pingRoundTripNanos / 1000L, wsState.isReady());
+		}
+
+		private long getLastMessageAgeMillis() {
+			return (System.nanoTime() - lastMessageNanos) / 1_000_000L;
+		}
+
+		/**
+		 * Reconnects if the socket has gone quiet: when {@code heartbeatNanos} is set, no pong for three heartbeats, or, when {@code stallNanos}
+		 * is set, no messages for that long during market hours. Otherwise sends a ping, carrying its send time, once per heartbeat.
+		 */
+		private void checkHealth(long now, long heartbeatNanos, long stallNanos, boolean marketOpen) {
+			WebSocket ws;
+			wsLock.readLock().lock();
+			try {
+				if (!wsState.isReady())
+					return;
+				ws = wsState.getWebSocket();
+			} finally {
+				wsLock.readLock().unlock();
+			}
+			//While onBinary waits for room in a full queue nothing more is read, pongs included, so that silence is not a stall.
+			boolean blocked = publishing;
+			String stall = null;
+			if (!blocked && stallNanos > 0L && marketOpen && now - lastMessageNanos > stallNanos)
+				stall = String.format("no messages for %d ms", (now - lastMessageNanos) / 1_000_000L);
+			else if (!blocked && heartbeatNanos > 0L && now - lastPongNanos > 3L * heartbeatNanos)
+				stall = String.format("no pong for %d ms", (now - lastPongNanos) / 1_000_000L);
+			if (stall != null) {
+				Client.Log("%s - Stalled, %s", name, stall);
+				stallCount.incrementAndGet();
+				ws.abort();
+				onClose(ws, 1006, "Websocket - Stalled");
+				return;
+			}
+			if (heartbeatNanos > 0L && now - lastPingNanos >= heartbeatNanos) {
+				lastPingNanos = now;
+				try {
+					ws.sendPing(ByteBuffer.allocate(Long.BYTES).putLong(0, now));
+				} catch (Exception e) {
+					Client.Log("%s - Ping failed. %s", name, e.getMessage());
+				}
+			}
+		}
+
+		public CompletionStage<Void> onClose(WebSocket ws, int status, String reason) {
+			wsLock.writeLock().lock();
+			try {
+				if (ws != null && ws != this.wsState.getWebSocket())
+					return null; //A socket that has already been replaced.
+				try {
+					this.wsState.getWebSocket().sendClose(1000, "Client closed");
+				}catch (Exception ex){}
+
+				if (!wsState.isReconnecting()) {
+					Client.Log("%s - Closed", name);
+					wsState.setReady(false);
+					if (!isCancellationRequested){
+						this.wsState.setReconnecting(true);
+						try {
+							new Thread(() -> {
+								//Jitter even the first attempt, so clients dropped together by a server restart do not all come back at once.
+								Backoff backoff = new Backoff(selfHealBaseBackoff, selfHealMaxBackoff);
+								try { Thread.sleep(backoff.next()); } catch (Exception e){}
+								doWithRetryBackoff(() -> reconnect(), backoff);
+							}).start();
+						}catch (Exception e){}
+					}
+				}
+			} finally {
+				wsLock.writeLock().unlock();
+			}
+			return null;
+		}
+
+		public void onError(WebSocket ws, Throwable err) {
+			Client.Log("%s - Error - %s", name, err.getMessage());
+			//Whatever the error, the socket is finished and onClose will not follow, so reconnect from here.
+			onClose(ws, 1006, "Websocket - Error");
+		}
+
+		public CompletionStage<?> onPong(WebSocket ws, ByteBuffer message) {
+			long now = System.nanoTime();
+			if (message.remaining() == Long.BYTES)
+				pingRoundTripNanos = now - message.getLong(message.position());
+			lastPongNanos = now;
+			ws.request(1);
+			return null;
+		}
+
+		public CompletionStage<Void> onText(WebSocket ws, CharSequence data, boolean isComplete) {
+			lastMessageNanos = System.nanoTime();
+			textMsgCount.addAndGet(1l);
+			if (data != null && data.length() > 0) {
+				try {
+					Client.Log("Error received: %s", data.toString());
+					ws.request(1);
+				}
+				catch (Exception e) {
+					Client.Log("Failure parsing error from server in onText(). " + e.getMessage());
+					ws.request(1);
+				}
+			}
+			else
+				ws.request(1);
+			return null;
+		}
+
+		public CompletionStage<Void> onBinary(WebSocket ws, ByteBuffer data, boolean isComplete) {
+			long now = System.nanoTime();
+			lastMessageNanos = now;
+			dataMsgCount.addAndGet(1);
+			metrics.recordFragment();
+			if (!midFrame)
+				frameStartNanos = now;
+			midFrame = !isComplete;
+			Frame frame = frameAssembler.append(data, isComplete);
+			if (frame != null) {
+				if (latency != null)
+					latency.recordReassembly(frameStartNanos, now);
+				metrics.recordFrame(frame.getBytes(), frame.getLength());
+				publishing = true;
+				try {
+					dispatcher.publish(frame.getBytes(), frame.getLength(), leg, now);
+				} finally {
+					//Time spent waiting for room in the queue does not count towards the stall and pong timeouts.
+					long blockedNanos = System.nanoTime() - now;
+					if (blockedNanos > 1_000_000L) {
+						lastMessageNanos += blockedNanos;
+						lastPongNanos += blockedNanos;
+					}
+					publishing = false;
+				}
+			}
+			ws.request(1);
+			return null;
+		}
+
+		private CompletableFuture<Void> sendSubscriptions(WebSocket ws, List<Channel> channels, boolean join) {
+			if (channels.isEmpty())
+				return CompletableFuture.completedFuture(null);
+			ArrayList<ByteBuffer> messages = new ArrayList<ByteBuffer>(channels.size());
+			for (Channel channel : channels)
+				messages.add(ByteBuffer.wrap(join ? makeJoinMessage(channel.tradesOnly(), channel.symbol()) : makeLeaveMessage(channel.symbol())));
+			String action = join ? "Joining" : "Leaving";
+			if (join)
+				metrics.recordJoins(channels.size());
+			else
+				metrics.recordLeaves(channels.size());
+			if (channels.size() == 1)
+				Client.Log("%s - %s channel: %s (trades only = %s)", name, action, channels.get(0).symbol(), Boolean.toString(channels.get(0).tradesOnly()));
+			else
+				Client.Log("%s - %s %d channels", name, action, channels.size());
+			CompletableFuture<Void> sent = subscriptionSender.send(ws, messages);
+			sent.whenComplete((ignored, error) -> {
+				if (error != null)
+					Client.Log("%s - %s channels failed. %s", name, action, error.getMessage());
+			});
+			return sent;
+		}
+
+		/**
+		 * Sends the joins and leaves made since the last flush if the connection is ready. Otherwise the channels go out with
+		 * the resubscription as soon as it connects. The read lock keeps the connection from coming up in between.
+		 */
+		private CompletableFuture<Void> flushSubscriptions() {
+			wsLock.readLock().lock();
+			try {
+				if (!wsState.isReady())
+					return wsState.getReadyFuture().thenCompose(ws -> this.resubscription);
+				WebSocket ws = wsState.getWebSocket();
+				return channels.flush((joins, leaves) -> CompletableFuture.allOf(this.sendSubscriptions(ws, leaves, false), this.sendSubscriptions(ws, joins, true)));
+			} finally {
+				wsLock.readLock().unlock();
+			}
+		}
+
+		private void onWebSocketConnected (WebSocket ws) {
+			subscriptionSender.reset();
+			this.resubscription = channels.resubscribe((joins, leaves) -> this.sendSubscriptions(ws, joins, true));
+		}
+
+		private void initializeWebSocket(String token) {
+			wsLock.writeLock().lock();
+			try {
+				Client.Log("%s - Connecting...", name);
+				String wsUrl;
+				try {
+					wsUrl = getWebSocketUrl(token);
+				} catch (Exception e) {
+					Client.Log("Initialization Failure. " + e.getMessage());
+					return;
+				}
+				URI uri = null;
+				try {
+					uri = new URI(wsUrl);
+				} catch (URISyntaxException e) {
+					Client.Log("Initialization Failure. Bad URL (%s). %s", wsUrl, e.getMessage());
+					return;
+				}
+				frameAssembler.reset();
+				midFrame = false;
+				CompletableFuture<WebSocket> task =
+					httpClient.newWebSocketBuilder()
+					.header(HeaderMessageVersionKey, HeaderMessageVersionValue)
+					.header(HeaderClientInformationKey, HeaderClientInformationValue)
+					.buildAsync(uri, (WebSocket.Listener) this);
+				try {
+					WebSocket ws = task.get();
+					Client.Log("%s - Connected", name);
+					long now = System.nanoTime();
+					lastMessageNanos = now;
+					lastPongNanos = now;
+					lastPingNanos = now;
+					//Resubscribe before signalling readiness, so joins waiting on it complete with the resubscription.
+					this.onWebSocketConnected(ws);
+					this.wsState.setWebSocket(ws);
+				} catch (ExecutionException e) {
+					Client.Log("Initialization Failure. Could not establish connection. %s", e.getMessage());
+					if (e.getCause() instanceof WebSocketHandshakeException) {
+						int status = ((WebSocketHandshakeException) e.getCause()).getResponse().statusCode();
+						if (status == 401 || status == 403)
+							invalidateToken(token);
+					}
+				} catch (InterruptedException e) {
+					Client.Log("Initialization Failure. Thread interrupted. %s", e.getMessage());
+				}
+			} finally {
+				wsLock.writeLock().unlock();
+			}
+		}
+
+		private boolean reconnect(){
+			Client.Log("%s - Reconnecting...", name);
+			if (this.wsState.isReady()) {
+				return true;
+			} else {
+				this.wsLock.writeLock().lock();
+				try {
+					this.wsState.setReconnecting(true);
+				} finally {
+					this.wsLock.writeLock().unlock();
+				}
+				String token = fetchToken();
+				initializeWebSocket(token);
+				if (!this.wsState.isReady())
+					return false;
+				reconnectCount.incrementAndGet();
+				metrics.recordReconnect();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * The trades and quotes decoded from one frame, and the flyweight views, reused by each processing thread for every frame it handles.
+	 */
+	private static final class EventBatch {
+		private final Trade[] trades = new Trade[255];
+		private final Quote[] quotes = new Quote[255];
+		private int tradeCount = 0;
+		private int quoteCount = 0;
+		private long receivedNanos = 0L;
+		private long markNanos = 0L;
+		private final TradeView tradeView = new TradeView();
+		private final QuoteView quoteView = new QuoteView();
 	}
 }
@@ -5,10 +5,16 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 
 import com.google.gson.Gson;
+import intrinio.realtime.common.DispatchMode;
+import intrinio.realtime.common.OverflowPolicy;
+import intrinio.realtime.common.WaitStrategy;
 
 public class Config {
 	
 	private static final String filename = "intrinio/config.json";
+	private static final int DEFAULT_QUEUE_CAPACITY = 1 << 16;
+	private static final int DEFAULT_ARBITRATION_WINDOW = 100;
+	private static final int DEFAULT_ARBITRATION_CAPACITY = 1 << 16;
 	
 	private String equitiesApiKey;
 	private Provider equitiesProvider = Provider.NONE;
@@ -17,6 +23,19 @@ public class Config {
 	private boolean equitiesTradesOnly = true;
 	private boolean equitiesDelayed = false;
 	private int equitiesNumThreads = 4;
+	private boolean equitiesBufferPoolEnabled = false;
+	private WaitStrategy equitiesWaitStrategy = WaitStrategy.BLOCKING;
+	private DispatchMode equitiesDispatchMode = DispatchMode.SHARED;
+	private int equitiesQueueCapacity = DEFAULT_QUEUE_CAPACITY;
+	private OverflowPolicy equitiesOverflowPolicy = OverflowPolicy.BLOCK;
+	private int equitiesSubscriptionRateLimit = 0;
+	private int equitiesConnections = 1;
+	private boolean equitiesHotStandbyEnabled = false;
+	private int equitiesArbitrationWindow = DEFAULT_ARBITRATION_WINDOW;
+	private int equitiesArbitrationCapacity = DEFAULT_ARBITRATION_CAPACITY;
+	private int equitiesHeartbeatInterval = 0;
+	private int equitiesStallTimeout = 0;
+	private boolean equitiesLatencyTrackingEnabled = false;
 	
 	public Config(String equitiesApiKey, Provider equitiesProvider, String equitiesIpAddress, String[] equitiesSymbols, boolean equitiesTradesOnly, int equitiesNumThreads, boolean equitiesDelayed) throws Exception {
 		this.equitiesApiKey = equitiesApiKey;
@@ -65,16 +84,133 @@ public class Config {
 	public int getEquitiesNumThreads() {
 		return equitiesNumThreads;
 	}
+
+	public boolean isEquitiesBufferPoolEnabled() {
+		return equitiesBufferPoolEnabled;
+	}
+
+	public void setEquitiesBufferPoolEnabled(boolean equitiesBufferPoolEnabled) {
+		this.equitiesBufferPoolEnabled = equitiesBufferPoolEnabled;
+	}
+
+	public WaitStrategy getEquitiesWaitStrategy() {
+		return equitiesWaitStrategy == null ? WaitStrategy.BLOCKING : equitiesWaitStrategy;
+	}
+
+	public void setEquitiesWaitStrategy(WaitStrategy equitiesWaitStrategy) {
+		this.equitiesWaitStrategy = equitiesWaitStrategy;
+	}
+
+	public DispatchMode getEquitiesDispatchMode() {
+		return equitiesDispatchMode == null ? DispatchMode.SHARED : equitiesDispatchMode;
+	}
+
+	public void setEquitiesDispatchMode(DispatchMode equitiesDispatchMode) {
+		this.equitiesDispatchMode = equitiesDispatchMode;
+	}
+
+	public int getEquitiesQueueCapacity() {
+		return equitiesQueueCapacity > 0 ? equitiesQueueCapacity : DEFAULT_QUEUE_CAPACITY;
+	}
+
+	public void setEquitiesQueueCapacity(int equitiesQueueCapacity) {
+		this.equitiesQueueCapacity = equitiesQueueCapacity;
+	}
+
+	public OverflowPolicy getEquitiesOverflowPolicy() {
+		return equitiesOverflowPolicy == null ? OverflowPolicy.BLOCK : equitiesOverflowPolicy;
+	}
+
+	public void setEquitiesOverflowPolicy(OverflowPolicy equitiesOverflowPolicy) {
+		this.equitiesOverflowPolicy = equitiesOverflowPolicy;
+	}
+
+	public int getEquitiesSubscriptionRateLimit() {
+		return equitiesSubscriptionRateLimit;
+	}
+
+	public void setEquitiesSubscriptionRateLimit(int equitiesSubscriptionRateLimit) {
+		this.equitiesSubscriptionRateLimit = equitiesSubscriptionRateLimit;
+	}
+
+	public int getEquitiesConnections() {
+		return equitiesConnections > 0 ? equitiesConnections : 1;
+	}
+
+	public void setEquitiesConnections(int equitiesConnections) {
+		this.equitiesConnections = equitiesConnections;
+	}
+
+	public boolean isEquitiesHotStandbyEnabled() {
+		return equitiesHotStandbyEnabled;
+	}
+
+	public void setEquitiesHotStandbyEnabled(boolean equitiesHotStandbyEnabled) {
+		this.equitiesHotStandbyEnabled = equitiesHotStandbyEnabled;
+	}
+
+	public int getEquitiesArbitrationWindow() {
+		return equitiesArbitrationWindow > 0 ? equitiesArbitrationWindow : DEFAULT_ARBITRATION_WINDOW;
+	}
+
+	public void setEquitiesArbitrationWindow(int equitiesArbitrationWindow) {
+		this.equitiesArbitrationWindow = equitiesArbitrationWindow;
+	}
+
+	public int getEquitiesArbitrationCapacity() {
+		return equitiesArbitrationCapacity > 0 ? equitiesArbitrationCapacity : DEFAULT_ARBITRATION_CAPACITY;
+	}
+
+	public void setEquitiesArbitrationCapacity(int equitiesArbitrationCapacity) {
+		this.equitiesArbitrationCapacity = equitiesArbitrationCapacity;
+	}
+
+	public int getEquitiesHeartbeatInterval() {
+		return equitiesHeartbeatInterval;
+	}
+
+	public void setEquitiesHeartbeatInterval(int equitiesHeartbeatInterval) {
+		this.equitiesHeartbeatInterval = equitiesHeartbeatInterval;
+	}
+
+	public int getEquitiesStallTimeout() {
+		return equitiesStallTimeout;
+	}
+
+	public void setEquitiesStallTimeout(int equitiesStallTimeout) {
+		this.equitiesStallTimeout = equitiesStallTimeout;
+	}
+
+	public boolean isEquitiesLatencyTrackingEnabled() {
+		return equitiesLatencyTrackingEnabled;
+	}
+
+	public void setEquitiesLatencyTrackingEnabled(boolean equitiesLatencyTrackingEnabled) {
+		this.equitiesLatencyTrackingEnabled = equitiesLatencyTrackingEnabled;
+	}
 	
 	public String toString() {
-		return String.format("apiKey = %s, provider = %s, ipAddress = %s, symbols = %s, tradesOnly = %b, numThreads = %d",
+		return String.format("apiKey = %s, provider = %s, ipAddress = %s, symbols = %s, tradesOnly = %b, delayed = %b, numThreads = %d, bufferPoolEnabled = %b, waitStrategy = %s, dispatchMode = %s, queueCapacity = %d, overflowPolicy = %s, subscriptionRateLimit = %d, connections = %d, hotStandbyEnabled = %s, arbitrationWindow = %d, arbitrationCapacity = %d, heartbeatInterval = %d, stallTimeout = %d, latencyTrackingEnabled = %s",
 				this.equitiesApiKey,
 				this.equitiesProvider,
 				this.equitiesIpAddress,
 				String.join(", ", this.equitiesSymbols),
 				this.equitiesTradesOnly,
 				this.equitiesDelayed,
-				this.equitiesNumThreads);
+				this.equitiesNumThreads,
+				this.equitiesBufferPoolEnabled,
+				this.getEquitiesWaitStrategy(),
+				this.getEquitiesDispatchMode(),
+				this.getEquitiesQueueCapacity(),
+				this.getEquitiesOverflowPolicy(),
+				this.equitiesSubscriptionRateLimit,
+				this.getEquitiesConnections(),
+				this.equitiesHotStandbyEnabled,
+				this.getEquitiesArbitrationWindow(),
+				this.getEquitiesArbitrationCapacity(),
+				this.equitiesHeartbeatInterval,
+				this.equitiesStallTimeout,
+				this.equitiesLatencyTrackingEnabled);
 	}
 
 	public static Config load() {
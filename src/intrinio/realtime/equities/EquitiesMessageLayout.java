@@ -0,0 +1,52 @@
+package intrinio.realtime.equities;
+
+import intrinio.realtime.common.Bytes;
+import intrinio.realtime.common.MessageLayout;
+
+/**
+ * Equities messages are variable length. Byte 0 is the type, byte 1 the message length, byte 2 the symbol length and the symbol starts at byte 3.
+ */
+final class EquitiesMessageLayout implements MessageLayout {
+	private static final String[] TYPE_NAMES = {"Trade", "Ask", "Bid"};
+
+	static final EquitiesMessageLayout INSTANCE = new EquitiesMessageLayout();
+
+	private EquitiesMessageLayout() {}
+
+	@Override
+	public int getMessageLength(byte[] frame, int offset) {
+		byte type = frame[offset];
+		return (type >= 0 && type <= 2) ? frame[offset + 1] & 0xFF : -1;
+	}
+
+	@Override
+	public String[] getMessageTypeNames() {
+		return TYPE_NAMES;
+	}
+
+	@Override
+	public int getMessageType(byte[] frame, int offset) {
+		byte type = frame[offset];
+		return (type >= 0 && type <= 2) ? type : -1;
+	}
+
+	@Override
+	public long getTimestamp(byte[] frame, int offset) {
+		return Bytes.getLong(frame, offset + 14 + frame[offset + 2]);
+	}
+
+	@Override
+	public boolean isQuote(byte[] frame, int offset) {
+		return frame[offset] == 1 || frame[offset] == 2;
+	}
+
+	@Override
+	public int getSymbolOffset(byte[] frame, int offset) {
+		return offset + 3;
+	}
+
+	@Override
+	public int getSymbolLength(byte[] frame, int offset) {
+		return frame[offset + 2];
+	}
+}
@@ -0,0 +1,31 @@
+package intrinio.realtime.equities;
+
+/**
+ * Equities prices as fixed-point integers in ten-thousandths, so aggregations can use integer arithmetic.
+ * Prices arrive as 32-bit floats, which cannot hold every ten-thousandth above $1,024, so a float that is the nearest one to a
+ * whole-cent price is read as that price and anything else is rounded to ten-thousandths. That recovers the quoted price exactly
+ * for any price below $1,024 and for whole-cent prices below $131,072.
+ */
+public final class FixedPoint {
+	/**
+	 * The number of decimal places in a raw price.
+	 */
+	public static final int EXPONENT = 4;
+	public static final long SCALE = 10_000L;
+
+	private FixedPoint() {}
+
+	/**
+	 * The raw value of a price, or 0 for NaN.
+	 */
+	public static long toRaw(double price) {
+		long cents = Math.round(price * 100.0D);
+		if ((float) (cents / 100.0D) == (float) price)
+			return cents * 100L;
+		return Math.round(price * SCALE);
+	}
+
+	public static double toPrice(long raw) {
+		return ((double) raw) / SCALE;
+	}
+}
@@ -2,7 +2,22 @@ package intrinio.realtime.equities;
 
 public class MarketCenterMapper
 {
+    //Every (sub-provider, single-byte code) pair resolved once, indexed by [subProvider.ordinal()][code]
+    private static final MarketCenter[][] mappings = new MarketCenter[SubProvider.values().length][256];
+
+    static
+    {
+        for (SubProvider subProvider : SubProvider.values())
+            for (char code = 0; code < 256; code++)
+                mappings[subProvider.ordinal()][code] = resolve(code, subProvider);
+    }
+
     public static MarketCenter map(char marketCenterCode, SubProvider subProvider)
+    {
+        return marketCenterCode < 256 ? mappings[subProvider.ordinal()][marketCenterCode] : resolve(marketCenterCode, subProvider);
+    }
+
+    private static MarketCenter resolve(char marketCenterCode, SubProvider subProvider)
     {
         switch (subProvider)
         {
@@ -0,0 +1,72 @@
+package intrinio.realtime.equities;
+
+import intrinio.realtime.common.AsciiView;
+import intrinio.realtime.common.Bytes;
+import intrinio.realtime.common.SymbolTable;
+
+/**
+ * Base for the flyweight views over equities messages. A view is re-pointed at each message with {@code wrap(frame, offset)}
+ * and reads fields from the frame bytes on demand, so it allocates nothing per message. Views are reused by the processing
+ * thread: they are only valid during the callback, and nothing read from them should be kept without copying it.
+ */
+public abstract class MessageView {
+	protected byte[] bytes;
+	protected int offset;
+	protected int symbolLength;
+	private final AsciiView symbol = new AsciiView();
+	private final AsciiView conditions = new AsciiView();
+
+	MessageView() {}
+
+	void setMessage(byte[] frame, int offset) {
+		this.bytes = frame;
+		this.offset = offset;
+		this.symbolLength = frame[offset + 2];
+	}
+
+	public CharSequence getSymbol() {
+		return symbol.wrap(bytes, offset + 3, symbolLength);
+	}
+
+	/**
+	 * The symbol's interned ID, the same one carried by the records as {@code symbolId()}.
+	 */
+	public int getSymbolId() {
+		return SymbolTable.SECURITIES.intern(bytes, offset + 3, symbolLength);
+	}
+
+	public SubProvider getSubProvider() {
+		return SubProvider.valueOfCode(bytes[offset + 3 + symbolLength]);
+	}
+
+	public char getMarketCenter() {
+		return Bytes.getChar(bytes, offset + 4 + symbolLength);
+	}
+
+	public double getPrice() {
+		return Bytes.getFloat(bytes, offset + 6 + symbolLength);
+	}
+
+	/**
+	 * The price in ten-thousandths, see {@link FixedPoint}.
+	 */
+	public long getRawPrice() {
+		return FixedPoint.toRaw(getPrice());
+	}
+
+	public long getSize() {
+		return Bytes.getUnsignedInt(bytes, offset + 10 + symbolLength);
+	}
+
+	/**
+	 * Nanoseconds since the unix epoch.
+	 */
+	public long getTimestamp() {
+		return Bytes.getLong(bytes, offset + 14 + symbolLength);
+	}
+
+	protected CharSequence getConditions(int lengthIndex) {
+		int index = offset + lengthIndex + symbolLength;
+		return conditions.wrap(bytes, index + 1, Math.max(0, (int) bytes[index]));
+	}
+}
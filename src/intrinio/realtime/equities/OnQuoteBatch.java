@@ -0,0 +1,19 @@
+package intrinio.realtime.equities;
+
+/**
+ * Receives all quotes decoded from one websocket frame in a single call. The array is reused for the next frame,
+ * so only the first {@code count} entries are valid, and only until the call returns.
+ */
+public interface OnQuoteBatch {
+	void onQuotes(Quote[] quotes, int count);
+
+	/**
+	 * Adapts a single-quote callback, calling it once for each quote in the batch, in order.
+	 */
+	static OnQuoteBatch of(OnQuote onQuote) {
+		return (Quote[] quotes, int count) -> {
+			for (int i = 0; i < count; i++)
+				onQuote.onQuote(quotes[i]);
+		};
+	}
+}
@@ -0,0 +1,8 @@
+package intrinio.realtime.equities;
+
+/**
+ * Receives a reused {@link QuoteView} for each quote message, instead of a parsed {@link Quote} record.
+ */
+public interface OnQuoteView {
+	void onQuote(QuoteView quote);
+}
@@ -0,0 +1,19 @@
+package intrinio.realtime.equities;
+
+/**
+ * Receives all trades decoded from one websocket frame in a single call. The array is reused for the next frame,
+ * so only the first {@code count} entries are valid, and only until the call returns.
+ */
+public interface OnTradeBatch {
+	void onTrades(Trade[] trades, int count);
+
+	/**
+	 * Adapts a single-trade callback, calling it once for each trade in the batch, in order.
+	 */
+	static OnTradeBatch of(OnTrade onTrade) {
+		return (Trade[] trades, int count) -> {
+			for (int i = 0; i < count; i++)
+				onTrade.onTrade(trades[i]);
+		};
+	}
+}
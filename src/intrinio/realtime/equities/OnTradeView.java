@@ -0,0 +1,8 @@
+package intrinio.realtime.equities;
+
+/**
+ * Receives a reused {@link TradeView} for each trade message, instead of a parsed {@link Trade} record.
+ */
+public interface OnTradeView {
+	void onTrade(TradeView trade);
+}
@@ -1,5 +1,7 @@
 package intrinio.realtime.equities;
 
+import intrinio.realtime.common.SymbolTable;
+
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
@@ -16,8 +18,23 @@ public record Quote
 	 double price,
 	 long size,
 	 long timestamp,
-	 String conditions) {
+	 String conditions,
+	 int symbolId) {
+
+	/**
+	 * Creates a quote that was not interned from the feed; {@link #symbolId()} is -1.
+	 */
+	public Quote(QuoteType type, String symbol, SubProvider subProvider, char marketCenter, double price, long size, long timestamp, String conditions) {
+		this(type, symbol, subProvider, marketCenter, price, size, timestamp, conditions, -1);
+	}
 	
+	/**
+	 * The price in ten-thousandths, see {@link FixedPoint}.
+	 */
+	public long getRawPrice() {
+		return FixedPoint.toRaw(this.price);
+	}
+
 	public String toString() {
 		return
 			"Quote (" +
@@ -35,7 +52,8 @@ public record Quote
 	public static Quote parse(byte[] bytes) {
 		int symbolLength = bytes[2];
 		int conditionLength = bytes[22 + symbolLength];
-		String symbol = StandardCharsets.US_ASCII.decode(ByteBuffer.wrap(bytes, 3, symbolLength)).toString();
+		int symbolId = SymbolTable.SECURITIES.intern(bytes, 3, symbolLength);
+		String symbol = SymbolTable.SECURITIES.getSymbol(symbolId);
 
 		QuoteType type;
 		switch (bytes[0]) {
@@ -46,24 +64,7 @@ public record Quote
 			default: type = QuoteType.INVALID;
 		}
 
-		SubProvider subProvider;
-		switch (bytes[3 + symbolLength]) {
-			case 0: subProvider = SubProvider.NONE;
-				break;
-			case 1: subProvider = SubProvider.CTA_A;
-				break;
-			case 2: subProvider = SubProvider.CTA_B;
-				break;
-			case 3: subProvider = SubProvider.UTP;
-				break;
-			case 4: subProvider = SubProvider.OTC;
-				break;
-			case 5: subProvider = SubProvider.NASDAQ_BASIC;
-				break;
-			case 6: subProvider = SubProvider.IEX;
-				break;
-			default: subProvider = SubProvider.IEX;
-		}
+		SubProvider subProvider = SubProvider.valueOfCode(bytes[3 + symbolLength]);
 
 		ByteBuffer priceBuffer = ByteBuffer.wrap(bytes, 6 + symbolLength, 4);
 		priceBuffer.order(ByteOrder.LITTLE_ENDIAN);
@@ -86,13 +87,14 @@ public record Quote
 			condition = StandardCharsets.US_ASCII.decode(ByteBuffer.wrap(bytes, 23 + symbolLength, conditionLength)).toString();
 		}
 
-		return new Quote(type, symbol, subProvider, marketCenter, price, size, nanoSecondsSinceEpoch, condition);
+		return new Quote(type, symbol, subProvider, marketCenter, price, size, nanoSecondsSinceEpoch, condition, symbolId);
 	}
 
 	public static Quote parse(ByteBuffer bytes) {
 		int symbolLength = bytes.get(2);
 		int conditionLength = bytes.get(22 + symbolLength);
-		String symbol = StandardCharsets.US_ASCII.decode(bytes.slice(3, symbolLength)).toString();
+		int symbolId = SymbolTable.SECURITIES.intern(bytes, 3, symbolLength);
+		String symbol = SymbolTable.SECURITIES.getSymbol(symbolId);
 
 		QuoteType type;
 		switch (bytes.get(0)) {
@@ -103,24 +105,7 @@ public record Quote
 			default: type = QuoteType.INVALID;
 		}
 
-		SubProvider source;
-		switch (bytes.get(3 + symbolLength)) {
-			case 0: source = SubProvider.NONE;
-				break;
-			case 1: source = SubProvider.CTA_A;
-				break;
-			case 2: source = SubProvider.CTA_B;
-				break;
-			case 3: source = SubProvider.UTP;
-				break;
-			case 4: source = SubProvider.OTC;
-				break;
-			case 5: source = SubProvider.NASDAQ_BASIC;
-				break;
-			case 6: source = SubProvider.IEX;
-				break;
-			default: source = SubProvider.IEX;
-		}
+		SubProvider source = SubProvider.valueOfCode(bytes.get(3 + symbolLength));
 
 		ByteBuffer priceBuffer = bytes.slice(6 + symbolLength, 4);
 		priceBuffer.order(ByteOrder.LITTLE_ENDIAN);
@@ -143,7 +128,7 @@ public record Quote
 			condition = StandardCharsets.US_ASCII.decode(bytes.slice(23 + symbolLength, conditionLength)).toString();
 		}
 
-		return new Quote(type, symbol, source, marketCenter, price, size, nanoSecondsSinceEpoch, condition);
+		return new Quote(type, symbol, source, marketCenter, price, size, nanoSecondsSinceEpoch, condition, symbolId);
 	}
 
 }
@@ -0,0 +1,32 @@
+package intrinio.realtime.equities;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A flyweight view over an ask or bid message. See {@link MessageView}.
+ */
+public final class QuoteView extends MessageView {
+	public QuoteView wrap(byte[] frame, int offset) {
+		setMessage(frame, offset);
+		return this;
+	}
+
+	public QuoteType getType() {
+		switch (bytes[offset]) {
+			case 1: return QuoteType.ASK;
+			case 2: return QuoteType.BID;
+			default: return QuoteType.INVALID;
+		}
+	}
+
+	public CharSequence getConditions() {
+		return getConditions(22);
+	}
+
+	/**
+	 * Copies the message into a {@link Quote} record.
+	 */
+	public Quote toQuote() {
+		return Quote.parse(ByteBuffer.wrap(bytes, offset, bytes[offset + 1] & 0xFF).slice());
+	}
+}
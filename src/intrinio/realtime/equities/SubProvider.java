@@ -1,5 +1,7 @@
 package intrinio.realtime.equities;
 
+import java.util.Arrays;
+
 public enum SubProvider {
 	NONE,
 	CTA_A,
@@ -9,5 +11,20 @@ public enum SubProvider {
 	NASDAQ_BASIC,
 	IEX,
 	CBOE_ONE,
-	EQUITIES_EDGE
+	EQUITIES_EDGE;
+
+	private static final SubProvider[] byCode = new SubProvider[256];
+
+	static {
+		Arrays.fill(byCode, IEX);
+		for (SubProvider subProvider : new SubProvider[]{NONE, CTA_A, CTA_B, UTP, OTC, NASDAQ_BASIC, IEX, CBOE_ONE})
+			byCode[subProvider.ordinal()] = subProvider;
+	}
+
+	/**
+	 * The sub-provider for its code in a trade or quote message. Unknown codes map to IEX.
+	 */
+	public static SubProvider valueOfCode(byte code) {
+		return byCode[code & 0xFF];
+	}
 }
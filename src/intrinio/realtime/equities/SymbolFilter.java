@@ -0,0 +1,31 @@
+package intrinio.realtime.equities;
+
+import intrinio.realtime.common.MessageFilter;
+import intrinio.realtime.common.SymbolSet;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Keeps only the messages for a set of symbols, matching the raw symbol bytes against a {@link SymbolSet} without decoding them.
+ */
+public final class SymbolFilter implements MessageFilter {
+	private final SymbolSet symbols;
+
+	public SymbolFilter(String... symbols) {
+		this(Arrays.asList(symbols));
+	}
+
+	public SymbolFilter(Collection<String> symbols) {
+		this.symbols = new SymbolSet(symbols);
+	}
+
+	public SymbolSet getSymbols() {
+		return symbols;
+	}
+
+	@Override
+	public boolean accept(byte[] frame, int offset) {
+		return symbols.contains(frame, offset + 3, frame[offset + 2]);
+	}
+}
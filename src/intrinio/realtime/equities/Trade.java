@@ -1,8 +1,9 @@
 package intrinio.realtime.equities;
 
+import intrinio.realtime.common.SymbolTable;
+
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
 
 /**
  * A trade. "timestamp" is in nanoseconds since unix epoch.
@@ -16,7 +17,15 @@ public record Trade
 	 long size,
 	 long timestamp,
 	 long totalVolume,
-	 String conditions) {
+	 String conditions,
+	 int symbolId) {
+
+	/**
+	 * Creates a trade that was not interned from the feed; {@link #symbolId()} is -1.
+	 */
+	public Trade(String symbol, SubProvider subProvider, char marketCenter, double price, long size, long timestamp, long totalVolume, String conditions) {
+		this(symbol, subProvider, marketCenter, price, size, timestamp, totalVolume, conditions, -1);
+	}
 
 	public boolean isDarkpool(){
 		switch(this.subProvider) {
@@ -46,6 +55,20 @@ public record Trade
 			")";
 	}
 
+	/**
+	 * The conditions as a bitset of {@link TradeConditions} flags.
+	 */
+	public long getConditionFlags() {
+		return TradeConditions.of(this.conditions);
+	}
+
+	/**
+	 * The price in ten-thousandths, see {@link FixedPoint}.
+	 */
+	public long getRawPrice() {
+		return FixedPoint.toRaw(this.price);
+	}
+
 	public MarketCenter getMappedMarketCenter()
 	{
 		return MarketCenterMapper.map(marketCenter, subProvider);
@@ -54,28 +77,10 @@ public record Trade
 	public static Trade parse(byte[] bytes) {
 		int symbolLength = bytes[2];
 		int conditionLength = bytes[26 + symbolLength];
-		String symbol = StandardCharsets.US_ASCII.decode(ByteBuffer.wrap(bytes, 3, symbolLength)).toString();
-
-		SubProvider subProvider;
-		switch (bytes[3 + symbolLength]) {
-			case 0: subProvider = SubProvider.NONE;
-				break;
-			case 1: subProvider = SubProvider.CTA_A;
-				break;
-			case 2: subProvider = SubProvider.CTA_B;
-				break;
-			case 3: subProvider = SubProvider.UTP;
-				break;
-			case 4: subProvider = SubProvider.OTC;
-				break;
-			case 5: subProvider = SubProvider.NASDAQ_BASIC;
-				break;
-			case 6: subProvider = SubProvider.IEX;
-				break;
-			case 7: subProvider = SubProvider.CBOE_ONE;
-				break;
-			default: subProvider = SubProvider.IEX;
-		}
+		int symbolId = SymbolTable.SECURITIES.intern(bytes, 3, symbolLength);
+		String symbol = SymbolTable.SECURITIES.getSymbol(symbolId);
+
+		SubProvider subProvider = SubProvider.valueOfCode(bytes[3 + symbolLength]);
 
 		ByteBuffer priceBuffer = ByteBuffer.wrap(bytes, 6 + symbolLength, 4);
 		priceBuffer.order(ByteOrder.LITTLE_ENDIAN);
@@ -99,37 +104,19 @@ public record Trade
 
 		String condition = "";
 		if (conditionLength > 0) {
-			condition = StandardCharsets.US_ASCII.decode(ByteBuffer.wrap(bytes, 27 + symbolLength, conditionLength)).toString();
+			condition = TradeConditions.STRINGS.getSymbol(TradeConditions.STRINGS.intern(bytes, 27 + symbolLength, conditionLength));
 		}
 
-		return new Trade(symbol, subProvider, marketCenter, price, size, nanoSecondsSinceEpoch, totalVolume, condition);
+		return new Trade(symbol, subProvider, marketCenter, price, size, nanoSecondsSinceEpoch, totalVolume, condition, symbolId);
 	}
 
 	public static Trade parse(ByteBuffer bytes) {
 		int symbolLength = bytes.get(2);
 		int conditionLength = bytes.get(26 + symbolLength);
-		String symbol = StandardCharsets.US_ASCII.decode(bytes.slice(3, symbolLength)).toString();
-
-		SubProvider source;
-		switch (bytes.get(3 + symbolLength)) {
-			case 0: source = SubProvider.NONE;
-				break;
-			case 1: source = SubProvider.CTA_A;
-				break;
-			case 2: source = SubProvider.CTA_B;
-				break;
-			case 3: source = SubProvider.UTP;
-				break;
-			case 4: source = SubProvider.OTC;
-				break;
-			case 5: source = SubProvider.NASDAQ_BASIC;
-				break;
-			case 6: source = SubProvider.IEX;
-				break;
-			case 7: source = SubProvider.CBOE_ONE;
-				break;
-			default: source = SubProvider.IEX;
-		}
+		int symbolId = SymbolTable.SECURITIES.intern(bytes, 3, symbolLength);
+		String symbol = SymbolTable.SECURITIES.getSymbol(symbolId);
+
+		SubProvider source = SubProvider.valueOfCode(bytes.get(3 + symbolLength));
 
 		ByteBuffer priceBuffer = bytes.slice(6 + symbolLength, 4);
 		priceBuffer.order(ByteOrder.LITTLE_ENDIAN);
@@ -153,10 +140,10 @@ public record Trade
 
 		String condition = "";
 		if (conditionLength > 0) {
-			condition = StandardCharsets.US_ASCII.decode(bytes.slice(27 + symbolLength, conditionLength)).toString();
+			condition = TradeConditions.STRINGS.getSymbol(TradeConditions.STRINGS.intern(bytes, 27 + symbolLength, conditionLength));
 		}
 
-		return new Trade(symbol, source, marketCenter, price, size, nanoSecondsSinceEpoch, totalVolume, condition);
+		return new Trade(symbol, source, marketCenter, price, size, nanoSecondsSinceEpoch, totalVolume, condition, symbolId);
 	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package intrinio.realtime.equities;
+
+import intrinio.realtime.common.SymbolTable;
+
+/**
+ * Equities trade conditions as a {@code long} bitset with one bit per condition code, so trades can be filtered with a single
+ * mask test, e.g. {@code (trade.getConditionFlags() & TradeConditions.ODD_LOT) == 0}. Each code from '!' to '_' (digits,
+ * punctuation and upper-case letters) has its own bit, spaces are padding and set nothing, and any other code sets {@link #OTHER}.
+ * The named flags are the sale condition codes listed in the README. CBOE One reports its conditions as a numeric bit field
+ * rather than codes, so its flags only reflect the digits of that number.
+ */
+public final class TradeConditions {
+	public static final long OTHER = 1L;
+	public static final long REGULAR = 1L << ('@' - ' ');
+	public static final long ACQUISITION = 1L << ('A' - ' ');
+	public static final long BUNCHED = 1L << ('B' - ' ');
+	public static final long CASH = 1L << ('C' - ' ');
+	public static final long DISTRIBUTION = 1L << ('D' - ' ');
+	public static final long INTERMARKET_SWEEP = 1L << ('F' - ' ');
+	public static final long BUNCHED_SOLD = 1L << ('G' - ' ');
+	public static final long PRICE_VARIATION = 1L << ('H' - ' ');
+	public static final long ODD_LOT = 1L << ('I' - ' ');
+	public static final long RULE_155 = 1L << ('K' - ' ');
+	public static final long SOLD_LAST = 1L << ('L' - ' ');
+	public static final long MARKET_CENTER_OFFICIAL_CLOSE = 1L << ('M' - ' ');
+	public static final long NEXT_DAY = 1L << ('N' - ' ');
+	public static final long OPENING = 1L << ('O' - ' ');
+	public static final long PRIOR_REFERENCE_PRICE = 1L << ('P' - ' ');
+	public static final long MARKET_CENTER_OFFICIAL_OPEN = 1L << ('Q' - ' ');
+	public static final long SELLER = 1L << ('R' - ' ');
+	public static final long SPLIT = 1L << ('S' - ' ');
+	public static final long FORM_T = 1L << ('T' - ' ');
+	public static final long EXTENDED_HOURS_OUT_OF_SEQUENCE = 1L << ('U' - ' ');
+	public static final long CONTINGENT = 1L << ('V' - ' ');
+	public static final long AVERAGE_PRICE = 1L << ('W' - ' ');
+	public static final long CROSS = 1L << ('X' - ' ');
+	public static final long YELLOW_FLAG = 1L << ('Y' - ' ');
+	public static final long OUT_OF_SEQUENCE = 1L << ('Z' - ' ');
+	public static final long STOPPED_STOCK = 1L << ('1' - ' ');
+	public static final long DERIVATIVELY_PRICED = 1L << ('4' - ' ');
+	public static final long REOPENING = 1L << ('5' - ' ');
+	public static final long CLOSING = 1L << ('6' - ' ');
+	public static final long QUALIFIED_CONTINGENT = 1L << ('7' - ' ');
+	public static final long CORRECTED_CLOSE = 1L << ('9' - ' ');
+	/**
+	 * Conditions that settle other than regular way. A trade is regular way when {@code (flags & NON_REGULAR_SETTLEMENT) == 0}.
+	 */
+	public static final long NON_REGULAR_SETTLEMENT = CASH | NEXT_DAY | SELLER;
+
+	//Distinct condition strings are few, so records share one interned string per combination instead of decoding each message
+	static final SymbolTable STRINGS = new SymbolTable();
+	private static final long[] flagsByCode = new long[256];
+
+	static {
+		for (int code = 0; code < 256; code++)
+			flagsByCode[code] = code == ' ' ? 0L : (code > ' ' && code < 0x60) ? 1L << (code - ' ') : OTHER;
+	}
+
+	private TradeConditions() {}
+
+	/**
+	 * The flag for a single condition code.
+	 */
+	public static long of(char code) {
+		return code < 256 ? flagsByCode[code] : OTHER;
+	}
+
+	/**
+	 * The flags for a string of condition codes, e.g. a trade's {@code conditions()}.
+	 */
+	public static long of(CharSequence conditions) {
+		long flags = 0L;
+		for (int i = 0; i < conditions.length(); i++)
+			flags |= of(conditions.charAt(i));
+		return flags;
+	}
+
+	/**
+	 * The flags for the ASCII condition codes in the given range.
+	 */
+	public static long of(byte[] bytes, int offset, int length) {
+		long flags = 0L;
+		for (int i = offset; i < offset + length; i++)
+			flags |= flagsByCode[bytes[i] & 0xFF];
+		return flags;
+	}
+}
@@ -0,0 +1,53 @@
+package intrinio.realtime.equities;
+
+import intrinio.realtime.common.Bytes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A flyweight view over a trade message. See {@link MessageView}.
+ */
+public final class TradeView extends MessageView {
+	public TradeView wrap(byte[] frame, int offset) {
+		setMessage(frame, offset);
+		return this;
+	}
+
+	public long getTotalVolume() {
+		return Bytes.getUnsignedInt(bytes, offset + 22 + symbolLength);
+	}
+
+	public CharSequence getConditions() {
+		return getConditions(26);
+	}
+
+	/**
+	 * The conditions as a bitset of {@link TradeConditions} flags, decoded without allocating.
+	 */
+	public long getConditionFlags() {
+		int index = offset + 26 + symbolLength;
+		return TradeConditions.of(bytes, index + 1, Math.max(0, (int) bytes[index]));
+	}
+
+	public boolean isDarkpool() {
+		char marketCenter = getMarketCenter();
+		switch (getSubProvider()) {
+			case CTA_A:
+			case CTA_B:
+			case OTC:
+			case UTP:
+				return marketCenter == 'D' || marketCenter == 'E' || marketCenter == '\0';
+			case NASDAQ_BASIC:
+				return marketCenter == 'L' || marketCenter == '2' || marketCenter == '\0';
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Copies the message into a {@link Trade} record.
+	 */
+	public Trade toTrade() {
+		return Trade.parse(ByteBuffer.wrap(bytes, offset, bytes[offset + 1] & 0xFF).slice());
+	}
+}
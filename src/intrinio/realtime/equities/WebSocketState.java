@@ -2,6 +2,7 @@ package intrinio.realtime.equities;
 
 import java.net.http.WebSocket;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 class WebSocketState {
 
@@ -9,6 +10,7 @@ class WebSocketState {
     private boolean isReady = false;
     private boolean isReconnecting = false;
     private LocalDateTime lastReset;
+    private CompletableFuture<WebSocket> ready = new CompletableFuture<WebSocket>();
 
     WebSocketState() {}
 
@@ -29,6 +31,17 @@ class WebSocketState {
 
     void setReady(boolean isReady) {
         this.isReady = isReady;
+        if (isReady)
+            ready.complete(ws);
+        else if (ready.isDone())
+            ready = new CompletableFuture<WebSocket>();
+    }
+
+    /**
+     * Completes with the websocket when it is ready. A new future is handed out each time the connection is lost.
+     */
+    CompletableFuture<WebSocket> getReadyFuture() {
+        return ready;
     }
 
     boolean isReconnecting() {
@@ -1,6 +1,9 @@
 package intrinio.realtime.options;
 
 import com.google.gson.Gson;
+import intrinio.realtime.common.DispatchMode;
+import intrinio.realtime.common.OverflowPolicy;
+import intrinio.realtime.common.WaitStrategy;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -9,6 +12,9 @@ import java.io.Reader;
 public class Config {
 	
 	private static final String filename = "intrinio/config.json";
+	private static final int DEFAULT_QUEUE_CAPACITY = 1 << 16;
+	private static final int DEFAULT_ARBITRATION_WINDOW = 100;
+	private static final int DEFAULT_ARBITRATION_CAPACITY = 1 << 17;
 	
 	private String optionsApiKey;
 	private Provider optionsProvider = Provider.NONE;
@@ -16,6 +22,21 @@ public class Config {
 	private String[] optionsSymbols;
 	private int optionsNumThreads = 4;
 	private boolean delayed = false;
+	private boolean optionsBufferPoolEnabled = false;
+	private WaitStrategy optionsWaitStrategy = WaitStrategy.BLOCKING;
+	private DispatchMode optionsDispatchMode = DispatchMode.SHARED;
+	private int optionsQueueCapacity = DEFAULT_QUEUE_CAPACITY;
+	private OverflowPolicy optionsOverflowPolicy = OverflowPolicy.BLOCK;
+	private boolean optionsQuoteConflationEnabled = false;
+	private boolean optionsVectorQuoteDecodingEnabled = false;
+	private int optionsSubscriptionRateLimit = 0;
+	private int optionsConnections = 1;
+	private boolean optionsHotStandbyEnabled = false;
+	private int optionsArbitrationWindow = DEFAULT_ARBITRATION_WINDOW;
+	private int optionsArbitrationCapacity = DEFAULT_ARBITRATION_CAPACITY;
+	private int optionsHeartbeatInterval = 0;
+	private int optionsStallTimeout = 0;
+	private boolean optionsLatencyTrackingEnabled = false;
 	
 	public Config(String optionsApiKey, Provider optionsProvider, String optionsIpAddress, String[] optionsSymbols, int optionsNumThreads, boolean delayed) throws Exception {
 		this.optionsApiKey = optionsApiKey;
@@ -57,15 +78,150 @@ public class Config {
 	}
 
 	public boolean isDelayed() { return delayed; }
+
+	public boolean isOptionsBufferPoolEnabled() {
+		return optionsBufferPoolEnabled;
+	}
+
+	public void setOptionsBufferPoolEnabled(boolean optionsBufferPoolEnabled) {
+		this.optionsBufferPoolEnabled = optionsBufferPoolEnabled;
+	}
+
+	public WaitStrategy getOptionsWaitStrategy() {
+		return optionsWaitStrategy == null ? WaitStrategy.BLOCKING : optionsWaitStrategy;
+	}
+
+	public void setOptionsWaitStrategy(WaitStrategy optionsWaitStrategy) {
+		this.optionsWaitStrategy = optionsWaitStrategy;
+	}
+
+	public DispatchMode getOptionsDispatchMode() {
+		return optionsDispatchMode == null ? DispatchMode.SHARED : optionsDispatchMode;
+	}
+
+	public void setOptionsDispatchMode(DispatchMode optionsDispatchMode) {
+		this.optionsDispatchMode = optionsDispatchMode;
+	}
+
+	public int getOptionsQueueCapacity() {
+		return optionsQueueCapacity > 0 ? optionsQueueCapacity : DEFAULT_QUEUE_CAPACITY;
+	}
+
+	public void setOptionsQueueCapacity(int optionsQueueCapacity) {
+		this.optionsQueueCapacity = optionsQueueCapacity;
+	}
+
+	public OverflowPolicy getOptionsOverflowPolicy() {
+		return optionsOverflowPolicy == null ? OverflowPolicy.BLOCK : optionsOverflowPolicy;
+	}
+
+	public void setOptionsOverflowPolicy(OverflowPolicy optionsOverflowPolicy) {
+		this.optionsOverflowPolicy = optionsOverflowPolicy;
+	}
+
+	public boolean isOptionsQuoteConflationEnabled() {
+		return optionsQuoteConflationEnabled;
+	}
+
+	public void setOptionsQuoteConflationEnabled(boolean optionsQuoteConflationEnabled) {
+		this.optionsQuoteConflationEnabled = optionsQuoteConflationEnabled;
+	}
+
+	public boolean isOptionsVectorQuoteDecodingEnabled() {
+		return optionsVectorQuoteDecodingEnabled;
+	}
+
+	public void setOptionsVectorQuoteDecodingEnabled(boolean optionsVectorQuoteDecodingEnabled) {
+		this.optionsVectorQuoteDecodingEnabled = optionsVectorQuoteDecodingEnabled;
+	}
+
+	public int getOptionsSubscriptionRateLimit() {
+		return optionsSubscriptionRateLimit;
+	}
+
+	public void setOptionsSubscriptionRateLimit(int optionsSubscriptionRateLimit) {
+		this.optionsSubscriptionRateLimit = optionsSubscriptionRateLimit;
+	}
+
+	public int getOptionsConnections() {
+		return optionsConnections > 0 ? optionsConnections : 1;
+	}
+
+	public void setOptionsConnections(int optionsConnections) {
+		this.optionsConnections = optionsConnections;
+	}
+
+	public boolean isOptionsHotStandbyEnabled() {
+		return optionsHotStandbyEnabled;
+	}
+
+	public void setOptionsHotStandbyEnabled(boolean optionsHotStandbyEnabled) {
+		this.optionsHotStandbyEnabled = optionsHotStandbyEnabled;
+	}
+
+	public int getOptionsArbitrationWindow() {
+		return optionsArbitrationWindow > 0 ? optionsArbitrationWindow : DEFAULT_ARBITRATION_WINDOW;
+	}
+
+	public void setOptionsArbitrationWindow(int optionsArbitrationWindow) {
+		this.optionsArbitrationWindow = optionsArbitrationWindow;
+	}
+
+	public int getOptionsArbitrationCapacity() {
+		return optionsArbitrationCapacity > 0 ? optionsArbitrationCapacity : DEFAULT_ARBITRATION_CAPACITY;
+	}
+
+	public void setOptionsArbitrationCapacity(int optionsArbitrationCapacity) {
+		this.optionsArbitrationCapacity = optionsArbitrationCapacity;
+	}
+
+	public int getOptionsHeartbeatInterval() {
+		return optionsHeartbeatInterval;
+	}
+
+	public void setOptionsHeartbeatInterval(int optionsHeartbeatInterval) {
+		this.optionsHeartbeatInterval = optionsHeartbeatInterval;
+	}
+
+	public int getOptionsStallTimeout() {
+		return optionsStallTimeout;
+	}
+
+	public void setOptionsStallTimeout(int optionsStallTimeout) {
+		this.optionsStallTimeout = optionsStallTimeout;
+	}
+
+	public boolean isOptionsLatencyTrackingEnabled() {
+		return optionsLatencyTrackingEnabled;
+	}
+
+	public void setOptionsLatencyTrackingEnabled(boolean optionsLatencyTrackingEnabled) {
+		this.optionsLatencyTrackingEnabled = optionsLatencyTrackingEnabled;
+	}
 	
 	public String toString() {
-		return String.format("apiKey = %s, provider = %s, ipAddress = %s, delayed = %s, symbols = %s, numThreads = %d",
+		return String.format("apiKey = %s, provider = %s, ipAddress = %s, delayed = %s, symbols = %s, numThreads = %d, bufferPoolEnabled = %s, waitStrategy = %s, dispatchMode = %s, queueCapacity = %d, overflowPolicy = %s, quoteConflationEnabled = %s, vectorQuoteDecodingEnabled = %s, subscriptionRateLimit = %d, connections = %d, hotStandbyEnabled = %s, arbitrationWindow = %d, arbitrationCapacity = %d, heartbeatInterval = %d, stallTimeout = %d, latencyTrackingEnabled = %s",
 				this.optionsApiKey,
 				this.optionsProvider,
 				this.optionsIpAddress,
 				this.delayed,
 				(this.optionsSymbols == null ? "[]" : "[ " + String.join(", ", this.optionsSymbols) + " ]"),
-				this.optionsNumThreads);
+				this.optionsNumThreads,
+				this.optionsBufferPoolEnabled,
+				this.getOptionsWaitStrategy(),
+				this.getOptionsDispatchMode(),
+				this.getOptionsQueueCapacity(),
+				this.getOptionsOverflowPolicy(),
+				this.optionsQuoteConflationEnabled,
+				this.optionsVectorQuoteDecodingEnabled,
+				this.optionsSubscriptionRateLimit,
+				this.getOptionsConnections(),
+				this.optionsHotStandbyEnabled,
+				this.getOptionsArbitrationWindow(),
+				this.getOptionsArbitrationCapacity(),
+				this.optionsHeartbeatInterval,
+				this.optionsStallTimeout,
+				this.optionsLatencyTrackingEnabled);
 	}
 
 	public static Config load() {
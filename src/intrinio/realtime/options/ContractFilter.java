@@ -0,0 +1,136 @@
+package intrinio.realtime.options;
+
+import intrinio.realtime.common.MessageFilter;
+import intrinio.realtime.common.SymbolSet;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Keeps only the messages for the contracts and message types of interest, deciding from the raw contract bytes
+ * (e.g. AAPL_201016C100.00) without interning or parsing anything. Everything is kept until narrowed with the setters.
+ * Configure the filter before passing it to {@link Client#setMessageFilter(ContractFilter)}.
+ */
+public final class ContractFilter implements MessageFilter {
+	private static final int UNUSUAL_ACTIVITY_TYPES = (1 << 3) | (1 << 4) | (1 << 5) | (1 << 6);
+
+	private SymbolSet underlyings = null;
+	//Expirations compare as yyMMdd numbers, which order the same as the dates for 2000 through 2099.
+	private int minExpiration = 0;
+	private int maxExpiration = 999999;
+	private long minStrike = 0L;
+	private long maxStrike = Long.MAX_VALUE;
+	private boolean puts = true;
+	private boolean calls = true;
+	private int types = (1 << 0) | (1 << 1) | (1 << 2) | UNUSUAL_ACTIVITY_TYPES;
+	private boolean anyContract = true;
+
+	/**
+	 * Keep only contracts on these underlying symbols. No symbols keeps every underlying.
+	 */
+	public void setUnderlyings(String... underlyings) {
+		this.underlyings = underlyings == null || underlyings.length == 0 ? null : new SymbolSet(Arrays.asList(underlyings));
+		update();
+	}
+
+	/**
+	 * Keep only contracts expiring between the dates, inclusive. Either may be null to leave that end open.
+	 */
+	public void setExpirationRange(LocalDate from, LocalDate to) {
+		this.minExpiration = from == null ? 0 : toYyMmDd(from);
+		this.maxExpiration = to == null ? 999999 : toYyMmDd(to);
+		update();
+	}
+
+	/**
+	 * Keep only contracts with a strike between the prices, inclusive. Pass NaN to leave that end open.
+	 */
+	public void setStrikeRange(double min, double max) {
+		this.minStrike = Double.isNaN(min) ? 0L : Math.round(min * 1000.0);
+		this.maxStrike = Double.isNaN(max) ? Long.MAX_VALUE : Math.round(max * 1000.0);
+		update();
+	}
+
+	public void setPuts(boolean puts) {
+		this.puts = puts;
+		update();
+	}
+
+	public void setCalls(boolean calls) {
+		this.calls = calls;
+		update();
+	}
+
+	public void setTrades(boolean trades) {
+		setTypes(1 << 0, trades);
+	}
+
+	public void setQuotes(boolean quotes) {
+		setTypes(1 << 1, quotes);
+	}
+
+	public void setRefreshes(boolean refreshes) {
+		setTypes(1 << 2, refreshes);
+	}
+
+	public void setUnusualActivity(boolean unusualActivity) {
+		setTypes(UNUSUAL_ACTIVITY_TYPES, unusualActivity);
+	}
+
+	@Override
+	public boolean accept(byte[] frame, int offset) {
+		int type = frame[offset + OptionsMessageLayout.TYPE_OFFSET];
+		if ((types & (1 << (type & 0x1F))) == 0)
+			return false;
+		if (anyContract)
+			return true;
+		int start = offset + 1;
+		int end = start + frame[offset];
+		int underscore = start;
+		while (underscore < end && frame[underscore] != '_')
+			underscore++;
+		//Underscore, yyMMdd, put/call and at least one strike digit.
+		if (underscore + 9 > end)
+			return false;
+		if (underlyings != null && !underlyings.contains(frame, start, underscore - start))
+			return false;
+		int expiration = 0;
+		for (int i = underscore + 1; i < underscore + 7; i++)
+			expiration = expiration * 10 + (frame[i] - '0');
+		if (expiration < minExpiration || expiration > maxExpiration)
+			return false;
+		if (frame[underscore + 7] == 'P' ? !puts : !calls)
+			return false;
+		long strike = 0L;
+		int decimals = -1;
+		for (int i = underscore + 8; i < end; i++) {
+			byte b = frame[i];
+			if (b == '.') {
+				decimals = 0;
+			} else if (decimals < 3) {
+				strike = strike * 10 + (b - '0');
+				if (decimals >= 0)
+					decimals++;
+			}
+		}
+		for (int i = Math.max(decimals, 0); i < 3; i++)
+			strike *= 10;
+		return strike >= minStrike && strike <= maxStrike;
+	}
+
+	private void setTypes(int mask, boolean keep) {
+		this.types = keep ? types | mask : types & ~mask;
+	}
+
+	private void update() {
+		this.anyContract = underlyings == null && minExpiration == 0 && maxExpiration == 999999
+				&& minStrike == 0L && maxStrike == Long.MAX_VALUE && puts && calls;
+	}
+
+	private static int toYyMmDd(LocalDate date) {
+		int year = date.getYear();
+		if (year < 2000 || year > 2099)
+			return year < 2000 ? 0 : 999999;
+		return (year - 2000) * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+	}
+}
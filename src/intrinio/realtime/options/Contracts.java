@@ -0,0 +1,56 @@
+package intrinio.realtime.options;
+
+import intrinio.realtime.common.IdIndex;
+import intrinio.realtime.common.SymbolTable;
+
+/**
+ * Option contract names. Contracts arrive in the server's format and are interned once, in the standard OCC format the records expose.
+ */
+final class Contracts {
+	static final SymbolTable TABLE = new SymbolTable(Contracts::toStandardFormat);
+	private static final IdIndex<OptionContractKey> KEYS = new IdIndex<>();
+	//Stored for contracts that have no key, so they are only parsed once. No real key has the sign bit set.
+	private static final OptionContractKey NO_KEY = OptionContractKey.fromValue(-1L);
+
+	private Contracts() {}
+
+	/**
+	 * The key for an interned contract, computed the first time it is asked for, or null if the contract does not fit in a key
+	 * (e.g. a strike or underlying out of range). The contract's messages are still delivered, without a key.
+	 */
+	static OptionContractKey getKey(int contractId) {
+		OptionContractKey key = KEYS.get(contractId);
+		if (key == null) {
+			key = OptionContractKey.tryParse(TABLE.getSymbol(contractId));
+			KEYS.set(contractId, key == null ? NO_KEY : key);
+		}
+		return key == NO_KEY ? null : key;
+	}
+
+	static String toStandardFormat(String functionalContract){
+		//Transform from server format to normal format
+		//From this: AAPL_201016C100.00 or ABC_201016C100.003
+		//To this:   AAPL__201016C00100000 or ABC___201016C00100003
+		char[] contractChars = new char[]{'_','_','_','_','_','_','2','2','0','1','0','1','C','0','0','0','0','0','0','0','0'};
+		int underscoreIndex = functionalContract.indexOf('_');
+
+		//copy symbol
+		functionalContract.getChars(0, underscoreIndex, contractChars, 0);
+
+		//copy date
+		functionalContract.getChars(underscoreIndex + 1, underscoreIndex + 7, contractChars, 6);
+
+		//copy put/call
+		functionalContract.getChars(underscoreIndex + 7, underscoreIndex + 8, contractChars, 12);
+
+		int decimalIndex = functionalContract.indexOf('.', 9);
+
+		//whole number copy
+		functionalContract.getChars(underscoreIndex + 8, decimalIndex, contractChars, 18 - (decimalIndex - underscoreIndex - 8));
+
+		//decimal number copy
+		functionalContract.getChars(decimalIndex + 1, functionalContract.length(), contractChars, 18);
+
+		return new String(contractChars);
+	}
+}
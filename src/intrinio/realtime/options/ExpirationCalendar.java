@@ -0,0 +1,88 @@
+package intrinio.realtime.options;
+
+import intrinio.realtime.common.IdIndex;
+import intrinio.realtime.common.SymbolTable;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Settlement instants for option expirations. Each (expiration date, settlement style) pair is resolved against the
+ * New York time zone once and cached, so repeated lookups across a chain return the same {@link ZonedDateTime}
+ * and the epoch second as a primitive without allocating.
+ */
+public final class ExpirationCalendar {
+	public static final ZoneId TIME_ZONE = ZoneId.of("America/New_York");
+	public static final double SECONDS_PER_YEAR = 31557600.0D;
+
+	private static final long EPOCH_DAY_2000 = LocalDate.of(2000, 1, 1).toEpochDay();
+	private static final int AM_SETTLED_UNDERLYING_ID = SymbolTable.SECURITIES.intern("SPX");
+	private static final IdIndex<Expiration> AM_EXPIRATIONS = new IdIndex<>();
+	private static final IdIndex<Expiration> PM_EXPIRATIONS = new IdIndex<>();
+
+	private ExpirationCalendar() {}
+
+	/**
+	 * The settlement style of a contract: AM for standard SPX options, PM otherwise.
+	 */
+	public static SettlementStyle getSettlementStyle(OptionContractKey contractKey) {
+		return contractKey.getUnderlyingId() == AM_SETTLED_UNDERLYING_ID ? SettlementStyle.AM : SettlementStyle.PM;
+	}
+
+	public static ZonedDateTime getExpirationDate(OptionContractKey contractKey) {
+		return getExpiration(contractKey.getExpirationEpochDay(), getSettlementStyle(contractKey)).date;
+	}
+
+	public static ZonedDateTime getExpirationDate(long expirationEpochDay, SettlementStyle style) {
+		return getExpiration(expirationEpochDay, style).date;
+	}
+
+	/**
+	 * The settlement instant of a contract, in seconds since 1970-01-01T00:00Z.
+	 */
+	public static long getExpirationEpochSecond(OptionContractKey contractKey) {
+		return getExpiration(contractKey.getExpirationEpochDay(), getSettlementStyle(contractKey)).epochSecond;
+	}
+
+	/**
+	 * The settlement instant for an expiration date (days since 1970-01-01) in seconds since 1970-01-01T00:00Z.
+	 */
+	public static long getExpirationEpochSecond(long expirationEpochDay, SettlementStyle style) {
+		return getExpiration(expirationEpochDay, style).epochSecond;
+	}
+
+	/**
+	 * The time from {@code unixTimestamp} (seconds) to the contract's settlement, in years of 365.25 days. Negative once expired.
+	 */
+	public static double getYearsToExpiration(OptionContractKey contractKey, double unixTimestamp) {
+		return getYearsToExpiration(getExpirationEpochSecond(contractKey), unixTimestamp);
+	}
+
+	public static double getYearsToExpiration(long expirationEpochSecond, double unixTimestamp) {
+		return (expirationEpochSecond - unixTimestamp) / SECONDS_PER_YEAR;
+	}
+
+	private static Expiration getExpiration(long expirationEpochDay, SettlementStyle style) {
+		long index = expirationEpochDay - EPOCH_DAY_2000;
+		if (index < 0L || index > Integer.MAX_VALUE)
+			return new Expiration(expirationEpochDay, style);
+		IdIndex<Expiration> expirations = style == SettlementStyle.AM ? AM_EXPIRATIONS : PM_EXPIRATIONS;
+		Expiration expiration = expirations.get((int) index);
+		if (expiration == null) {
+			expiration = new Expiration(expirationEpochDay, style);
+			expirations.set((int) index, expiration);
+		}
+		return expiration;
+	}
+
+	private static final class Expiration {
+		private final ZonedDateTime date;
+		private final long epochSecond;
+
+		private Expiration(long expirationEpochDay, SettlementStyle style) {
+			this.date = ZonedDateTime.of(LocalDate.ofEpochDay(expirationEpochDay), style.getTime(), TIME_ZONE);
+			this.epochSecond = date.toEpochSecond();
+		}
+	}
+}
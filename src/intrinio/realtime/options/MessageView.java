@@ -0,0 +1,98 @@
+package intrinio.realtime.options;
+
+import intrinio.realtime.common.AsciiView;
+import intrinio.realtime.common.Bytes;
+
+/**
+ * Base for the flyweight views over options messages. A view is re-pointed at each message with {@code wrap(frame, offset)} and reads
+ * fields from the frame bytes on demand, so it allocates nothing per message. Views are reused by the processing thread:
+ * they are only valid during the callback, and nothing read from them should be kept without copying it.
+ */
+public abstract class MessageView {
+	protected byte[] bytes;
+	protected int offset;
+	private final AsciiView contract = new AsciiView();
+	private final AsciiView underlyingSymbol = new AsciiView();
+	private int underscoreIndex;
+
+	MessageView() {}
+
+	void setMessage(byte[] frame, int offset) {
+		this.bytes = frame;
+		this.offset = offset;
+		this.underscoreIndex = -1;
+	}
+
+	/**
+	 * The contract in the server's format, e.g. AAPL_201016C100.00. Use {@link #toString()} on the result to keep it.
+	 */
+	public CharSequence getContract() {
+		return contract.wrap(bytes, offset + 1, bytes[offset]);
+	}
+
+	/**
+	 * The contract's interned ID, the same one carried by the records as {@code contractId()}.
+	 */
+	public int getContractId() {
+		return Contracts.TABLE.intern(bytes, offset + 1, bytes[offset]);
+	}
+
+	/**
+	 * The contract's key, or null if the contract does not fit in one.
+	 */
+	public OptionContractKey getContractKey() {
+		return Contracts.getKey(getContractId());
+	}
+
+	public CharSequence getUnderlyingSymbol() {
+		return underlyingSymbol.wrap(bytes, offset + 1, underscoreIndex());
+	}
+
+	public boolean isPut() {
+		return bytes[offset + 1 + underscoreIndex() + 7] == 'P';
+	}
+
+	public boolean isCall() {
+		return bytes[offset + 1 + underscoreIndex() + 7] == 'C';
+	}
+
+	public float getStrikePrice() {
+		int end = offset + 1 + bytes[offset];
+		int i = offset + 1 + underscoreIndex() + 8;
+		int whole = 0;
+		for (; i < end && bytes[i] != '.'; i++)
+			whole = whole * 10 + (bytes[i] - '0');
+		int part = 0;
+		int scale = 1;
+		for (i++; i < end; i++) {
+			part = part * 10 + (bytes[i] - '0');
+			scale *= 10;
+		}
+		return whole + (float) part / scale;
+	}
+
+	protected PriceType getPriceType(int priceTypeIndex) {
+		return PriceType.fromInt(bytes[offset + priceTypeIndex]);
+	}
+
+	/**
+	 * The raw fixed-point value at {@code valueIndex}, or {@link PriceType#NULL_RAW_VALUE} where the price is NaN, matching the records' raw getters.
+	 */
+	protected long getRawValue(int valueIndex) {
+		return PriceType.toRawValue(Bytes.getInt(bytes, offset + valueIndex));
+	}
+
+	protected double getScaledPrice(int priceTypeIndex, int valueIndex) {
+		return PriceType.fromInt(bytes[offset + priceTypeIndex]).getScaledValue(Bytes.getInt(bytes, offset + valueIndex));
+	}
+
+	private int underscoreIndex() {
+		if (underscoreIndex < 0) {
+			int i = 0;
+			while (bytes[offset + 1 + i] != '_')
+				i++;
+			underscoreIndex = i;
+		}
+		return underscoreIndex;
+	}
+}
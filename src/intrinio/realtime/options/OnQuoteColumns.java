@@ -0,0 +1,8 @@
+package intrinio.realtime.options;
+
+/**
+ * Receives the quotes decoded from one websocket frame as {@link QuoteColumns}, in a single call per frame.
+ */
+public interface OnQuoteColumns {
+	void onQuotes(QuoteColumns quotes);
+}
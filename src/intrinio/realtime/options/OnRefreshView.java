@@ -0,0 +1,8 @@
+package intrinio.realtime.options;
+
+/**
+ * Receives a reused {@link RefreshView} for each refresh message, instead of a parsed {@link Refresh} record.
+ */
+public interface OnRefreshView {
+	void onRefresh(RefreshView refresh);
+}
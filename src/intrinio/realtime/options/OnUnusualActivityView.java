@@ -0,0 +1,8 @@
+package intrinio.realtime.options;
+
+/**
+ * Receives a reused {@link UnusualActivityView} for each unusual activity message, instead of a parsed {@link UnusualActivity} record.
+ */
+public interface OnUnusualActivityView {
+	void onUnusualActivity(UnusualActivityView unusualActivity);
+}
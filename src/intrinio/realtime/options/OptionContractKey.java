@@ -0,0 +1,194 @@
+package intrinio.realtime.options;
+
+import intrinio.realtime.common.SymbolTable;
+
+import java.time.LocalDate;
+
+/**
+ * An option contract packed into a single {@code long}: underlying ID, expiration, strike and put/call.
+ * Keys are ordered by (underlying, expiration, strike, call before put) and compare and hash by value, so they work as sorted or hashed map keys.
+ * Underlyings are ordered by their {@link SymbolTable#SECURITIES} ID, which is first-seen order rather than alphabetical.
+ * Keys for contracts from the feed are computed once per contract and shared by every record for it.
+ */
+public final class OptionContractKey implements Comparable<OptionContractKey> {
+	//Layout, from the top: 0 sign | 19 underlying ID | 16 expiration (days since 2000-01-01) | 27 strike (thousandths) | 1 put
+	private static final int PUT_BITS = 1;
+	private static final int STRIKE_BITS = 27;
+	private static final int EXPIRATION_BITS = 16;
+	private static final int UNDERLYING_BITS = 19;
+	private static final int STRIKE_SHIFT = PUT_BITS;
+	private static final int EXPIRATION_SHIFT = STRIKE_SHIFT + STRIKE_BITS;
+	private static final int UNDERLYING_SHIFT = EXPIRATION_SHIFT + EXPIRATION_BITS;
+	private static final long EPOCH_DAY_2000 = LocalDate.of(2000, 1, 1).toEpochDay();
+
+	public static final int MAX_UNDERLYING_ID = (1 << UNDERLYING_BITS) - 1;
+
+	private final long value;
+
+	private OptionContractKey(long value) {
+		this.value = value;
+	}
+
+	/**
+	 * @param strikeInThousandths The strike price times 1000, as in the OCC symbol.
+	 */
+	public static OptionContractKey of(int underlyingId, LocalDate expirationDate, long strikeInThousandths, boolean isPut) {
+		long days = expirationDate.toEpochDay() - EPOCH_DAY_2000;
+		if (underlyingId < 0 || underlyingId > MAX_UNDERLYING_ID)
+			throw new IllegalArgumentException("Underlying ID out of range: " + underlyingId);
+		if (days < 0 || days >= (1L << EXPIRATION_BITS))
+			throw new IllegalArgumentException("Expiration date out of range: " + expirationDate);
+		if (strikeInThousandths < 0 || strikeInThousandths >= (1L << STRIKE_BITS))
+			throw new IllegalArgumentException("Strike out of range: " + strikeInThousandths);
+		return new OptionContractKey(((long) underlyingId << UNDERLYING_SHIFT) | (days << EXPIRATION_SHIFT) | (strikeInThousandths << STRIKE_SHIFT) | (isPut ? 1L : 0L));
+	}
+
+	public static OptionContractKey fromValue(long value) {
+		return new OptionContractKey(value);
+	}
+
+	/**
+	 * Parses a contract in the standard OCC format, e.g. AAPL__201016C00100000, interning its underlying symbol.
+	 */
+	public static OptionContractKey parse(CharSequence contract) {
+		int end = 6;
+		while (end > 0 && contract.charAt(end - 1) == '_')
+			end--;
+		int underlyingId = SymbolTable.SECURITIES.intern(contract.subSequence(0, end));
+		int year = 2000 + digits(contract, 6, 2);
+		int month = digits(contract, 8, 2);
+		int day = digits(contract, 10, 2);
+		boolean isPut = contract.charAt(12) == 'P';
+		long strike = digits(contract, 13, 8);
+		return of(underlyingId, LocalDate.of(year, month, day), strike, isPut);
+	}
+
+	/**
+	 * Like {@link #parse(CharSequence)}, but returns null instead of throwing if the contract is not in the OCC format.
+	 */
+	public static OptionContractKey tryParse(CharSequence contract) {
+		try {
+			return parse(contract);
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The underlying symbol at the start of a contract: up to the first underscore, and at most six characters. Does not need the rest of the contract to be valid.
+	 */
+	public static String parseUnderlyingSymbol(CharSequence contract) {
+		int end = Math.min(6, contract.length());
+		for (int i = 0; i < end; i++) {
+			if (contract.charAt(i) == '_')
+				return contract.subSequence(0, i).toString();
+		}
+		return contract.subSequence(0, end).toString();
+	}
+
+	/**
+	 * The packed representation. Comparing these as signed longs gives the same order as {@link #compareTo(OptionContractKey)}.
+	 */
+	public long getValue() {
+		return value;
+	}
+
+	public int getUnderlyingId() {
+		return (int) (value >>> UNDERLYING_SHIFT);
+	}
+
+	public String getUnderlyingSymbol() {
+		return SymbolTable.SECURITIES.getSymbol(getUnderlyingId());
+	}
+
+	/**
+	 * The expiration date as days since 1970-01-01, as in {@link LocalDate#toEpochDay()}.
+	 */
+	public long getExpirationEpochDay() {
+		return EPOCH_DAY_2000 + ((value >>> EXPIRATION_SHIFT) & ((1L << EXPIRATION_BITS) - 1));
+	}
+
+	public LocalDate getExpirationLocalDate() {
+		return LocalDate.ofEpochDay(getExpirationEpochDay());
+	}
+
+	public SettlementStyle getSettlementStyle() {
+		return ExpirationCalendar.getSettlementStyle(this);
+	}
+
+	/**
+	 * The settlement instant in seconds since 1970-01-01T00:00Z, from the {@link ExpirationCalendar}.
+	 */
+	public long getExpirationEpochSecond() {
+		return ExpirationCalendar.getExpirationEpochSecond(this);
+	}
+
+	/**
+	 * The time from {@code unixTimestamp} (seconds) to settlement, in years of 365.25 days.
+	 */
+	public double getYearsToExpiration(double unixTimestamp) {
+		return ExpirationCalendar.getYearsToExpiration(this, unixTimestamp);
+	}
+
+	public long getStrikeInThousandths() {
+		return (value >>> STRIKE_SHIFT) & ((1L << STRIKE_BITS) - 1);
+	}
+
+	public float getStrikePrice() {
+		return getStrikeInThousandths() / 1000.0f;
+	}
+
+	public boolean isPut() {
+		return (value & 1L) != 0L;
+	}
+
+	public boolean isCall() {
+		return (value & 1L) == 0L;
+	}
+
+	@Override
+	public int compareTo(OptionContractKey other) {
+		return Long.compare(value, other.value);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof OptionContractKey && ((OptionContractKey) other).value == value;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(value);
+	}
+
+	/**
+	 * The contract in the standard OCC format, e.g. AAPL__201016C00100000.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(21).append(getUnderlyingSymbol());
+		while (builder.length() < 6)
+			builder.append('_');
+		LocalDate expiration = getExpirationLocalDate();
+		appendDigits(builder, expiration.getYear() % 100, 2);
+		appendDigits(builder, expiration.getMonthValue(), 2);
+		appendDigits(builder, expiration.getDayOfMonth(), 2);
+		builder.append(isPut() ? 'P' : 'C');
+		appendDigits(builder, getStrikeInThousandths(), 8);
+		return builder.toString();
+	}
+
+	private static int digits(CharSequence text, int start, int count) {
+		int result = 0;
+		for (int i = start; i < start + count; i++)
+			result = result * 10 + (text.charAt(i) - '0');
+		return result;
+	}
+
+	private static void appendDigits(StringBuilder builder, long value, int count) {
+		String digits = Long.toString(value);
+		for (int i = digits.length(); i < count; i++)
+			builder.append('0');
+		builder.append(digits);
+	}
+}
@@ -0,0 +1,98 @@
+package intrinio.realtime.options;
+
+import intrinio.realtime.common.Bytes;
+import intrinio.realtime.common.MessageLayout;
+
+/**
+ * Options messages are fixed size by type. Byte 0 is the contract length, the contract starts at byte 1 and the type is byte 22.
+ */
+final class OptionsMessageLayout implements MessageLayout {
+	static final int TRADE_MESSAGE_SIZE = 72; //61 used + 11 pad
+	static final int QUOTE_MESSAGE_SIZE = 52; //48 used + 4 pad
+	static final int REFRESH_MESSAGE_SIZE = 52; //44 used + 8 pad
+	static final int UNUSUAL_ACTIVITY_MESSAGE_SIZE = 74; //62 used + 12 pad
+	static final int TYPE_OFFSET = 22;
+	private static final int TRADE_CONTENT_SIZE = 61;
+	private static final int QUOTE_CONTENT_SIZE = 48;
+	private static final int REFRESH_CONTENT_SIZE = 44;
+	private static final int UNUSUAL_ACTIVITY_CONTENT_SIZE = 62;
+
+	private static final String[] TYPE_NAMES = {"Trade", "Quote", "Refresh", "UnusualActivity"};
+
+	static final OptionsMessageLayout INSTANCE = new OptionsMessageLayout();
+
+	private OptionsMessageLayout() {}
+
+	static int getMessageSize(byte type) {
+		switch (type) {
+			case 0: return TRADE_MESSAGE_SIZE;
+			case 1: return QUOTE_MESSAGE_SIZE;
+			case 2: return REFRESH_MESSAGE_SIZE;
+			case 3:
+			case 4:
+			case 5:
+			case 6: return UNUSUAL_ACTIVITY_MESSAGE_SIZE;
+			default: return -1;
+		}
+	}
+
+	@Override
+	public int getMessageLength(byte[] frame, int offset) {
+		return getMessageSize(frame[offset + TYPE_OFFSET]);
+	}
+
+	@Override
+	public int getContentLength(byte[] frame, int offset) {
+		switch (frame[offset + TYPE_OFFSET]) {
+			case 0: return TRADE_CONTENT_SIZE;
+			case 1: return QUOTE_CONTENT_SIZE;
+			case 2: return REFRESH_CONTENT_SIZE;
+			case 3:
+			case 4:
+			case 5:
+			case 6: return UNUSUAL_ACTIVITY_CONTENT_SIZE;
+			default: return -1;
+		}
+	}
+
+	@Override
+	public String[] getMessageTypeNames() {
+		return TYPE_NAMES;
+	}
+
+	@Override
+	public int getMessageType(byte[] frame, int offset) {
+		byte type = frame[offset + TYPE_OFFSET];
+		if (type < 0 || type > 6)
+			return -1;
+		return type < 3 ? type : 3;
+	}
+
+	@Override
+	public long getTimestamp(byte[] frame, int offset) {
+		switch (frame[offset + TYPE_OFFSET]) {
+			case 0: return Bytes.getLong(frame, offset + 33);
+			case 1: return Bytes.getLong(frame, offset + 40);
+			case 3:
+			case 4:
+			case 5:
+			case 6: return Bytes.getLong(frame, offset + 54);
+			default: return -1L;
+		}
+	}
+
+	@Override
+	public boolean isQuote(byte[] frame, int offset) {
+		return frame[offset + TYPE_OFFSET] == 1;
+	}
+
+	@Override
+	public int getSymbolOffset(byte[] frame, int offset) {
+		return offset + 1;
+	}
+
+	@Override
+	public int getSymbolLength(byte[] frame, int offset) {
+		return frame[offset];
+	}
+}
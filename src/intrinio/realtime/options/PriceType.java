@@ -1,94 +1,102 @@
 package intrinio.realtime.options;
 
-enum PriceType {
-    One,
-    Ten,
-    Hundred,
-    Thousand,
-    TenThousand,
-    HundredThousand,
-    Million,
-    TenMillion,
-    HundredMillion,
-    Billion,
-    FiveHundredTwelve,
-    Zero;
+/**
+ * The scale of the fixed-point prices in options messages. A price is sent as a scaled integer (the raw value) and is
+ * {@code raw / getScale()}; for the decimal types that is {@code raw * 10^-getExponent()}.
+ */
+public enum PriceType {
+    One(1L, 0),
+    Ten(10L, 1),
+    Hundred(100L, 2),
+    Thousand(1_000L, 3),
+    TenThousand(10_000L, 4),
+    HundredThousand(100_000L, 5),
+    Million(1_000_000L, 6),
+    TenMillion(10_000_000L, 7),
+    HundredMillion(100_000_000L, 8),
+    Billion(1_000_000_000L, 9),
+    FiveHundredTwelve(512L, -1),
+    Zero(0L, -1);
+
+    //Indexed by wire code; unlisted codes scale by one
+    private static final PriceType[] byCode = new PriceType[]{
+            One, Ten, Hundred, Thousand, TenThousand, HundredThousand, Million, TenMillion, HundredMillion, Billion, FiveHundredTwelve,
+            One, One, One, One, Zero
+    };
+
+    /**
+     * The raw value of a price the feed sent as null, which is NaN as a double. Never the raw value of a real price.
+     */
+    public static final long NULL_RAW_VALUE = Long.MIN_VALUE;
+
+    private final long scale;
+    private final int exponent;
+    private final double divisor;
+
+    PriceType(long scale, int exponent) {
+        this.scale = scale;
+        this.exponent = exponent;
+        this.divisor = scale;
+    }
 
     static PriceType fromInt(int b){
-        switch (b){
-            case 0x00:
-                return One;
-            case 0x01:
-                return Ten;
-            case 0x02:
-                return Hundred;
-            case 0x03:
-                return Thousand;
-            case 0x04:
-                return TenThousand;
-            case 0x05:
-                return HundredThousand;
-            case 0x06:
-                return Million;
-            case 0x07:
-                return TenMillion;
-            case 0x08:
-                return HundredMillion;
-            case 0x09:
-                return Billion;
-            case 0x0A:
-                return FiveHundredTwelve;
-            case 0x0F:
-                return Zero;
-            default:
-                return One;
-        }
+        return (b >= 0 && b < byCode.length) ? byCode[b] : One;
     }
 
-    long getScale() {
-        switch (this){
-            case One:
-                return 1L;
-            case Ten:
-                return 10L;
-            case Hundred:
-                return 100L;
-            case Thousand:
-                return 1_000L;
-            case TenThousand:
-                return 10_000L;
-            case HundredThousand:
-                return 100_000L;
-            case Million:
-                return 1_000_000L;
-            case TenMillion:
-                return 10_000_000L;
-            case HundredMillion:
-                return 100_000_000L;
-            case Billion:
-                return 1_000_000_000L;
-            case FiveHundredTwelve:
-                return 512L;
-            case Zero:
-                return 0L;
-            default:
-                return 1L;
-        }
+    /**
+     * The divisor that turns a raw value into a price.
+     */
+    public long getScale() {
+        return scale;
     }
 
-    double getScaledValue(int value){
-        if (value == 0b11111111_11111111_11111111_11111111
+    /**
+     * The number of decimal places in a raw value, or -1 for FiveHundredTwelve and Zero, which are not powers of ten.
+     */
+    public int getExponent() {
+        return exponent;
+    }
+
+    /**
+     * The raw value of a price in this scale, for prices that did not come from the feed: {@link #NULL_RAW_VALUE} for NaN,
+     * and for any price in {@link #Zero}, which cannot be scaled back. Records and views from the feed keep the raw values as sent.
+     */
+    public long getRawValue(double price) {
+        return Double.isNaN(price) || scale == 0L ? NULL_RAW_VALUE : Math.round(price * divisor);
+    }
+
+    /**
+     * A value as sent, or {@link #NULL_RAW_VALUE} if it is one of the feed's null values.
+     */
+    static long toRawValue(int value) {
+        return isNull(value) ? NULL_RAW_VALUE : value;
+    }
+
+    static long toRawValue(long value) {
+        return isNull(value) ? NULL_RAW_VALUE : value;
+    }
+
+    static boolean isNull(int value) {
+        return value == 0b11111111_11111111_11111111_11111111
                 || value == 2147483647
-                || value == -2147483648)
+                || value == -2147483648;
+    }
+
+    static boolean isNull(long value) {
+        return value == 0b11111111_11111111_11111111_11111111_11111111_11111111_11111111_11111111L
+                || value == 9223372036854775807L
+                || value == -9223372036854775808L;
+    }
+
+    double getScaledValue(int value){
+        if (isNull(value))
             return Double.NaN;
-        return ((double) value) / ((double) getScale());
+        return ((double) value) / divisor;
     }
 
     double getScaledValue(long value){
-        if (value == 0b11111111_11111111_11111111_11111111_11111111_11111111_11111111_11111111L
-                || value == 9223372036854775807L
-                || value == -9223372036854775808L)
+        if (isNull(value))
             return Double.NaN;
-        return ((double) value) / ((double) getScale());
+        return ((double) value) / divisor;
     }
 }
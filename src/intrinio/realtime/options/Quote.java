@@ -2,65 +2,53 @@ package intrinio.realtime.options;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
-public record Quote(String contract, double askPrice, long askSize, double bidPrice, long bidSize, double timestamp) {
-	private static String formatContract(String functionalContract){
-		//Transform from server format to normal format
-		//From this: AAPL_201016C100.00 or ABC_201016C100.003
-		//To this:   AAPL__201016C00100000 or ABC___201016C00100003
-		char[] contractChars = new char[]{'_','_','_','_','_','_','2','2','0','1','0','1','C','0','0','0','0','0','0','0','0'};
-		int underscoreIndex = functionalContract.indexOf('_');
-
-		//copy symbol
-		functionalContract.getChars(0, underscoreIndex, contractChars, 0);
-
-		//copy date
-		functionalContract.getChars(underscoreIndex + 1, underscoreIndex + 7, contractChars, 6);
-
-		//copy put/call
-		functionalContract.getChars(underscoreIndex + 7, underscoreIndex + 8, contractChars, 12);
-
-		int decimalIndex = functionalContract.indexOf('.', 9);
+public record Quote(String contract, double askPrice, long askSize, double bidPrice, long bidSize, double timestamp, int contractId, OptionContractKey contractKey, PriceType priceType, long rawAskPrice, long rawBidPrice) {
+	/**
+	 * Creates a quote that was not interned from the feed; {@link #contractId()} is -1 and the key is parsed from the contract, or null if it is not in the OCC format. Prices are kept to nine decimal places.
+	 */
+	public Quote(String contract, double askPrice, long askSize, double bidPrice, long bidSize, double timestamp) {
+		this(contract, askPrice, askSize, bidPrice, bidSize, timestamp, -1, OptionContractKey.tryParse(contract), PriceType.Billion, PriceType.Billion.getRawValue(askPrice), PriceType.Billion.getRawValue(bidPrice));
+	}
 
-		//whole number copy
-		functionalContract.getChars(underscoreIndex + 8, decimalIndex, contractChars, 18 - (decimalIndex - underscoreIndex - 8));
+	/**
+	 * Raw fixed-point prices, exact integers in their {@link PriceType} scale. Both prices use {@link #priceType()}.
+	 * A price the feed sent as null (NaN) is {@link PriceType#NULL_RAW_VALUE}.
+	 */
+	public long getRawAskPrice() {
+		return this.rawAskPrice;
+	}
 
-		//decimal number copy
-		functionalContract.getChars(decimalIndex + 1, functionalContract.length(), contractChars, 18);
+	public long getRawBidPrice() {
+		return this.rawBidPrice;
+	}
 
-		return new String(contractChars);
+	/**
+	 * The contract key, parsed from the contract if the record was created without one. Throws if the contract is not in the OCC format or does not fit in a key.
+	 */
+	public OptionContractKey getContractKey() {
+		return this.contractKey != null ? this.contractKey : OptionContractKey.parse(this.contract);
 	}
 
 	public float getStrikePrice() {
-		int whole = (this.contract.charAt(13) - '0') * 10000 + (this.contract.charAt(14) - '0') * 1000 + (this.contract.charAt(15) - '0') * 100 + (this.contract.charAt(16) - '0') * 10 + (this.contract.charAt(17) - '0');
-		float part = (this.contract.charAt(18) - '0') * 0.1f + (this.contract.charAt(19) - '0') * 0.01f + (this.contract.charAt(20) - '0') * 0.001f;
-		return (whole + part);
+		return getContractKey().getStrikePrice();
 	}
 
 	public boolean isPut() {
-		return this.contract.charAt(12) == 'P';
+		return getContractKey().isPut();
 	}
 
 	public boolean isCall() {
-		return this.contract.charAt(12) == 'C';
+		return getContractKey().isCall();
 	}
 
 	public ZonedDateTime getExpirationDate() {
-		int year = 2000 + (this.contract.charAt(6) - '0') * 10 + (this.contract.charAt(7) - '0');
-		int month = (this.contract.charAt(8) - '0') * 10 + (this.contract.charAt(9) - '0');
-		int day = (this.contract.charAt(10) - '0') * 10 + (this.contract.charAt(11) - '0');
-		ZoneId tz = ZoneId.of("America/New_York");
-		return this.getUnderlyingSymbol() != "SPX" ? ZonedDateTime.of(year, month, day, 16, 0, 0, 0, tz)
-				: ZonedDateTime.of(year, month, day, 9, 30, 0, 0, tz);
+		return ExpirationCalendar.getExpirationDate(getContractKey());
 	}
 
 	public String getUnderlyingSymbol() {
-		int i;
-		for (i = 5; i >= 0 && this.contract.charAt(i) == '_'; i--);
-		return this.contract.substring(0,i+1);
+		return this.contractKey != null ? this.contractKey.getUnderlyingSymbol() : OptionContractKey.parseUnderlyingSymbol(this.contract);
 	}
 	
 	public String toString() {
@@ -85,13 +73,15 @@ public record Quote(String contract, double askPrice, long askSize, double bidPr
 		// bid size [36-39]
 		// timestamp [40-47]
 
-		String contract = StandardCharsets.US_ASCII.decode(ByteBuffer.wrap(bytes, 1, bytes[0])).toString();
+		int contractId = Contracts.TABLE.intern(bytes, 1, bytes[0]);
+		String contract = Contracts.TABLE.getSymbol(contractId);
 
 		PriceType scaler = PriceType.fromInt(bytes[23]);
 		
 		ByteBuffer askPriceBuffer = ByteBuffer.wrap(bytes, 24, 4);
 		askPriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double askPrice = scaler.getScaledValue(askPriceBuffer.getInt());
+		int unscaledAskPrice = askPriceBuffer.getInt();
+		double askPrice = scaler.getScaledValue(unscaledAskPrice);
 		
 		ByteBuffer askSizeBuffer = ByteBuffer.wrap(bytes, 28, 4);
 		askSizeBuffer.order(ByteOrder.LITTLE_ENDIAN);
@@ -99,7 +89,8 @@ public record Quote(String contract, double askPrice, long askSize, double bidPr
 
 		ByteBuffer bidPriceBuffer = ByteBuffer.wrap(bytes, 32, 4);
 		bidPriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double bidPrice = scaler.getScaledValue(bidPriceBuffer.getInt());
+		int unscaledBidPrice = bidPriceBuffer.getInt();
+		double bidPrice = scaler.getScaledValue(unscaledBidPrice);
 
 		ByteBuffer bidSizeBuffer = ByteBuffer.wrap(bytes, 36, 4);
 		bidSizeBuffer.order(ByteOrder.LITTLE_ENDIAN);
@@ -109,7 +100,7 @@ public record Quote(String contract, double askPrice, long askSize, double bidPr
 		timeStampBuffer.order(ByteOrder.LITTLE_ENDIAN);
 		double timestamp = ((double) timeStampBuffer.getLong()) / 1_000_000_000.0D;
 
-		return new Quote(Quote.formatContract(contract), askPrice, askSize, bidPrice, bidSize, timestamp);
+		return new Quote(contract, askPrice, askSize, bidPrice, bidSize, timestamp, contractId, Contracts.getKey(contractId), scaler, PriceType.toRawValue(unscaledAskPrice), PriceType.toRawValue(unscaledBidPrice));
 	}
 
 	public static Quote parse(ByteBuffer bytes) {
@@ -124,13 +115,15 @@ public record Quote(String contract, double askPrice, long askSize, double bidPr
 		// bid size [36-39]
 		// timestamp [40-47]
 
-		String contract = StandardCharsets.US_ASCII.decode(bytes.slice(1, bytes.get(0))).toString();
+		int contractId = Contracts.TABLE.intern(bytes, 1, bytes.get(0));
+		String contract = Contracts.TABLE.getSymbol(contractId);
 
 		PriceType scaler = PriceType.fromInt(bytes.get(23));
 		
 		ByteBuffer askPriceBuffer = bytes.slice(24, 4);
 		askPriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double askPrice = scaler.getScaledValue(askPriceBuffer.getInt());
+		int unscaledAskPrice = askPriceBuffer.getInt();
+		double askPrice = scaler.getScaledValue(unscaledAskPrice);
 		
 		ByteBuffer askSizeBuffer = bytes.slice(28, 4);
 		askSizeBuffer.order(ByteOrder.LITTLE_ENDIAN);
@@ -138,7 +131,8 @@ public record Quote(String contract, double askPrice, long askSize, double bidPr
 
 		ByteBuffer bidPriceBuffer = bytes.slice(32, 4);
 		bidPriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double bidPrice = scaler.getScaledValue(bidPriceBuffer.getInt());
+		int unscaledBidPrice = bidPriceBuffer.getInt();
+		double bidPrice = scaler.getScaledValue(unscaledBidPrice);
 
 		ByteBuffer bidSizeBuffer = bytes.slice(36, 4);
 		bidSizeBuffer.order(ByteOrder.LITTLE_ENDIAN);
@@ -148,7 +142,7 @@ public record Quote(String contract, double askPrice, long askSize, double bidPr
 		timeStampBuffer.order(ByteOrder.LITTLE_ENDIAN);
 		double timestamp = ((double) timeStampBuffer.getLong()) / 1_000_000_000.0D;
 
-		return new Quote(Quote.formatContract(contract), askPrice, askSize, bidPrice, bidSize, timestamp);
+		return new Quote(contract, askPrice, askSize, bidPrice, bidSize, timestamp, contractId, Contracts.getKey(contractId), scaler, PriceType.toRawValue(unscaledAskPrice), PriceType.toRawValue(unscaledBidPrice));
 	}
 	
 }
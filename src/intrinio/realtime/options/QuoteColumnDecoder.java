@@ -0,0 +1,64 @@
+package intrinio.realtime.options;
+
+import intrinio.realtime.common.Bytes;
+
+/**
+ * Decodes runs of consecutive quote messages into {@link QuoteColumns}. This is the scalar decoder; {@link #create(boolean)}
+ * can substitute one built on the incubating Vector API when the JVM was started with {@code --add-modules jdk.incubator.vector}.
+ * A decoder keeps scratch state, so each processing thread needs its own.
+ */
+class QuoteColumnDecoder {
+	static final String VECTOR_DECODER_CLASS = "intrinio.realtime.options.VectorQuoteColumnDecoder";
+
+	/**
+	 * A scalar decoder, or the Vector API decoder if {@code vector} is set and the module is available.
+	 */
+	static QuoteColumnDecoder create(boolean vector) {
+		if (vector) {
+			try {
+				return (QuoteColumnDecoder) Class.forName(VECTOR_DECODER_CLASS).getDeclaredConstructor().newInstance();
+			} catch (Throwable e) {
+				//Module not added, or a JVM older than 17; fall through to the scalar decoder
+			}
+		}
+		return new QuoteColumnDecoder();
+	}
+
+	boolean isVectorized() {
+		return false;
+	}
+
+	/**
+	 * Appends {@code count} quotes laid out back to back from {@code offset} in the frame to the columns.
+	 */
+	void decode(byte[] frame, int offset, int count, QuoteColumns into) {
+		internContracts(frame, offset, count, into);
+		decodeFields(frame, offset, into.size, count, into);
+		into.size += count;
+	}
+
+	/**
+	 * Decodes everything but the contract of {@code count} quotes into the columns from {@code index}.
+	 */
+	static void decodeFields(byte[] frame, int offset, int index, int count, QuoteColumns into) {
+		for (int i = 0; i < count; i++, index++, offset += OptionsMessageLayout.QUOTE_MESSAGE_SIZE) {
+			PriceType scaler = PriceType.fromInt(frame[offset + 23]);
+			into.priceTypes[index] = scaler;
+			int askPrice = Bytes.getInt(frame, offset + 24);
+			int bidPrice = Bytes.getInt(frame, offset + 32);
+			into.rawAskPrices[index] = askPrice;
+			into.askPrices[index] = scaler.getScaledValue(askPrice);
+			into.askSizes[index] = Bytes.getUnsignedInt(frame, offset + 28);
+			into.rawBidPrices[index] = bidPrice;
+			into.bidPrices[index] = scaler.getScaledValue(bidPrice);
+			into.bidSizes[index] = Bytes.getUnsignedInt(frame, offset + 36);
+			into.timestamps[index] = Bytes.getLong(frame, offset + 40);
+		}
+	}
+
+	static void internContracts(byte[] frame, int offset, int count, QuoteColumns into) {
+		int index = into.size;
+		for (int i = 0; i < count; i++, index++, offset += OptionsMessageLayout.QUOTE_MESSAGE_SIZE)
+			into.contractIds[index] = Contracts.TABLE.intern(frame, offset + 1, frame[offset]);
+	}
+}
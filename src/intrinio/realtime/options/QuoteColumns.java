@@ -0,0 +1,94 @@
+package intrinio.realtime.options;
+
+/**
+ * A run of quotes decoded into structure-of-arrays form: one primitive array per field, indexed by quote, so consumers can
+ * scan a field across the whole batch. The arrays are reused for the next frame, so only the first {@link #size()} entries
+ * are valid, and only until the callback returns.
+ */
+public final class QuoteColumns {
+	public static final int CAPACITY = 255;
+
+	final int[] contractIds = new int[CAPACITY];
+	final double[] askPrices = new double[CAPACITY];
+	final int[] rawAskPrices = new int[CAPACITY];
+	final long[] askSizes = new long[CAPACITY];
+	final double[] bidPrices = new double[CAPACITY];
+	final int[] rawBidPrices = new int[CAPACITY];
+	final long[] bidSizes = new long[CAPACITY];
+	final long[] timestamps = new long[CAPACITY];
+	final PriceType[] priceTypes = new PriceType[CAPACITY];
+	int size = 0;
+
+	QuoteColumns() {}
+
+	public int size() {
+		return size;
+	}
+
+	public int[] getContractIds() {
+		return contractIds;
+	}
+
+	public double[] getAskPrices() {
+		return askPrices;
+	}
+
+	public long[] getAskSizes() {
+		return askSizes;
+	}
+
+	public double[] getBidPrices() {
+		return bidPrices;
+	}
+
+	public long[] getBidSizes() {
+		return bidSizes;
+	}
+
+	/**
+	 * Nanoseconds since the unix epoch.
+	 */
+	public long[] getTimestamps() {
+		return timestamps;
+	}
+
+	/**
+	 * The scale the prices of quote {@code index} were sent in.
+	 */
+	public PriceType getPriceType(int index) {
+		return priceTypes[index];
+	}
+
+	/**
+	 * The ask price of quote {@code index} as sent, a fixed-point value in its {@link #getPriceType(int)} scale, or {@link PriceType#NULL_RAW_VALUE}.
+	 */
+	public long getRawAskPrice(int index) {
+		return PriceType.toRawValue(rawAskPrices[index]);
+	}
+
+	public long getRawBidPrice(int index) {
+		return PriceType.toRawValue(rawBidPrices[index]);
+	}
+
+	/**
+	 * The contract of quote {@code index}, in the standard OCC format.
+	 */
+	public String getContract(int index) {
+		return Contracts.TABLE.getSymbol(contractIds[index]);
+	}
+
+	/**
+	 * The contract's key, or null if the contract does not fit in one.
+	 */
+	public OptionContractKey getContractKey(int index) {
+		return Contracts.getKey(contractIds[index]);
+	}
+
+	/**
+	 * Copies quote {@code index} into a {@link Quote} record.
+	 */
+	public Quote toQuote(int index) {
+		int contractId = contractIds[index];
+		return new Quote(Contracts.TABLE.getSymbol(contractId), askPrices[index], askSizes[index], bidPrices[index], bidSizes[index], ((double) timestamps[index]) / 1_000_000_000.0D, contractId, Contracts.getKey(contractId), priceTypes[index], getRawAskPrice(index), getRawBidPrice(index));
+	}
+}
@@ -0,0 +1,64 @@
+package intrinio.realtime.options;
+
+import intrinio.realtime.common.Bytes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A flyweight view over a quote message. See {@link MessageView}.
+ */
+public final class QuoteView extends MessageView {
+	public QuoteView wrap(byte[] frame, int offset) {
+		setMessage(frame, offset);
+		return this;
+	}
+
+	/**
+	 * The scale of the raw prices.
+	 */
+	public PriceType getPriceType() {
+		return getPriceType(23);
+	}
+
+	public double getAskPrice() {
+		return getScaledPrice(23, 24);
+	}
+
+	public long getRawAskPrice() {
+		return getRawValue(24);
+	}
+
+	public long getAskSize() {
+		return Bytes.getUnsignedInt(bytes, offset + 28);
+	}
+
+	public double getBidPrice() {
+		return getScaledPrice(23, 32);
+	}
+
+	public long getRawBidPrice() {
+		return getRawValue(32);
+	}
+
+	public long getBidSize() {
+		return Bytes.getUnsignedInt(bytes, offset + 36);
+	}
+
+	/**
+	 * Seconds since the unix epoch.
+	 */
+	public double getTimestamp() {
+		return ((double) getTimestampNanos()) / 1_000_000_000.0D;
+	}
+
+	public long getTimestampNanos() {
+		return Bytes.getLong(bytes, offset + 40);
+	}
+
+	/**
+	 * Copies the message into a {@link Quote} record.
+	 */
+	public Quote toQuote() {
+		return Quote.parse(ByteBuffer.wrap(bytes, offset, OptionsMessageLayout.QUOTE_MESSAGE_SIZE).slice());
+	}
+}
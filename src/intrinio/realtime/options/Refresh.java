@@ -2,64 +2,62 @@ package intrinio.realtime.options;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
-public record Refresh(String contract, long openInterest, double openPrice, double closePrice, double highPrice, double lowPrice){
-    private static String formatContract(String functionalContract){
-        //Transform from server format to normal format
-        //From this: AAPL_201016C100.00 or ABC_201016C100.003
-        //To this:   AAPL__201016C00100000 or ABC___201016C00100003
-        char[] contractChars = new char[]{'_','_','_','_','_','_','2','2','0','1','0','1','C','0','0','0','0','0','0','0','0'};
-        int underscoreIndex = functionalContract.indexOf('_');
-
-        //copy symbol
-        functionalContract.getChars(0, underscoreIndex, contractChars, 0);
-
-        //copy date
-        functionalContract.getChars(underscoreIndex + 1, underscoreIndex + 7, contractChars, 6);
+public record Refresh(String contract, long openInterest, double openPrice, double closePrice, double highPrice, double lowPrice, int contractId, OptionContractKey contractKey, PriceType priceType, long rawOpenPrice, long rawClosePrice, long rawHighPrice, long rawLowPrice){
+    /**
+     * Creates a refresh that was not interned from the feed; {@link #contractId()} is -1 and the key is parsed from the contract, or null if it is not in the OCC format. Prices are kept to nine decimal places.
+     */
+    public Refresh(String contract, long openInterest, double openPrice, double closePrice, double highPrice, double lowPrice) {
+        this(contract, openInterest, openPrice, closePrice, highPrice, lowPrice, -1, OptionContractKey.tryParse(contract), PriceType.Billion,
+                PriceType.Billion.getRawValue(openPrice), PriceType.Billion.getRawValue(closePrice), PriceType.Billion.getRawValue(highPrice), PriceType.Billion.getRawValue(lowPrice));
+    }
 
-        //copy put/call
-        functionalContract.getChars(underscoreIndex + 7, underscoreIndex + 8, contractChars, 12);
+    /**
+     * Raw fixed-point prices, exact integers in their {@link PriceType} scale. All four prices use {@link #priceType()}.
+     * A price the feed sent as null (NaN) is {@link PriceType#NULL_RAW_VALUE}.
+     */
+    public long getRawOpenPrice() {
+        return this.rawOpenPrice;
+    }
 
-        int decimalIndex = functionalContract.indexOf('.', 9);
+    public long getRawClosePrice() {
+        return this.rawClosePrice;
+    }
 
-        //whole number copy
-        functionalContract.getChars(underscoreIndex + 8, decimalIndex, contractChars, 18 - (decimalIndex - underscoreIndex - 8));
+    public long getRawHighPrice() {
+        return this.rawHighPrice;
+    }
 
-        //decimal number copy
-        functionalContract.getChars(decimalIndex + 1, functionalContract.length(), contractChars, 18);
+    public long getRawLowPrice() {
+        return this.rawLowPrice;
+    }
 
-        return new String(contractChars);
+    /**
+     * The contract key, parsed from the contract if the record was created without one. Throws if the contract is not in the OCC format or does not fit in a key.
+     */
+    public OptionContractKey getContractKey() {
+        return this.contractKey != null ? this.contractKey : OptionContractKey.parse(this.contract);
     }
 
     public float getStrikePrice() {
-        int whole = (this.contract.charAt(13) - '0') * 10000 + (this.contract.charAt(14) - '0') * 1000 + (this.contract.charAt(15) - '0') * 100 + (this.contract.charAt(16) - '0') * 10 + (this.contract.charAt(17) - '0');
-        float part = (this.contract.charAt(18) - '0') * 0.1f + (this.contract.charAt(19) - '0') * 0.01f + (this.contract.charAt(20) - '0') * 0.001f;
-        return (whole + part);
+        return getContractKey().getStrikePrice();
     }
 
     public boolean isPut() {
-        return this.contract.charAt(12) == 'P';
+        return getContractKey().isPut();
     }
 
     public boolean isCall() {
-        return this.contract.charAt(12) == 'C';
+        return getContractKey().isCall();
     }
 
     public ZonedDateTime getExpirationDate() {
-        int year = 2000 + (this.contract.charAt(6) - '0') * 10 + (this.contract.charAt(7) - '0');
-        int month = (this.contract.charAt(8) - '0') * 10 + (this.contract.charAt(9) - '0');
-        int day = (this.contract.charAt(10) - '0') * 10 + (this.contract.charAt(11) - '0');
-        ZoneId tz = ZoneId.of("America/New_York");
-        return ZonedDateTime.of(year, month, day, 12, 0, 0, 0, tz);
+        return ExpirationCalendar.getExpirationDate(getContractKey());
     }
 
     public String getUnderlyingSymbol() {
-        int i;
-        for (i = 5; i >= 0 && this.contract.charAt(i) == '_'; i--);
-        return this.contract.substring(0,i+1);
+        return this.contractKey != null ? this.contractKey.getUnderlyingSymbol() : OptionContractKey.parseUnderlyingSymbol(this.contract);
     }
 
     public String toString() {
@@ -84,7 +82,8 @@ public record Refresh(String contract, long openInterest, double openPrice, doub
         // high price [36-39]
         // low price [40-43]
 
-        String contract = StandardCharsets.US_ASCII.decode(ByteBuffer.wrap(bytes, 1, bytes[0])).toString();
+        int contractId = Contracts.TABLE.intern(bytes, 1, bytes[0]);
+        String contract = Contracts.TABLE.getSymbol(contractId);
 
         PriceType scaler = PriceType.fromInt(bytes[23]);
 
@@ -94,21 +93,25 @@ public record Refresh(String contract, long openInterest, double openPrice, doub
 
         ByteBuffer openPriceBuffer = ByteBuffer.wrap(bytes, 28, 4);
         openPriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        double openPrice = scaler.getScaledValue(openPriceBuffer.getInt());
+        int unscaledOpenPrice = openPriceBuffer.getInt();
+        double openPrice = scaler.getScaledValue(unscaledOpenPrice);
 
         ByteBuffer closePriceBuffer = ByteBuffer.wrap(bytes, 32, 4);
         closePriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        double closePrice = scaler.getScaledValue(closePriceBuffer.getInt());
+        int unscaledClosePrice = closePriceBuffer.getInt();
+        double closePrice = scaler.getScaledValue(unscaledClosePrice);
 
         ByteBuffer highPriceBuffer = ByteBuffer.wrap(bytes, 36, 4);
         highPriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        double highPrice = scaler.getScaledValue(highPriceBuffer.getInt());
+        int unscaledHighPrice = highPriceBuffer.getInt();
+        double highPrice = scaler.getScaledValue(unscaledHighPrice);
 
         ByteBuffer lowPriceBuffer = ByteBuffer.wrap(bytes, 40, 4);
         lowPriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        double lowPrice = scaler.getScaledValue(lowPriceBuffer.getInt());
+        int unscaledLowPrice = lowPriceBuffer.getInt();
+        double lowPrice = scaler.getScaledValue(unscaledLowPrice);
 
-        return new Refresh(Refresh.formatContract(contract), openInterest, openPrice, closePrice, highPrice, lowPrice);
+        return new Refresh(contract, openInterest, openPrice, closePrice, highPrice, lowPrice, contractId, Contracts.getKey(contractId), scaler, PriceType.toRawValue(unscaledOpenPrice), PriceType.toRawValue(unscaledClosePrice), PriceType.toRawValue(unscaledHighPrice), PriceType.toRawValue(unscaledLowPrice));
     }
 
     public static Refresh parse(ByteBuffer bytes) {
@@ -123,7 +126,8 @@ public record Refresh(String contract, long openInterest, double openPrice, doub
         // high price [36-39]
         // low price [40-43]
 
-        String contract = StandardCharsets.US_ASCII.decode(bytes.slice(1, bytes.get(0))).toString();
+        int contractId = Contracts.TABLE.intern(bytes, 1, bytes.get(0));
+        String contract = Contracts.TABLE.getSymbol(contractId);
 
         PriceType scaler = PriceType.fromInt(bytes.get(23));
 
@@ -133,20 +137,24 @@ public record Refresh(String contract, long openInterest, double openPrice, doub
 
         ByteBuffer openPriceBuffer = bytes.slice(28, 4);
         openPriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        double openPrice = scaler.getScaledValue(openPriceBuffer.getInt());
+        int unscaledOpenPrice = openPriceBuffer.getInt();
+        double openPrice = scaler.getScaledValue(unscaledOpenPrice);
 
         ByteBuffer closePriceBuffer = bytes.slice(32, 4);
         closePriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        double closePrice = scaler.getScaledValue(closePriceBuffer.getInt());
+        int unscaledClosePrice = closePriceBuffer.getInt();
+        double closePrice = scaler.getScaledValue(unscaledClosePrice);
 
         ByteBuffer highPriceBuffer = bytes.slice(36, 4);
         highPriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        double highPrice = scaler.getScaledValue(highPriceBuffer.getInt());
+        int unscaledHighPrice = highPriceBuffer.getInt();
+        double highPrice = scaler.getScaledValue(unscaledHighPrice);
 
         ByteBuffer lowPriceBuffer = bytes.slice(40, 4);
         lowPriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        double lowPrice = scaler.getScaledValue(lowPriceBuffer.getInt());
+        int unscaledLowPrice = lowPriceBuffer.getInt();
+        double lowPrice = scaler.getScaledValue(unscaledLowPrice);
 
-        return new Refresh(Refresh.formatContract(contract), openInterest, openPrice, closePrice, highPrice, lowPrice);
+        return new Refresh(contract, openInterest, openPrice, closePrice, highPrice, lowPrice, contractId, Contracts.getKey(contractId), scaler, PriceType.toRawValue(unscaledOpenPrice), PriceType.toRawValue(unscaledClosePrice), PriceType.toRawValue(unscaledHighPrice), PriceType.toRawValue(unscaledLowPrice));
     }
 }
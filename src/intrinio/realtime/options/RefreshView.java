@@ -0,0 +1,65 @@
+package intrinio.realtime.options;
+
+import intrinio.realtime.common.Bytes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A flyweight view over a refresh message. See {@link MessageView}.
+ */
+public final class RefreshView extends MessageView {
+	public RefreshView wrap(byte[] frame, int offset) {
+		setMessage(frame, offset);
+		return this;
+	}
+
+	public long getOpenInterest() {
+		return Bytes.getUnsignedInt(bytes, offset + 24);
+	}
+
+	/**
+	 * The scale of the raw prices.
+	 */
+	public PriceType getPriceType() {
+		return getPriceType(23);
+	}
+
+	public double getOpenPrice() {
+		return getScaledPrice(23, 28);
+	}
+
+	public long getRawOpenPrice() {
+		return getRawValue(28);
+	}
+
+	public double getClosePrice() {
+		return getScaledPrice(23, 32);
+	}
+
+	public long getRawClosePrice() {
+		return getRawValue(32);
+	}
+
+	public double getHighPrice() {
+		return getScaledPrice(23, 36);
+	}
+
+	public long getRawHighPrice() {
+		return getRawValue(36);
+	}
+
+	public double getLowPrice() {
+		return getScaledPrice(23, 40);
+	}
+
+	public long getRawLowPrice() {
+		return getRawValue(40);
+	}
+
+	/**
+	 * Copies the message into a {@link Refresh} record.
+	 */
+	public Refresh toRefresh() {
+		return Refresh.parse(ByteBuffer.wrap(bytes, offset, OptionsMessageLayout.REFRESH_MESSAGE_SIZE).slice());
+	}
+}
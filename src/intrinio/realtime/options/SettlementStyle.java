@@ -0,0 +1,27 @@
+package intrinio.realtime.options;
+
+import java.time.LocalTime;
+
+/**
+ * When on its expiration date an option contract settles, in exchange (New York) time.
+ */
+public enum SettlementStyle {
+	/**
+	 * Settles on the opening print, e.g. standard SPX options.
+	 */
+	AM(LocalTime.of(9, 30)),
+	/**
+	 * Settles on the close, as most equity and weekly index options do.
+	 */
+	PM(LocalTime.of(16, 0));
+
+	private final LocalTime time;
+
+	SettlementStyle(LocalTime time) {
+		this.time = time;
+	}
+
+	public LocalTime getTime() {
+		return time;
+	}
+}
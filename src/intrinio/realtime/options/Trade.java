@@ -2,65 +2,62 @@ package intrinio.realtime.options;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
-public record Trade(String contract, Exchange exchange, double price, long size, double timestamp, long totalVolume, Qualifiers qualifiers, double askPriceAtExecution, double bidPriceAtExecution, double underlyingPriceAtExecution) {
-	private static String formatContract(String functionalContract){
-		//Transform from server format to normal format
-		//From this: AAPL_201016C100.00 or ABC_201016C100.003
-		//To this:   AAPL__201016C00100000 or ABC___201016C00100003
-		char[] contractChars = new char[]{'_','_','_','_','_','_','2','2','0','1','0','1','C','0','0','0','0','0','0','0','0'};
-		int underscoreIndex = functionalContract.indexOf('_');
-
-		//copy symbol
-		functionalContract.getChars(0, underscoreIndex, contractChars, 0);
-
-		//copy date
-		functionalContract.getChars(underscoreIndex + 1, underscoreIndex + 7, contractChars, 6);
+public record Trade(String contract, Exchange exchange, double price, long size, double timestamp, long totalVolume, Qualifiers qualifiers, double askPriceAtExecution, double bidPriceAtExecution, double underlyingPriceAtExecution, int contractId, OptionContractKey contractKey, PriceType priceType, PriceType underlyingPriceType, long rawPrice, long rawAskPriceAtExecution, long rawBidPriceAtExecution, long rawUnderlyingPriceAtExecution) {
+	/**
+	 * Creates a trade that was not interned from the feed; {@link #contractId()} is -1 and the key is parsed from the contract, or null if it is not in the OCC format. Prices are kept to nine decimal places.
+	 */
+	public Trade(String contract, Exchange exchange, double price, long size, double timestamp, long totalVolume, Qualifiers qualifiers, double askPriceAtExecution, double bidPriceAtExecution, double underlyingPriceAtExecution) {
+		this(contract, exchange, price, size, timestamp, totalVolume, qualifiers, askPriceAtExecution, bidPriceAtExecution, underlyingPriceAtExecution, -1, OptionContractKey.tryParse(contract), PriceType.Billion, PriceType.Billion,
+				PriceType.Billion.getRawValue(price), PriceType.Billion.getRawValue(askPriceAtExecution), PriceType.Billion.getRawValue(bidPriceAtExecution), PriceType.Billion.getRawValue(underlyingPriceAtExecution));
+	}
 
-		//copy put/call
-		functionalContract.getChars(underscoreIndex + 7, underscoreIndex + 8, contractChars, 12);
+	/**
+	 * Raw fixed-point prices, exact integers in their {@link PriceType} scale. The price, ask and bid at execution share {@link #priceType()}; the underlying price uses {@link #underlyingPriceType()}.
+	 * A price the feed sent as null (NaN) is {@link PriceType#NULL_RAW_VALUE}.
+	 */
+	public long getRawPrice() {
+		return this.rawPrice;
+	}
 
-		int decimalIndex = functionalContract.indexOf('.', 9);
+	public long getRawAskPriceAtExecution() {
+		return this.rawAskPriceAtExecution;
+	}
 
-		//whole number copy
-		functionalContract.getChars(underscoreIndex + 8, decimalIndex, contractChars, 18 - (decimalIndex - underscoreIndex - 8));
+	public long getRawBidPriceAtExecution() {
+		return this.rawBidPriceAtExecution;
+	}
 
-		//decimal number copy
-		functionalContract.getChars(decimalIndex + 1, functionalContract.length(), contractChars, 18);
+	public long getRawUnderlyingPriceAtExecution() {
+		return this.rawUnderlyingPriceAtExecution;
+	}
 
-		return new String(contractChars);
+	/**
+	 * The contract key, parsed from the contract if the record was created without one. Throws if the contract is not in the OCC format or does not fit in a key.
+	 */
+	public OptionContractKey getContractKey() {
+		return this.contractKey != null ? this.contractKey : OptionContractKey.parse(this.contract);
 	}
 
 	public float getStrikePrice() {
-		int whole = (this.contract.charAt(13) - '0') * 10000 + (this.contract.charAt(14) - '0') * 1000 + (this.contract.charAt(15) - '0') * 100 + (this.contract.charAt(16) - '0') * 10 + (this.contract.charAt(17) - '0');
-		float part = (this.contract.charAt(18) - '0') * 0.1f + (this.contract.charAt(19) - '0') * 0.01f + (this.contract.charAt(20) - '0') * 0.001f;
-		return (whole + part);
+		return getContractKey().getStrikePrice();
 	}
 
 	public boolean isPut() {
-		return this.contract.charAt(12) == 'P';
+		return getContractKey().isPut();
 	}
 
 	public boolean isCall() {
-		return this.contract.charAt(12) == 'C';
+		return getContractKey().isCall();
 	}
 
 	public ZonedDateTime getExpirationDate() {
-		int year = 2000 + (this.contract.charAt(6) - '0') * 10 + (this.contract.charAt(7) - '0');
-		int month = (this.contract.charAt(8) - '0') * 10 + (this.contract.charAt(9) - '0');
-		int day = (this.contract.charAt(10) - '0') * 10 + (this.contract.charAt(11) - '0');
-		ZoneId tz = ZoneId.of("America/New_York");
-		return this.getUnderlyingSymbol() != "SPX" ? ZonedDateTime.of(year, month, day, 16, 0, 0, 0, tz)
-				: ZonedDateTime.of(year, month, day, 9, 30, 0, 0, tz);
+		return ExpirationCalendar.getExpirationDate(getContractKey());
 	}
 
 	public String getUnderlyingSymbol() {
-		int i;
-		for (i = 5; i >= 0 && this.contract.charAt(i) == '_'; i--);
-		return this.contract.substring(0,i+1);
+		return this.contractKey != null ? this.contractKey.getUnderlyingSymbol() : OptionContractKey.parseUnderlyingSymbol(this.contract);
 	}
 	
 	public String toString() {
@@ -93,7 +90,8 @@ public record Trade(String contract, Exchange exchange, double price, long size,
 		// underlying price at execution [57-60]
 		// qualifiers [61-64]
 		// exchange [65]
-		String contract = StandardCharsets.US_ASCII.decode(ByteBuffer.wrap(bytes, 1, bytes[0])).toString();
+		int contractId = Contracts.TABLE.intern(bytes, 1, bytes[0]);
+		String contract = Contracts.TABLE.getSymbol(contractId);
 
 		PriceType scaler = PriceType.fromInt(bytes[23]);
 		PriceType underlyingScaler = PriceType.fromInt(bytes[24]);
@@ -117,21 +115,24 @@ public record Trade(String contract, Exchange exchange, double price, long size,
 
 		ByteBuffer askPriceAtExecutionBuffer = ByteBuffer.wrap(bytes, 49, 4);
 		askPriceAtExecutionBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double askPriceAtExecution = scaler.getScaledValue(askPriceAtExecutionBuffer.getInt());
+		int unscaledAskPriceAtExecution = askPriceAtExecutionBuffer.getInt();
+		double askPriceAtExecution = scaler.getScaledValue(unscaledAskPriceAtExecution);
 
 		ByteBuffer bidPriceAtExecutionBuffer = ByteBuffer.wrap(bytes, 53, 4);
 		bidPriceAtExecutionBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double bidPriceAtExecution = scaler.getScaledValue(bidPriceAtExecutionBuffer.getInt());
+		int unscaledBidPriceAtExecution = bidPriceAtExecutionBuffer.getInt();
+		double bidPriceAtExecution = scaler.getScaledValue(unscaledBidPriceAtExecution);
 
 		ByteBuffer underlyingPriceAtExecutionBuffer = ByteBuffer.wrap(bytes, 57, 4);
 		underlyingPriceAtExecutionBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double underlyingPriceAtExecution = underlyingScaler.getScaledValue(underlyingPriceAtExecutionBuffer.getInt());
+		int unscaledUnderlyingPriceAtExecution = underlyingPriceAtExecutionBuffer.getInt();
+		double underlyingPriceAtExecution = underlyingScaler.getScaledValue(unscaledUnderlyingPriceAtExecution);
 		
 		Qualifiers qualifiers = new Qualifiers(bytes[61], bytes[62], bytes[63], bytes[64]);
 		
 		Exchange exchange = Exchange.valueOfCode(bytes[65]);
 		
-		return new Trade(Trade.formatContract(contract), exchange, price, size, timestamp, totalVolume, qualifiers, askPriceAtExecution, bidPriceAtExecution, underlyingPriceAtExecution);
+		return new Trade(contract, exchange, price, size, timestamp, totalVolume, qualifiers, askPriceAtExecution, bidPriceAtExecution, underlyingPriceAtExecution, contractId, Contracts.getKey(contractId), scaler, underlyingScaler, PriceType.toRawValue(unscaledPrice), PriceType.toRawValue(unscaledAskPriceAtExecution), PriceType.toRawValue(unscaledBidPriceAtExecution), PriceType.toRawValue(unscaledUnderlyingPriceAtExecution));
 	}
 	
 	public static Trade parse(ByteBuffer bytes) {
@@ -151,7 +152,8 @@ public record Trade(String contract, Exchange exchange, double price, long size,
 		// qualifiers [61-64]
 		// exchange [65]
 
-		String contract = StandardCharsets.US_ASCII.decode(bytes.slice(1, bytes.get(0))).toString();
+		int contractId = Contracts.TABLE.intern(bytes, 1, bytes.get(0));
+		String contract = Contracts.TABLE.getSymbol(contractId);
 
 		PriceType scaler = PriceType.fromInt(bytes.get(23));
 		PriceType underlyingScaler = PriceType.fromInt(bytes.get(24));
@@ -175,21 +177,24 @@ public record Trade(String contract, Exchange exchange, double price, long size,
 
 		ByteBuffer askPriceAtExecutionBuffer = bytes.slice(49, 4);
 		askPriceAtExecutionBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double askPriceAtExecution = scaler.getScaledValue(askPriceAtExecutionBuffer.getInt());
+		int unscaledAskPriceAtExecution = askPriceAtExecutionBuffer.getInt();
+		double askPriceAtExecution = scaler.getScaledValue(unscaledAskPriceAtExecution);
 
 		ByteBuffer bidPriceAtExecutionBuffer = bytes.slice(53, 4);
 		bidPriceAtExecutionBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double bidPriceAtExecution = scaler.getScaledValue(bidPriceAtExecutionBuffer.getInt());
+		int unscaledBidPriceAtExecution = bidPriceAtExecutionBuffer.getInt();
+		double bidPriceAtExecution = scaler.getScaledValue(unscaledBidPriceAtExecution);
 
 		ByteBuffer underyingPriceAtExecutionBuffer = bytes.slice(57, 4);
 		underyingPriceAtExecutionBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double underlyingPriceAtExecution = underlyingScaler.getScaledValue(underyingPriceAtExecutionBuffer.getInt());
+		int unscaledUnderlyingPriceAtExecution = underyingPriceAtExecutionBuffer.getInt();
+		double underlyingPriceAtExecution = underlyingScaler.getScaledValue(unscaledUnderlyingPriceAtExecution);
 		
 		Qualifiers qualifiers = new Qualifiers(bytes.get(61), bytes.get(62), bytes.get(63), bytes.get(64));
 		
 		Exchange exchange = Exchange.valueOfCode(bytes.get(65));
 
-		return new Trade(Trade.formatContract(contract), exchange, price, size, timestamp, totalVolume, qualifiers, askPriceAtExecution, bidPriceAtExecution, underlyingPriceAtExecution);
+		return new Trade(contract, exchange, price, size, timestamp, totalVolume, qualifiers, askPriceAtExecution, bidPriceAtExecution, underlyingPriceAtExecution, contractId, Contracts.getKey(contractId), scaler, underlyingScaler, PriceType.toRawValue(unscaledPrice), PriceType.toRawValue(unscaledAskPriceAtExecution), PriceType.toRawValue(unscaledBidPriceAtExecution), PriceType.toRawValue(unscaledUnderlyingPriceAtExecution));
 	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package intrinio.realtime.options;
+
+import intrinio.realtime.common.Bytes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A flyweight view over a trade message. See {@link MessageView}.
+ */
+public final class TradeView extends MessageView {
+	public TradeView wrap(byte[] frame, int offset) {
+		setMessage(frame, offset);
+		return this;
+	}
+
+	public Exchange getExchange() {
+		return Exchange.valueOfCode(bytes[offset + 65]);
+	}
+
+	/**
+	 * The scale of the raw prices other than the underlying price.
+	 */
+	public PriceType getPriceType() {
+		return getPriceType(23);
+	}
+
+	public PriceType getUnderlyingPriceType() {
+		return getPriceType(24);
+	}
+
+	public double getPrice() {
+		return getScaledPrice(23, 25);
+	}
+
+	public long getRawPrice() {
+		return getRawValue(25);
+	}
+
+	public long getSize() {
+		return Bytes.getUnsignedInt(bytes, offset + 29);
+	}
+
+	/**
+	 * Seconds since the unix epoch.
+	 */
+	public double getTimestamp() {
+		return ((double) getTimestampNanos()) / 1_000_000_000.0D;
+	}
+
+	public long getTimestampNanos() {
+		return Bytes.getLong(bytes, offset + 33);
+	}
+
+	public long getTotalVolume() {
+		return Bytes.getLong(bytes, offset + 41);
+	}
+
+	/**
+	 * One of the four qualifier bytes, 0 to 3.
+	 */
+	public byte getQualifier(int index) {
+		return bytes[offset + 61 + index];
+	}
+
+	public double getAskPriceAtExecution() {
+		return getScaledPrice(23, 49);
+	}
+
+	public long getRawAskPriceAtExecution() {
+		return getRawValue(49);
+	}
+
+	public double getBidPriceAtExecution() {
+		return getScaledPrice(23, 53);
+	}
+
+	public long getRawBidPriceAtExecution() {
+		return getRawValue(53);
+	}
+
+	public double getUnderlyingPriceAtExecution() {
+		return getScaledPrice(24, 57);
+	}
+
+	public long getRawUnderlyingPriceAtExecution() {
+		return getRawValue(57);
+	}
+
+	/**
+	 * Copies the message into a {@link Trade} record.
+	 */
+	public Trade toTrade() {
+		return Trade.parse(ByteBuffer.wrap(bytes, offset, OptionsMessageLayout.TRADE_MESSAGE_SIZE).slice());
+	}
+}
@@ -2,8 +2,6 @@ package intrinio.realtime.options;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
 public record UnusualActivity(
@@ -16,61 +14,73 @@ public record UnusualActivity(
 		double askPriceAtExecution,
 		double bidPriceAtExecution,
 		double underlyingPriceAtExecution,
-		double timestamp) {
-
-	private static String formatContract(String functionalContract){
-		//Transform from server format to normal format
-		//From this: AAPL_201016C100.00 or ABC_201016C100.003
-		//To this:   AAPL__201016C00100000 or ABC___201016C00100003
-		char[] contractChars = new char[]{'_','_','_','_','_','_','2','2','0','1','0','1','C','0','0','0','0','0','0','0','0'};
-		int underscoreIndex = functionalContract.indexOf('_');
-
-		//copy symbol
-		functionalContract.getChars(0, underscoreIndex, contractChars, 0);
+		double timestamp,
+		int contractId,
+		OptionContractKey contractKey,
+		PriceType priceType,
+		PriceType underlyingPriceType,
+		long rawTotalValue,
+		long rawAveragePrice,
+		long rawAskPriceAtExecution,
+		long rawBidPriceAtExecution,
+		long rawUnderlyingPriceAtExecution) {
+	/**
+	 * Creates an unusual activity event that was not interned from the feed; {@link #contractId()} is -1 and the key is parsed from the contract, or null if it is not in the OCC format. Prices are kept to nine decimal places.
+	 */
+	public UnusualActivity(String contract, UnusualActivityType type, UnusualActivitySentiment sentiment, double totalValue, long totalSize, double averagePrice, double askPriceAtExecution, double bidPriceAtExecution, double underlyingPriceAtExecution, double timestamp) {
+		this(contract, type, sentiment, totalValue, totalSize, averagePrice, askPriceAtExecution, bidPriceAtExecution, underlyingPriceAtExecution, timestamp, -1, OptionContractKey.tryParse(contract), PriceType.Billion, PriceType.Billion,
+				PriceType.Billion.getRawValue(totalValue), PriceType.Billion.getRawValue(averagePrice), PriceType.Billion.getRawValue(askPriceAtExecution), PriceType.Billion.getRawValue(bidPriceAtExecution), PriceType.Billion.getRawValue(underlyingPriceAtExecution));
+	}
 
-		//copy date
-		functionalContract.getChars(underscoreIndex + 1, underscoreIndex + 7, contractChars, 6);
+	/**
+	 * Raw fixed-point prices, exact integers in their {@link PriceType} scale. The total value, average price, ask and bid at execution share {@link #priceType()}; the underlying price uses {@link #underlyingPriceType()}.
+	 * A price the feed sent as null (NaN) is {@link PriceType#NULL_RAW_VALUE}.
+	 */
+	public long getRawTotalValue() {
+		return this.rawTotalValue;
+	}
 
-		//copy put/call
-		functionalContract.getChars(underscoreIndex + 7, underscoreIndex + 8, contractChars, 12);
+	public long getRawAveragePrice() {
+		return this.rawAveragePrice;
+	}
 
-		int decimalIndex = functionalContract.indexOf('.', 9);
+	public long getRawAskPriceAtExecution() {
+		return this.rawAskPriceAtExecution;
+	}
 
-		//whole number copy
-		functionalContract.getChars(underscoreIndex + 8, decimalIndex, contractChars, 18 - (decimalIndex - underscoreIndex - 8));
+	public long getRawBidPriceAtExecution() {
+		return this.rawBidPriceAtExecution;
+	}
 
-		//decimal number copy
-		functionalContract.getChars(decimalIndex + 1, functionalContract.length(), contractChars, 18);
+	public long getRawUnderlyingPriceAtExecution() {
+		return this.rawUnderlyingPriceAtExecution;
+	}
 
-		return new String(contractChars);
+	/**
+	 * The contract key, parsed from the contract if the record was created without one. Throws if the contract is not in the OCC format or does not fit in a key.
+	 */
+	public OptionContractKey getContractKey() {
+		return this.contractKey != null ? this.contractKey : OptionContractKey.parse(this.contract);
 	}
 
 	public float getStrikePrice() {
-		int whole = (this.contract.charAt(13) - '0') * 10000 + (this.contract.charAt(14) - '0') * 1000 + (this.contract.charAt(15) - '0') * 100 + (this.contract.charAt(16) - '0') * 10 + (this.contract.charAt(17) - '0');
-		float part = (this.contract.charAt(18) - '0') * 0.1f + (this.contract.charAt(19) - '0') * 0.01f + (this.contract.charAt(20) - '0') * 0.001f;
-		return (whole + part);
+		return getContractKey().getStrikePrice();
 	}
 
 	public boolean isPut() {
-		return this.contract.charAt(12) == 'P';
+		return getContractKey().isPut();
 	}
 
 	public boolean isCall() {
-		return this.contract.charAt(12) == 'C';
+		return getContractKey().isCall();
 	}
 
 	public ZonedDateTime getExpirationDate() {
-		int year = 2000 + (this.contract.charAt(6) - '0') * 10 + (this.contract.charAt(7) - '0');
-		int month = (this.contract.charAt(8) - '0') * 10 + (this.contract.charAt(9) - '0');
-		int day = (this.contract.charAt(10) - '0') * 10 + (this.contract.charAt(11) - '0');
-		ZoneId tz = ZoneId.of("America/New_York");
-		return ZonedDateTime.of(year, month, day, 12, 0, 0, 0, tz);
+		return ExpirationCalendar.getExpirationDate(getContractKey());
 	}
 
 	public String getUnderlyingSymbol() {
-		int i;
-		for (i = 5; i >= 0 && this.contract.charAt(i) == '_'; i--);
-		return this.contract.substring(0,i+1);
+		return this.contractKey != null ? this.contractKey.getUnderlyingSymbol() : OptionContractKey.parseUnderlyingSymbol(this.contract);
 	}
 	
 	public String toString() {
@@ -103,38 +113,19 @@ public record UnusualActivity(
 		// underlying price at execution [50-53]
 		// timestamp [54-61]
 
-		String contract = StandardCharsets.US_ASCII.decode(ByteBuffer.wrap(bytes, 1, bytes[0])).toString();
-		
-		UnusualActivityType type;
-		switch (bytes[22]) {
-			case 3: type = UnusualActivityType.BLOCK;
-				break;
-			case 4: type = UnusualActivityType.SWEEP;
-				break;
-			case 5: type = UnusualActivityType.LARGE;
-				break;
-			case 6: type = UnusualActivityType.UNUSUAL_SWEEP;
-				break;
-			default: type = UnusualActivityType.INVALID;
-		}
-		
-		UnusualActivitySentiment sentiment;
-		switch (bytes[23]) {
-			case 0: sentiment = UnusualActivitySentiment.NEUTRAL;
-				break;
-			case 1: sentiment = UnusualActivitySentiment.BULLISH;
-				break;
-			case 2: sentiment = UnusualActivitySentiment.BEARISH;
-				break;
-			default: sentiment = UnusualActivitySentiment.INVALID;
-		}
+		int contractId = Contracts.TABLE.intern(bytes, 1, bytes[0]);
+		String contract = Contracts.TABLE.getSymbol(contractId);
+		
+		UnusualActivityType type = UnusualActivityType.fromInt(bytes[22]);
+		UnusualActivitySentiment sentiment = UnusualActivitySentiment.fromInt(bytes[23]);
 
 		PriceType scaler = PriceType.fromInt(bytes[24]);
 		PriceType underlyingScaler = PriceType.fromInt(bytes[25]);
 		
 		ByteBuffer totalValueBuffer = ByteBuffer.wrap(bytes, 26, 8);
 		totalValueBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double totalValue = scaler.getScaledValue(totalValueBuffer.getLong());
+		long unscaledTotalValue = totalValueBuffer.getLong();
+		double totalValue = scaler.getScaledValue(unscaledTotalValue);
 		
 		ByteBuffer totalSizeBuffer = ByteBuffer.wrap(bytes, 34, 4);
 		totalSizeBuffer.order(ByteOrder.LITTLE_ENDIAN);
@@ -142,25 +133,29 @@ public record UnusualActivity(
 		
 		ByteBuffer averagePriceBuffer = ByteBuffer.wrap(bytes, 38, 4);
 		averagePriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double averagePrice = scaler.getScaledValue(averagePriceBuffer.getInt());
+		int unscaledAveragePrice = averagePriceBuffer.getInt();
+		double averagePrice = scaler.getScaledValue(unscaledAveragePrice);
 		
 		ByteBuffer askAtExecutionBuffer = ByteBuffer.wrap(bytes, 42, 4);
 		askAtExecutionBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double askAtExecution = scaler.getScaledValue(askAtExecutionBuffer.getInt());
+		int unscaledAskAtExecution = askAtExecutionBuffer.getInt();
+		double askAtExecution = scaler.getScaledValue(unscaledAskAtExecution);
 		
 		ByteBuffer bidAtExecutionBuffer = ByteBuffer.wrap(bytes, 46, 4);
 		bidAtExecutionBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double bidAtExecution = scaler.getScaledValue(bidAtExecutionBuffer.getInt());
+		int unscaledBidAtExecution = bidAtExecutionBuffer.getInt();
+		double bidAtExecution = scaler.getScaledValue(unscaledBidAtExecution);
 		
 		ByteBuffer underlyingPriceAtExecutionBuffer = ByteBuffer.wrap(bytes, 50, 4);
 		underlyingPriceAtExecutionBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double underlyingPriceAtExecution = underlyingScaler.getScaledValue(underlyingPriceAtExecutionBuffer.getInt());
+		int unscaledUnderlyingPriceAtExecution = underlyingPriceAtExecutionBuffer.getInt();
+		double underlyingPriceAtExecution = underlyingScaler.getScaledValue(unscaledUnderlyingPriceAtExecution);
 		
 		ByteBuffer timeStampBuffer = ByteBuffer.wrap(bytes, 54, 8);
 		timeStampBuffer.order(ByteOrder.LITTLE_ENDIAN);
 		double timestamp = ((double) timeStampBuffer.getLong()) / 1_000_000_000.0D;
 		
-		return new UnusualActivity(UnusualActivity.formatContract(contract), type, sentiment, totalValue, totalSize, averagePrice, askAtExecution, bidAtExecution, underlyingPriceAtExecution, timestamp);
+		return new UnusualActivity(contract, type, sentiment, totalValue, totalSize, averagePrice, askAtExecution, bidAtExecution, underlyingPriceAtExecution, timestamp, contractId, Contracts.getKey(contractId), scaler, underlyingScaler, PriceType.toRawValue(unscaledTotalValue), PriceType.toRawValue(unscaledAveragePrice), PriceType.toRawValue(unscaledAskAtExecution), PriceType.toRawValue(unscaledBidAtExecution), PriceType.toRawValue(unscaledUnderlyingPriceAtExecution));
 	}
 	
 	public static UnusualActivity parse(ByteBuffer bytes) {
@@ -179,38 +174,19 @@ public record UnusualActivity(
 		// underlying price at execution [50-53]
 		// timestamp [54-61]
 
-		String contract = StandardCharsets.US_ASCII.decode(bytes.slice(1, bytes.get(0))).toString();
-		
-		UnusualActivityType type;
-		switch (bytes.get(22)) {
-			case 3: type = UnusualActivityType.BLOCK;
-				break;
-			case 4: type = UnusualActivityType.SWEEP;
-				break;
-			case 5: type = UnusualActivityType.LARGE;
-				break;
-			case 6: type = UnusualActivityType.UNUSUAL_SWEEP;
-				break;
-			default: type = UnusualActivityType.INVALID;
-		}
-		
-		UnusualActivitySentiment sentiment;
-		switch (bytes.get(23)) {
-		case 0: sentiment = UnusualActivitySentiment.NEUTRAL;
-			break;
-		case 1: sentiment = UnusualActivitySentiment.BULLISH;
-			break;
-		case 2: sentiment = UnusualActivitySentiment.BEARISH;
-			break;
-		default: sentiment = UnusualActivitySentiment.INVALID;
-		}
+		int contractId = Contracts.TABLE.intern(bytes, 1, bytes.get(0));
+		String contract = Contracts.TABLE.getSymbol(contractId);
+		
+		UnusualActivityType type = UnusualActivityType.fromInt(bytes.get(22));
+		UnusualActivitySentiment sentiment = UnusualActivitySentiment.fromInt(bytes.get(23));
 
 		PriceType scaler = PriceType.fromInt(bytes.get(24));
 		PriceType underlyingScaler = PriceType.fromInt(bytes.get(25));
 		
 		ByteBuffer totalValueBuffer = bytes.slice(26, 8);
 		totalValueBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double totalValue = scaler.getScaledValue(totalValueBuffer.getLong());
+		long unscaledTotalValue = totalValueBuffer.getLong();
+		double totalValue = scaler.getScaledValue(unscaledTotalValue);
 		
 		ByteBuffer totalSizeBuffer = bytes.slice(34, 4);
 		totalSizeBuffer.order(ByteOrder.LITTLE_ENDIAN);
@@ -218,24 +194,28 @@ public record UnusualActivity(
 		
 		ByteBuffer averagePriceBuffer = bytes.slice(38, 4);
 		averagePriceBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double averagePrice = scaler.getScaledValue(averagePriceBuffer.getInt());
+		int unscaledAveragePrice = averagePriceBuffer.getInt();
+		double averagePrice = scaler.getScaledValue(unscaledAveragePrice);
 		
 		ByteBuffer askAtExecutionBuffer = bytes.slice(42, 4);
 		askAtExecutionBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double askAtExecution = scaler.getScaledValue(askAtExecutionBuffer.getInt());
+		int unscaledAskAtExecution = askAtExecutionBuffer.getInt();
+		double askAtExecution = scaler.getScaledValue(unscaledAskAtExecution);
 		
 		ByteBuffer bidAtExecutionBuffer = bytes.slice(46, 4);
 		bidAtExecutionBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double bidAtExecution = scaler.getScaledValue(bidAtExecutionBuffer.getInt());
+		int unscaledBidAtExecution = bidAtExecutionBuffer.getInt();
+		double bidAtExecution = scaler.getScaledValue(unscaledBidAtExecution);
 		
 		ByteBuffer underlyingPriceAtExecutionBuffer = bytes.slice(50, 4);
 		underlyingPriceAtExecutionBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		double underlyingPriceAtExecution = underlyingScaler.getScaledValue(underlyingPriceAtExecutionBuffer.getInt());
+		int unscaledUnderlyingPriceAtExecution = underlyingPriceAtExecutionBuffer.getInt();
+		double underlyingPriceAtExecution = underlyingScaler.getScaledValue(unscaledUnderlyingPriceAtExecution);
 		
 		ByteBuffer timeStampBuffer = bytes.slice(54, 8);
 		timeStampBuffer.order(ByteOrder.LITTLE_ENDIAN);
 		double timestamp = ((double) timeStampBuffer.getLong()) / 1_000_000_000.0D;
 		
-		return new UnusualActivity(UnusualActivity.formatContract(contract), type, sentiment, totalValue, totalSize, averagePrice, askAtExecution, bidAtExecution, underlyingPriceAtExecution, timestamp);
+		return new UnusualActivity(contract, type, sentiment, totalValue, totalSize, averagePrice, askAtExecution, bidAtExecution, underlyingPriceAtExecution, timestamp, contractId, Contracts.getKey(contractId), scaler, underlyingScaler, PriceType.toRawValue(unscaledTotalValue), PriceType.toRawValue(unscaledAveragePrice), PriceType.toRawValue(unscaledAskAtExecution), PriceType.toRawValue(unscaledBidAtExecution), PriceType.toRawValue(unscaledUnderlyingPriceAtExecution));
 	}
 }
@@ -4,5 +4,11 @@ public enum UnusualActivitySentiment {
 	NEUTRAL,
 	BULLISH,
 	BEARISH,
-	INVALID
+	INVALID;
+
+	private static final UnusualActivitySentiment[] byCode = new UnusualActivitySentiment[]{NEUTRAL, BULLISH, BEARISH};
+
+	static UnusualActivitySentiment fromInt(int code) {
+		return (code >= 0 && code < byCode.length) ? byCode[code] : INVALID;
+	}
 }
@@ -5,5 +5,12 @@ public enum UnusualActivityType {
 	BLOCK,
 	SWEEP,
 	LARGE,
-	UNUSUAL_SWEEP
+	UNUSUAL_SWEEP;
+
+	//Indexed by the message type code; codes 3-6 are unusual activity
+	private static final UnusualActivityType[] byCode = new UnusualActivityType[]{INVALID, INVALID, INVALID, BLOCK, SWEEP, LARGE, UNUSUAL_SWEEP};
+
+	static UnusualActivityType fromInt(int code) {
+		return (code >= 0 && code < byCode.length) ? byCode[code] : INVALID;
+	}
 }
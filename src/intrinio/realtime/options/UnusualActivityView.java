@@ -0,0 +1,96 @@
+package intrinio.realtime.options;
+
+import intrinio.realtime.common.Bytes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A flyweight view over an unusual activity message. See {@link MessageView}.
+ */
+public final class UnusualActivityView extends MessageView {
+	public UnusualActivityView wrap(byte[] frame, int offset) {
+		setMessage(frame, offset);
+		return this;
+	}
+
+	public UnusualActivityType getType() {
+		return UnusualActivityType.fromInt(bytes[offset + 22]);
+	}
+
+	public UnusualActivitySentiment getSentiment() {
+		return UnusualActivitySentiment.fromInt(bytes[offset + 23]);
+	}
+
+	/**
+	 * The scale of the raw prices other than the underlying price.
+	 */
+	public PriceType getPriceType() {
+		return getPriceType(24);
+	}
+
+	public PriceType getUnderlyingPriceType() {
+		return getPriceType(25);
+	}
+
+	public double getTotalValue() {
+		return PriceType.fromInt(bytes[offset + 24]).getScaledValue(Bytes.getLong(bytes, offset + 26));
+	}
+
+	public long getRawTotalValue() {
+		return PriceType.toRawValue(Bytes.getLong(bytes, offset + 26));
+	}
+
+	public long getTotalSize() {
+		return Bytes.getUnsignedInt(bytes, offset + 34);
+	}
+
+	public double getAveragePrice() {
+		return getScaledPrice(24, 38);
+	}
+
+	public long getRawAveragePrice() {
+		return getRawValue(38);
+	}
+
+	public double getAskPriceAtExecution() {
+		return getScaledPrice(24, 42);
+	}
+
+	public long getRawAskPriceAtExecution() {
+		return getRawValue(42);
+	}
+
+	public double getBidPriceAtExecution() {
+		return getScaledPrice(24, 46);
+	}
+
+	public long getRawBidPriceAtExecution() {
+		return getRawValue(46);
+	}
+
+	public double getUnderlyingPriceAtExecution() {
+		return getScaledPrice(25, 50);
+	}
+
+	public long getRawUnderlyingPriceAtExecution() {
+		return getRawValue(50);
+	}
+
+	/**
+	 * Seconds since the unix epoch.
+	 */
+	public double getTimestamp() {
+		return ((double) getTimestampNanos()) / 1_000_000_000.0D;
+	}
+
+	public long getTimestampNanos() {
+		return Bytes.getLong(bytes, offset + 54);
+	}
+
+	/**
+	 * Copies the message into an {@link UnusualActivity} record.
+	 */
+	public UnusualActivity toUnusualActivity() {
+		return UnusualActivity.parse(ByteBuffer.wrap(bytes, offset, OptionsMessageLayout.UNUSUAL_ACTIVITY_MESSAGE_SIZE).slice());
+	}
+}
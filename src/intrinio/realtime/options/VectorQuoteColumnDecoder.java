@@ -0,0 +1,105 @@
+package intrinio.realtime.options;
+
+import intrinio.realtime.common.Bytes;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteOrder;
+
+/**
+ * Decodes quote runs with the incubating Vector API. The run is copied into 32-bit words with wide loads, then each field is
+ * gathered across as many quotes as a double vector has lanes and scaled or widened in one operation, with results identical
+ * to the scalar decoder. Contracts are interned and any remainder shorter than a vector is decoded with the scalar code.
+ * Only loaded reflectively by {@link QuoteColumnDecoder#create(boolean)}, so the module stays optional.
+ */
+final class VectorQuoteColumnDecoder extends QuoteColumnDecoder {
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Long> LONGS = DOUBLES.withLanes(long.class);
+	//Half the width of DOUBLES, so an int vector widens to a double or long vector with the same number of lanes
+	private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+	private static final VectorSpecies<Integer> WORDS = IntVector.SPECIES_PREFERRED;
+	private static final int WORDS_PER_QUOTE = OptionsMessageLayout.QUOTE_MESSAGE_SIZE / 4;
+	//Word indexes of the fields within a quote: the price type is the top byte of word 5
+	private static final int PRICE_TYPE_WORD = 5;
+	private static final int ASK_PRICE_WORD = 6;
+	private static final int ASK_SIZE_WORD = 7;
+	private static final int BID_PRICE_WORD = 8;
+	private static final int BID_SIZE_WORD = 9;
+	private static final int TIMESTAMP_WORD = 10;
+	private static final double[] DIVISORS = new double[256];
+
+	static {
+		for (int code = 0; code < DIVISORS.length; code++)
+			DIVISORS[code] = PriceType.fromInt(code).getScale();
+	}
+
+	private final int[] words = new int[QuoteColumns.CAPACITY * WORDS_PER_QUOTE];
+	private final int[] stride = new int[DOUBLES.length()];
+	private final int[] codes = new int[DOUBLES.length()];
+
+	VectorQuoteColumnDecoder() {
+		for (int lane = 0; lane < stride.length; lane++)
+			stride[lane] = lane * WORDS_PER_QUOTE;
+	}
+
+	@Override
+	boolean isVectorized() {
+		return true;
+	}
+
+	@Override
+	void decode(byte[] frame, int offset, int count, QuoteColumns into) {
+		internContracts(frame, offset, count, into);
+		copyWords(frame, offset, count * WORDS_PER_QUOTE);
+		int lanes = DOUBLES.length();
+		int index = into.size;
+		int quote = 0;
+		for (; quote <= count - lanes; quote += lanes, index += lanes) {
+			int word = quote * WORDS_PER_QUOTE;
+			IntVector types = gather(word + PRICE_TYPE_WORD).lanewise(VectorOperators.LSHR, 24);
+			types.intoArray(codes, 0);
+			DoubleVector divisors = DoubleVector.fromArray(DOUBLES, DIVISORS, 0, codes, 0);
+			IntVector askPrices = gather(word + ASK_PRICE_WORD);
+			askPrices.intoArray(into.rawAskPrices, index);
+			scale(askPrices, divisors).intoArray(into.askPrices, index);
+			unsigned(gather(word + ASK_SIZE_WORD)).intoArray(into.askSizes, index);
+			IntVector bidPrices = gather(word + BID_PRICE_WORD);
+			bidPrices.intoArray(into.rawBidPrices, index);
+			scale(bidPrices, divisors).intoArray(into.bidPrices, index);
+			unsigned(gather(word + BID_SIZE_WORD)).intoArray(into.bidSizes, index);
+			LongVector high = (LongVector) gather(word + TIMESTAMP_WORD + 1).convertShape(VectorOperators.I2L, LONGS, 0);
+			unsigned(gather(word + TIMESTAMP_WORD)).or(high.lanewise(VectorOperators.LSHL, 32)).intoArray(into.timestamps, index);
+			for (int lane = 0; lane < lanes; lane++)
+				into.priceTypes[index + lane] = PriceType.fromInt(codes[lane]);
+		}
+		decodeFields(frame, offset + quote * OptionsMessageLayout.QUOTE_MESSAGE_SIZE, index, count - quote, into);
+		into.size += count;
+	}
+
+	private void copyWords(byte[] frame, int offset, int length) {
+		int word = 0;
+		for (; word <= length - WORDS.length(); word += WORDS.length())
+			IntVector.fromByteArray(WORDS, frame, offset + word * 4, ByteOrder.LITTLE_ENDIAN).intoArray(words, word);
+		for (; word < length; word++)
+			words[word] = Bytes.getInt(frame, offset + word * 4);
+	}
+
+	private IntVector gather(int word) {
+		return IntVector.fromArray(INTS, words, word, stride, 0);
+	}
+
+	private static DoubleVector scale(IntVector raw, DoubleVector divisors) {
+		VectorMask<Integer> isNull = raw.eq(-1).or(raw.eq(Integer.MAX_VALUE)).or(raw.eq(Integer.MIN_VALUE));
+		DoubleVector prices = ((DoubleVector) raw.convertShape(VectorOperators.I2D, DOUBLES, 0)).div(divisors);
+		return prices.blend(Double.NaN, isNull.cast(DOUBLES));
+	}
+
+	private static LongVector unsigned(IntVector raw) {
+		return ((LongVector) raw.convertShape(VectorOperators.I2L, LONGS, 0)).and(0xFFFFFFFFL);
+	}
+}